@@ -1,17 +1,32 @@
 package actors;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
+import commands.AnimationTimeline;
 import events.CardClicked;
 import events.EndTurnClicked;
+import events.EventLog;
+import events.GameJournal;
 import events.EventProcessor;
 import events.Heartbeat;
 import events.Initalize;
@@ -20,6 +35,7 @@ import events.TileClicked;
 import events.UnitMoving;
 import events.UnitStopped;
 import play.libs.Json;
+import simulation.GameReplayer;
 import structures.GameState;
 import utils.ImageListForPreLoad;
 import play.libs.Json;
@@ -36,20 +52,83 @@ import play.libs.Json;
  */
 public class GameActor extends AbstractActor {
 
+	private static final Logger logger = LoggerFactory.getLogger(GameActor.class);
+
 	private ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to turn java objects to Strings
 	private ActorRef out; // The ActorRef can be used to send messages to the front-end UI
 	private Map<String,EventProcessor> eventProcessors; // Classes used to process each type of event
 	private GameState gameState; // A class that can be used to hold game state information
+	private AnimationTimeline timeline; // Paces the commands sent to the UI so that animations never block this actor
+	private GameHost host; // The host this game is running on, null if the actor was created without one
+	private GameMetrics metrics; // Metrics recorded for this game
+	private boolean admitted; // Whether this game holds a place on its host, which it must give back when it stops
+	private String gameKey; // Key the client can give to resume this game, null until the game is initalized
+	private GameJournal journal; // Journal this game can be resumed from, null if it isn't journalled
+	private boolean handedOver; // Whether this actor's game has been handed over to the actor of a new websocket
+	
+	// The initalize message of a game being handed over from the actor of the client's last websocket, and the messages
+	// which arrived while waiting for it, null when no game is being handed over
+	private JsonNode awaitingHandOver;
+	private boolean askedForHandOver;
+	private ArrayDeque<JsonNode> heldMessages = new ArrayDeque<JsonNode>();
+	private static final long HAND_OVER_TIMEOUT_MILLIS = 2000;
+	
+	// Clicks which arrived while animations were still playing, processed in order once the timeline is idle
+	private ArrayDeque<JsonNode> deferredClicks = new ArrayDeque<JsonNode>();
+	private static final Set<String> clickEvents = new HashSet<String>(Arrays.asList("tileclicked", "cardclicked", "endturnclicked", "otherclicked"));
+	
+	/**
+	 * Message the actor sends itself once its timeline has gone idle, so deferred clicks can be processed
+	 */
+	private static final class TimelineIdle {}
+	
+	/**
+	 * Asks the actor holding a game to hand it over to the actor of its client's new websocket
+	 */
+	private static final class HandOver {
+		final ActorRef requester;
+		HandOver(ActorRef requester) {
+			this.requester = requester;
+		}
+	}
+	
+	/**
+	 * Answers a HandOver with the game, or with null if the actor no longer holds an unfinished game
+	 */
+	private static final class HandedOver {
+		final SessionRegistry.Session session;
+		HandedOver(SessionRegistry.Session session) {
+			this.session = session;
+		}
+	}
+	
+	/**
+	 * Message the actor sends itself in case the actor it asked for a game never answers, e.g. as it stopped first
+	 */
+	private static final class HandOverTimeout {}
 
 	/**
 	 * Constructor for the GameActor. This is called by the GameController when the websocket
 	 * connection to the front-end is established.
 	 * @param out
 	 */
-	@SuppressWarnings("deprecation")
 	public GameActor(ActorRef out) {
+		this(out, null);
+	}
+
+	/**
+	 * Constructor for a GameActor hosted by a GameHost, which keeps track of the game's metrics
+	 * and frees its place when the game stops. The place is taken once the actor has started, in
+	 * preStart(), so an actor which is never started or fails to construct doesn't hold one.
+	 * @param out
+	 * @param host
+	 */
+	@SuppressWarnings("deprecation")
+	public GameActor(ActorRef out, GameHost host) {
 
 		this.out = out; // save this, so we can send commands to the front-end later
+		this.host = host;
+		this.metrics = new GameMetrics(0);
 
 		// create class instances to respond to the various events that we might recieve
 		eventProcessors = new HashMap<String,EventProcessor>();
@@ -64,6 +143,30 @@ public class GameActor extends AbstractActor {
 		
 		// Initalize a new game state object
 		gameState = new GameState();
+		if (host != null) {
+			gameState.setSearchPool(host.getSearchPool());
+		}
+		
+		// Commands are sent through the timeline, which uses the scheduler to wait for animations rather than this thread
+		timeline = new AnimationTimeline(out, getContext().getSystem().scheduler(), getContext().getDispatcher());
+		gameState.setUiSink(timeline);
+	}
+
+	/**
+	 * Takes this game's place on its host, turning the client away if the host is already running its
+	 * maximum number of games, then tells the front-end the actor is ready
+	 */
+	@Override
+	public void preStart() {
+		if (host != null) {
+			if (!host.tryAdmit()) {
+				reportError("Server busy, too many games running. Please try again later.");
+				getContext().stop(getSelf());
+				return;
+			}
+			admitted = true;
+			metrics = host.gameStarted();
+		}
 		
 		// Get the list of image files to pre-load the UI with
 		Set<String> images = ImageListForPreLoad.getImageListForPreLoad();
@@ -88,6 +191,20 @@ public class GameActor extends AbstractActor {
 				.match(JsonNode.class, message -> {
 					System.out.println(message);
 					processMessage(message.get("messagetype").asText(), message);
+				})
+				.match(TimelineIdle.class, idle -> {
+					processDeferredClicks();
+				})
+				.match(HandOver.class, request -> {
+					handOver(request.requester);
+				})
+				.match(HandedOver.class, answer -> {
+					handedOver(answer.session);
+				})
+				.match(HandOverTimeout.class, timeout -> {
+					if (awaitingHandOver != null) {
+						handedOver(null);
+					}
 				}).build();
 	}
 
@@ -102,12 +219,325 @@ public class GameActor extends AbstractActor {
 	@SuppressWarnings({"deprecation"})
 	public void processMessage(String messageType, JsonNode message) throws Exception{
 
+		// nothing can be processed until the game being handed over to this actor has arrived
+		if (awaitingHandOver != null) {
+			heldMessages.add(message);
+			return;
+		}
+
+		// clicks made while animations are still playing wait until the UI has caught up with the game state
+		if (clickEvents.contains(messageType) && (timeline.isBusy() || !deferredClicks.isEmpty())) {
+			deferredClicks.add(message);
+			metrics.clickDeferred();
+			notifyWhenIdle();
+			return;
+		}
+		dispatch(messageType, message);
+	}
+	
+	
+	/**
+	 * Process an event with the game's UI sink (its timeline) bound, so any waits for animations are scheduled rather than slept
+	 * @param messageType
+	 * @param message
+	 * @throws Exception
+	 */
+	private void dispatch(String messageType, JsonNode message) throws Exception{
+
+		// a hosted game starts logging when it is initalized, or carries on where it was if the client is resuming it
+		if (messageType.equals("initalize") && host != null && gameKey == null) {
+			if (message.hasNonNull("resumeGame") && resume(message.get("resumeGame").asText(), message)) {
+				return;
+			}
+			startLogging(host.newGameKey(), null);
+		}
+
 		EventProcessor processor = eventProcessors.get(messageType);
 		if (processor==null) {
 			// Unknown event type received
 			System.err.println("GameActor: Recieved unknown event type "+messageType);
 		} else {
-			processor.processEvent(out, gameState, message); // process the event
+			long startTime = System.nanoTime();
+			try {
+				gameState.withUiSink(() -> processor.processEvent(out, gameState, message)); // process the event
+			} finally {
+				metrics.eventProcessed(System.nanoTime() - startTime);
+				if (gameState.getEventLog() != null) {
+					gameState.getEventLog().flush(); // so the log is complete up to here if the server stops
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Log this game's events to its event log file and journal, whichever the host keeps, and tell the client the
+	 * game's key
+	 * @param key - the game's key
+	 * @param log - the game's event log so far, for a resumed game, or null for a new game
+	 */
+	private void startLogging(String key, byte[] log) {
+		holdGame(key);
+		OutputStream file = null;
+		try {
+			if (host.getEventLogDir() != null) {
+				File logFile = new File(host.getEventLogDir(), "game-" + System.currentTimeMillis() + "-" + metrics.getGameId() + ".glog");
+				logFile.getParentFile().mkdirs();
+				file = new FileOutputStream(logFile);
+			}
+			journal = host.createJournal(key);
+		} catch (IOException e) {
+			logger.warn("Couldn't create the logs of game "+key+", it won't be logged", e);
+		}
+		OutputStream stream = tee(file, journal);
+		if (stream != null) {
+			try {
+				gameState.setEventLog(new EventLog(stream, log));
+				gameState.getEventLog().flush();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Make a game this actor's, so the actor of a new websocket to it can find it, and tell the client its key
+	 * @param key - the game's key
+	 */
+	private void holdGame(String key) {
+		gameKey = key;
+		host.sessionAttached(key, getSelf());
+		sendGameKey();
+	}
+	
+	
+	/**
+	 * Tell the client the key it can give to resume this game
+	 */
+	private void sendGameKey() {
+		ObjectNode keyMessage = Json.newObject();
+		keyMessage.put("messagetype", "gameKey");
+		keyMessage.put("gameKey", gameKey);
+		out.tell(keyMessage, out);
+	}
+	
+	
+	/**
+	 * @return OutputStream - writing to both streams, either of which may be null
+	 */
+	private static OutputStream tee(OutputStream first, OutputStream second) {
+		if (first == null || second == null) {
+			return (first != null) ? first : second;
+		}
+		return new OutputStream() {
+			public void write(int b) throws IOException {
+				first.write(b);
+				second.write(b);
+			}
+			public void write(byte[] bytes, int offset, int length) throws IOException {
+				first.write(bytes, offset, length);
+				second.write(bytes, offset, length);
+			}
+			public void flush() throws IOException {
+				first.flush();
+				second.flush();
+			}
+			public void close() throws IOException {
+				first.close();
+				second.close();
+			}
+		};
+	}
+	
+	
+	/**
+	 * Take over an unfinished game, either still running detached from its last websocket, still held by the actor of
+	 * that websocket if it hasn't stopped yet (e.g. when the page is reloaded) or, after the server has restarted,
+	 * rebuilt from its journal by replaying its events, and draw it for this client
+	 * @param key - the key of the game to resume
+	 * @param initalize - the client's initalize message, processed again if the game can't be handed over
+	 * @return boolean - false if there is no unfinished game with that key, so a new game should start
+	 */
+	private boolean resume(String key, JsonNode initalize) {
+		SessionRegistry.Session session = host.reattachSession(key);
+		if (session != null) {
+			take(session);
+			return true;
+		}
+		
+		// ask for the game once, if its actor has stopped meanwhile the game will have been detached by the time it times out
+		ActorRef owner = host.sessionOwner(key);
+		if (owner != null && !owner.equals(getSelf()) && !askedForHandOver) {
+			askedForHandOver = true;
+			awaitingHandOver = initalize;
+			owner.tell(new HandOver(getSelf()), getSelf());
+			getContext().getSystem().scheduler().scheduleOnce(Duration.ofMillis(HAND_OVER_TIMEOUT_MILLIS), getSelf(), new HandOverTimeout(), getContext().getDispatcher(), ActorRef.noSender());
+			return true;
+		}
+		
+		File file = host.takeJournal(key);
+		if (file == null) {
+			return false;
+		}
+		GameState resumed;
+		byte[] log;
+		try {
+			log = GameJournal.recover(file);
+			if (log == null) {
+				file.delete();
+				return false;
+			}
+			resumed = new GameReplayer(EventLog.read(new ByteArrayInputStream(log))).replay();
+		} catch (Exception e) {
+			logger.warn("Couldn't resume game "+key+" from its journal, starting a new game", e);
+			file.delete();
+			return false;
+		}
+		if (resumed.isGameOver()) {
+			file.delete();
+			return false;
+		}
+		
+		resumed.setAiAutoPlay(true);
+		gameState = resumed;
+		startLogging(key, log);
+		attach(resumed);
+		logger.info("Resumed game {} from its journal", key);
+		return true;
+	}
+	
+	
+	/**
+	 * Take over a game which was running until its websocket closed
+	 * @param session - the game
+	 */
+	private void take(SessionRegistry.Session session) {
+		journal = session.getJournal();
+		holdGame(session.getGameKey());
+		attach(session.getGameState());
+		logger.info("Reattached to game {}", gameKey);
+	}
+	
+	
+	/**
+	 * Hand this actor's game over to the actor of its client's new websocket, and stop, as this websocket is no longer
+	 * used by the client
+	 * @param requester - the new actor
+	 */
+	private void handOver(ActorRef requester) {
+		if (gameKey == null || handedOver || gameState.isGameOver()) {
+			requester.tell(new HandedOver(null), getSelf());
+			return;
+		}
+		handedOver = true;
+		host.sessionReleased(gameKey, getSelf());
+		requester.tell(new HandedOver(new SessionRegistry.Session(gameKey, gameState, journal)), getSelf());
+		getContext().stop(getSelf());
+	}
+	
+	
+	/**
+	 * Take over the game handed over by the actor of the client's last websocket, or if it wasn't, process the client's
+	 * initalize message again without asking for it, then the messages which arrived meanwhile
+	 * @param session - the game, or null if it wasn't handed over
+	 * @throws Exception
+	 */
+	private void handedOver(SessionRegistry.Session session) throws Exception{
+		if (awaitingHandOver == null) {
+			// this actor has given up waiting, keep the game for its client rather than losing it
+			if (session != null) {
+				host.detachSession(session);
+			}
+			return;
+		}
+		JsonNode initalize = awaitingHandOver;
+		awaitingHandOver = null;
+		if (session != null) {
+			take(session);
+		} else {
+			processMessage("initalize", initalize);
+		}
+		while (!heldMessages.isEmpty() && awaitingHandOver == null) {
+			JsonNode message = heldMessages.poll();
+			processMessage(message.get("messagetype").asText(), message);
+		}
+	}
+	
+	
+	/**
+	 * Make a resumed game this actor's, sending its commands to this actor's websocket, and resync the client with it
+	 * @param resumed - the game
+	 */
+	private void attach(GameState resumed) {
+		resumed.setOut(out);
+		resumed.setUiSink(timeline);
+		resumed.setSearchPool(host.getSearchPool());
+		gameState = resumed;
+		gameState.withUiSink(() -> {
+			gameState.redraw();
+			// the AI's turn is only journalled once it has ended, so a game can't be resumed part way through one
+			if (gameState.getCurrentPlayer() == gameState.getAIPlayer() && !gameState.isGameOver()) {
+				gameState.getAiPlayer().playTurn(gameState);
+			}
+		});
+		if (gameState.getEventLog() != null) {
+			gameState.getEventLog().flush();
+		}
+	}
+	
+	
+	/**
+	 * Process deferred clicks in the order they arrived, stopping again if one of them starts new animations
+	 * @throws Exception
+	 */
+	private void processDeferredClicks() throws Exception{
+		while (!deferredClicks.isEmpty()) {
+			if (timeline.isBusy()) {
+				notifyWhenIdle();
+				return;
+			}
+			JsonNode message = deferredClicks.poll();
+			dispatch(message.get("messagetype").asText(), message);
+		}
+	}
+	
+	
+	/**
+	 * Ask the timeline to tell this actor once it is idle
+	 */
+	private void notifyWhenIdle() {
+		ActorRef self = getSelf();
+		timeline.whenIdle(() -> self.tell(new TimelineIdle(), ActorRef.noSender()));
+	}
+	
+	
+	/**
+	 * Frees this game's place on its host once the websocket has closed. An unfinished hosted game is detached rather
+	 * than ended, so its client can reconnect to it, unless it has already been handed over to the actor of a new
+	 * websocket. Otherwise its event log is closed and its journal deleted.
+	 */
+	@Override
+	public void postStop() throws Exception {
+		// a game handed over carries on in the new actor
+		if (!handedOver) {
+			if (host != null && gameKey != null && !gameState.isGameOver()) {
+				host.detachSession(new SessionRegistry.Session(gameKey, gameState, journal));
+			} else {
+				if (gameState.getEventLog() != null) {
+					gameState.getEventLog().close();
+				}
+				if (journal != null) {
+					journal.delete();
+				}
+			}
+		}
+		// the game is detached before its actor is forgotten, so a new actor asking for it finds it in one place or the other
+		if (host != null && gameKey != null) {
+			host.sessionReleased(gameKey, getSelf());
+		}
+		if (admitted) {
+			host.gameStopped(metrics);
 		}
 	}
 	
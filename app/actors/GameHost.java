@@ -0,0 +1,388 @@
+package actors;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import ai.AlphaBetaAI;
+import ai.MctsAI;
+import ai.SearchPool;
+import ai.TranspositionTable;
+import events.GameJournal;
+import play.libs.Json;
+import utils.BasicObjectBuilders;
+
+/**
+ * Hosts the games running on this node. It decides whether a new websocket connection may start a
+ * game (at most maxGames run at once, further connections are turned away as busy), creates the
+ * Props for each GameActor on the game dispatcher, and keeps the metrics of every running game.
+ *
+ * Settings are read from application.conf, each falls back to a default if it is not given:
+ *
+ * game.hosting.max-games  - maximum number of games running at once (default 200)
+ * game.hosting.dispatcher - dispatcher GameActors run on (default "game-dispatcher", or
+ *                           Akka's default dispatcher if that is not configured)
+ * game.hosting.mailbox    - mailbox GameActors use, e.g. a bounded mailbox (default none, i.e. Akka's default)
+ * game.hosting.event-log-dir - folder each game's event log is written to, so it can be replayed with
+ *                           simulation.GameReplayer (default "logs/games", empty to log no games)
+ * game.hosting.journal-dir - folder each unfinished game's journal is kept in, so it can be resumed
+ *                           after the server restarts or its client reconnects (default "journal",
+ *                           empty to keep no journals). Journals not resumed within
+ *                           game.hosting.journal-max-age (default 1h) are deleted.
+ * game.hosting.session-ttl - how long a game whose websocket has closed is kept running for its client
+ *                           to reconnect to (default 10m), see SessionRegistry
+ * game.hosting.max-detached-games - most games kept running without a websocket at once, the one
+ *                           detached longest is ended to make room (default max-games)
+ * game.hosting.ai-threads - threads shared by the AI searches of every game (default the number of cores)
+ * game.hosting.max-ai-searches - AI searches running at once, AIs whose turn starts while this many are
+ *                           running play without searching (default 4), see SearchPool
+ * game.hosting.max-ai-thinking - longest thinking time per turn a client can give an MCTS AI (default 10s)
+ * game.hosting.max-ai-depth - deepest search a client can give an alpha-beta AI (default 5, at most 255)
+ *
+ */
+@Singleton
+public class GameHost {
+
+	private static final Logger logger = LoggerFactory.getLogger(GameHost.class);
+
+	public static final int DEFAULT_MAX_GAMES = 200;
+	public static final String DEFAULT_DISPATCHER = "game-dispatcher";
+	public static final String DEFAULT_EVENT_LOG_DIR = "logs/games";
+	public static final String DEFAULT_JOURNAL_DIR = "journal";
+	public static final long DEFAULT_JOURNAL_MAX_AGE_MILLIS = 60 * 60 * 1000L;
+	public static final long DEFAULT_SESSION_TTL_MILLIS = 10 * 60 * 1000L;
+	public static final long EVICTION_INTERVAL_MILLIS = 30 * 1000L;
+	public static final int DEFAULT_MAX_AI_SEARCHES = 4;
+	public static final String JOURNAL_SUFFIX = ".journal";
+
+	private final int maxGames;
+	private final String dispatcher;
+	private final String mailbox;
+	private final String eventLogDir;
+	private final String journalDir;
+	private final long journalMaxAge;
+	private final SessionRegistry sessions;
+	private final SearchPool searchPool;
+
+	private final AtomicInteger runningGames = new AtomicInteger(0);
+	private final AtomicInteger nextGameId = new AtomicInteger(0);
+	private final AtomicLong admittedGames = new AtomicLong(0);
+	private final AtomicLong rejectedGames = new AtomicLong(0); // game actors refused a place by tryAdmit()
+	private final AtomicLong refusedConnections = new AtomicLong(0); // connections refused by hasRoom() before a game actor started
+	private final Map<Integer, GameMetrics> metrics = new ConcurrentHashMap<Integer, GameMetrics>();
+	private final Map<String, File> journals = new ConcurrentHashMap<String, File>(); // journals of unfinished games from before the server restarted, by game key
+
+
+	@Inject
+	public GameHost(Config config, ActorSystem actorSystem) {
+		// read every unit, card and effect configuration now rather than during the first games
+		BasicObjectBuilders.warmTemplates();
+
+		this.maxGames = config.hasPath("game.hosting.max-games") ? config.getInt("game.hosting.max-games") : DEFAULT_MAX_GAMES;
+		this.mailbox = config.hasPath("game.hosting.mailbox") ? config.getString("game.hosting.mailbox") : null;
+		String logDir = config.hasPath("game.hosting.event-log-dir") ? config.getString("game.hosting.event-log-dir") : DEFAULT_EVENT_LOG_DIR;
+		this.eventLogDir = logDir.isEmpty() ? null : logDir;
+		String journalDir = config.hasPath("game.hosting.journal-dir") ? config.getString("game.hosting.journal-dir") : DEFAULT_JOURNAL_DIR;
+		this.journalDir = journalDir.isEmpty() ? null : journalDir;
+		this.journalMaxAge = config.hasPath("game.hosting.journal-max-age") ? config.getDuration("game.hosting.journal-max-age").toMillis() : DEFAULT_JOURNAL_MAX_AGE_MILLIS;
+		long sessionTtl = config.hasPath("game.hosting.session-ttl") ? config.getDuration("game.hosting.session-ttl").toMillis() : DEFAULT_SESSION_TTL_MILLIS;
+		int maxDetached = config.hasPath("game.hosting.max-detached-games") ? config.getInt("game.hosting.max-detached-games") : maxGames;
+		this.sessions = new SessionRegistry(sessionTtl, maxDetached);
+		int aiThreads = config.hasPath("game.hosting.ai-threads") ? config.getInt("game.hosting.ai-threads") : Runtime.getRuntime().availableProcessors();
+		int maxAiSearches = config.hasPath("game.hosting.max-ai-searches") ? config.getInt("game.hosting.max-ai-searches") : DEFAULT_MAX_AI_SEARCHES;
+		long maxAiThinking = config.hasPath("game.hosting.max-ai-thinking") ? config.getDuration("game.hosting.max-ai-thinking").toMillis() : MctsAI.MAX_TIME_BUDGET_MILLIS;
+		int maxAiDepth = config.hasPath("game.hosting.max-ai-depth") ? Math.min(config.getInt("game.hosting.max-ai-depth"), TranspositionTable.MAX_DEPTH) : AlphaBetaAI.MAX_DEPTH;
+		this.searchPool = new SearchPool(aiThreads, maxAiSearches, maxAiThinking, maxAiDepth);
+		actorSystem.registerOnTermination(searchPool::shutdown);
+		if (this.journalDir != null) {
+			findJournals();
+		}
+
+		// only use the configured dispatcher if Akka knows about it, otherwise actors would fail to start
+		String configured = config.hasPath("game.hosting.dispatcher") ? config.getString("game.hosting.dispatcher") : DEFAULT_DISPATCHER;
+		if (actorSystem.dispatchers().hasDispatcher(configured)) {
+			this.dispatcher = configured;
+		} else {
+			if (config.hasPath("game.hosting.dispatcher")) {
+				logger.warn("Dispatcher {} is not configured, using the default dispatcher", configured);
+			}
+			this.dispatcher = null;
+		}
+
+		Duration interval = Duration.ofMillis(Math.min(EVICTION_INTERVAL_MILLIS, Math.max(1, sessionTtl)));
+		actorSystem.scheduler().scheduleAtFixedRate(interval, interval, this::evictIdle, actorSystem.dispatcher());
+	}
+
+
+	/**
+	 * Check whether a new game could start, without reserving its place: the game's actor reserves it
+	 * with tryAdmit() once it has started, so a connection whose actor never starts doesn't hold one.
+	 * A connection refused here is counted in refusedConnections, not rejectedGames.
+	 *
+	 * @return boolean - false if maxGames games are already running
+	 */
+	public boolean hasRoom() {
+		if (runningGames.get() >= maxGames) {
+			refusedConnections.incrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+
+	/**
+	 * Reserve a place for a new game, counting it in admittedGames or rejectedGames
+	 *
+	 * @return boolean - true if the game can start, false if maxGames games are already running
+	 */
+	public boolean tryAdmit() {
+		while (true) {
+			int running = runningGames.get();
+			if (running >= maxGames) {
+				rejectedGames.incrementAndGet();
+				return false;
+			}
+			if (runningGames.compareAndSet(running, running + 1)) {
+				admittedGames.incrementAndGet();
+				return true;
+			}
+		}
+	}
+
+
+	/**
+	 * Props for the GameActor of an admitted game, on the game dispatcher and mailbox if they are configured
+	 *
+	 * @param out - the websocket to the game's front-end
+	 * @return Props
+	 */
+	public Props gameActorProps(ActorRef out) {
+		Props props = Props.create(GameActor.class, out, this);
+		if (dispatcher != null) {
+			props = props.withDispatcher(dispatcher);
+		}
+		if (mailbox != null) {
+			props = props.withMailbox(mailbox);
+		}
+		return props;
+	}
+
+
+	/**
+	 * Called by a GameActor when it starts, registers its metrics
+	 *
+	 * @return GameMetrics - the metrics the game should record into
+	 */
+	public GameMetrics gameStarted() {
+		GameMetrics gameMetrics = new GameMetrics(nextGameId.incrementAndGet());
+		metrics.put(gameMetrics.getGameId(), gameMetrics);
+		return gameMetrics;
+	}
+
+
+	/**
+	 * Called by a GameActor when it stops, freeing its place for another game
+	 *
+	 * @param gameMetrics - the metrics of the game which has ended
+	 */
+	public void gameStopped(GameMetrics gameMetrics) {
+		if (metrics.remove(gameMetrics.getGameId()) != null) {
+			runningGames.decrementAndGet();
+			logger.info("Game ended {}", gameMetrics.toJson());
+		}
+	}
+
+
+	/**
+	 * Find the journals left by games which were still running when the server stopped, so their clients can resume them
+	 */
+	private void findJournals() {
+		File[] files = new File(journalDir).listFiles((dir, name) -> name.endsWith(JOURNAL_SUFFIX));
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String name = file.getName();
+			journals.put(name.substring(0, name.length() - JOURNAL_SUFFIX.length()), file);
+		}
+		evictIdle();
+		logger.info("{} games can be resumed from their journals", journals.size());
+	}
+
+
+	/**
+	 * End the detached games nobody has reconnected to within the session TTL, and delete the journals not resumed
+	 * within the journal max age
+	 */
+	private void evictIdle() {
+		long now = System.currentTimeMillis();
+		int evicted = sessions.evictIdle(now);
+		for (Map.Entry<String, File> journal : journals.entrySet()) {
+			if (now - journal.getValue().lastModified() > journalMaxAge && journals.remove(journal.getKey(), journal.getValue())) {
+				journal.getValue().delete();
+				evicted++;
+			}
+		}
+		if (evicted > 0) {
+			logger.info("Evicted {} abandoned games", evicted);
+		}
+	}
+
+
+	/**
+	 * @return String - a key for a new game, which its client can give to resume the game
+	 */
+	String newGameKey() {
+		return UUID.randomUUID().toString();
+	}
+
+
+	/**
+	 * Create the journal of a game
+	 *
+	 * @param gameKey - the game's key
+	 * @return GameJournal - the journal, or null if games aren't journalled
+	 */
+	GameJournal createJournal(String gameKey) throws IOException {
+		if (journalDir == null) {
+			return null;
+		}
+		return new GameJournal(new File(journalDir, gameKey + JOURNAL_SUFFIX), GameJournal.DEFAULT_CAPACITY);
+	}
+
+
+	/**
+	 * Hand over the journal of an unfinished game to be resumed, so no other client can take it
+	 *
+	 * @param gameKey - the game's key
+	 * @return File - the journal, or null if there is no journal of an unfinished game with that key
+	 */
+	File takeJournal(String gameKey) {
+		return journals.remove(gameKey);
+	}
+
+
+	/**
+	 * Keep a game whose websocket has closed running, so its client can reconnect to it
+	 *
+	 * @param session - the game
+	 */
+	void detachSession(SessionRegistry.Session session) {
+		sessions.detach(session);
+	}
+
+
+	/**
+	 * Record that a GameActor holds a running game
+	 *
+	 * @param gameKey - the game's key
+	 * @param owner - the GameActor
+	 */
+	void sessionAttached(String gameKey, ActorRef owner) {
+		sessions.attached(gameKey, owner);
+	}
+
+
+	/**
+	 * Record that a GameActor no longer holds a game, once it has detached it or handed it over
+	 *
+	 * @param gameKey - the game's key
+	 * @param owner - the GameActor
+	 */
+	void sessionReleased(String gameKey, ActorRef owner) {
+		sessions.released(gameKey, owner);
+	}
+
+
+	/**
+	 * @param gameKey - the game's key
+	 * @return ActorRef - the GameActor holding the game, or null if it isn't attached to one
+	 */
+	ActorRef sessionOwner(String gameKey) {
+		return sessions.ownerOf(gameKey);
+	}
+
+
+	/**
+	 * Hand over a detached game to the GameActor of its client's new websocket
+	 *
+	 * @param gameKey - the game's key
+	 * @return SessionRegistry.Session - the game, or null if no game with that key is detached
+	 */
+	SessionRegistry.Session reattachSession(String gameKey) {
+		return sessions.reattach(gameKey);
+	}
+
+
+	/**
+	 * @return SearchPool - the threads every game's AI searches on
+	 */
+	public SearchPool getSearchPool() {
+		return searchPool;
+	}
+
+
+	public int getRunningGames() {
+		return runningGames.get();
+	}
+
+
+	public int getMaxGames() {
+		return maxGames;
+	}
+
+
+	/**
+	 * @return String - folder games write their event logs to, null if games aren't logged
+	 */
+	public String getEventLogDir() {
+		return eventLogDir;
+	}
+
+
+	/**
+	 * @return int - unfinished games whose client can reconnect to them, whether detached or in a journal
+	 */
+	public int getResumableGames() {
+		return sessions.size() + journals.size();
+	}
+
+
+	/**
+	 * @return ObjectNode - host wide counters and the metrics of each running game
+	 */
+	public ObjectNode metricsToJson() {
+		ObjectNode node = Json.newObject();
+		node.put("runningGames", runningGames.get());
+		node.put("maxGames", maxGames);
+		node.put("detachedGames", sessions.size());
+		node.put("maxDetachedGames", sessions.getMaxSessions());
+		node.put("resumableGames", sessions.size() + journals.size());
+		node.put("admittedGames", admittedGames.get());
+		node.put("rejectedGames", rejectedGames.get());
+		node.put("refusedConnections", refusedConnections.get());
+		ArrayNode games = node.putArray("games");
+		for (GameMetrics gameMetrics : metrics.values()) {
+			games.add(gameMetrics.toJson());
+		}
+		return node;
+	}
+}
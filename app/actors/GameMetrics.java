@@ -0,0 +1,74 @@
+package actors;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import play.libs.Json;
+
+/**
+ * Metrics for one running game. They are recorded by the game's GameActor and read by GameHost,
+ * possibly from another thread, so the counters are atomic.
+ *
+ */
+public class GameMetrics {
+
+	private final int gameId;
+	private final long startedAt;
+
+	private final AtomicLong eventsProcessed = new AtomicLong(0);
+	private final AtomicLong clicksDeferred = new AtomicLong(0);
+	private final AtomicLong processingNanos = new AtomicLong(0);
+	private final AtomicLong maxProcessingNanos = new AtomicLong(0);
+
+
+	public GameMetrics(int gameId) {
+		this.gameId = gameId;
+		this.startedAt = System.currentTimeMillis();
+	}
+
+
+	/**
+	 * Record an event processed by the game
+	 *
+	 * @param nanos - time spent processing the event on the actor's thread
+	 */
+	public void eventProcessed(long nanos) {
+		eventsProcessed.incrementAndGet();
+		processingNanos.addAndGet(nanos);
+		long max = maxProcessingNanos.get();
+		while (nanos > max && !maxProcessingNanos.compareAndSet(max, nanos)) {
+			max = maxProcessingNanos.get();
+		}
+	}
+
+
+	/**
+	 * Record a click which had to wait for animations to finish before it could be processed
+	 */
+	public void clickDeferred() {
+		clicksDeferred.incrementAndGet();
+	}
+
+
+	public int getGameId() {
+		return gameId;
+	}
+
+
+	public long getEventsProcessed() {
+		return eventsProcessed.get();
+	}
+
+
+	public ObjectNode toJson() {
+		ObjectNode node = Json.newObject();
+		node.put("gameId", gameId);
+		node.put("runningForMs", System.currentTimeMillis() - startedAt);
+		node.put("eventsProcessed", eventsProcessed.get());
+		node.put("clicksDeferred", clicksDeferred.get());
+		node.put("processingMs", processingNanos.get() / 1000000L);
+		node.put("maxProcessingMs", maxProcessingNanos.get() / 1000000L);
+		return node;
+	}
+}
@@ -0,0 +1,216 @@
+package actors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import akka.actor.ActorRef;
+import events.GameJournal;
+import structures.GameState;
+
+/**
+ * Keeps the games whose websocket has closed before they ended, by game key, so they outlive their
+ * connection: a GameActor detaches its game here when it stops, and the GameActor of the client's
+ * next websocket reattaches to it and redraws it, carrying on from exactly where it was rather than
+ * replaying it from its journal. Games nobody reattaches to within the registry's time to live are
+ * evicted, ending them and freeing their memory and journal.
+ *
+ * Only one GameActor holds a game at a time: it is detached once its actor has stopped and is handed
+ * to at most one actor reattaching to it, or to the eviction, so a game's state is never shared
+ * between threads. The registry also knows which actor holds each attached game, so a client which
+ * reconnects before its old actor has stopped (e.g. on a reload) can ask that actor to hand the game
+ * over rather than missing it.
+ *
+ * At most maxSessions games are kept detached, the one detached longest is ended to make room for
+ * another, so games detached by a flood of dropped connections can't outgrow the server.
+ *
+ */
+public class SessionRegistry {
+
+	private final long ttlMillis;
+	private final int maxSessions;
+	private final Map<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+	private final Map<String, ActorRef> owners = new ConcurrentHashMap<String, ActorRef>(); // actor holding each attached game, by game key
+
+
+	/**
+	 * @param ttlMillis - how long a detached game is kept for its client to reattach to
+	 * @param maxSessions - most games kept detached at once
+	 */
+	public SessionRegistry(long ttlMillis, int maxSessions) {
+		this.ttlMillis = ttlMillis;
+		this.maxSessions = maxSessions;
+	}
+
+
+	/**
+	 * Keep a game whose connection has closed, until it is reattached to or evicted
+	 *
+	 * @param session - the game, which its actor no longer uses
+	 */
+	public void detach(Session session) {
+		detach(session, System.currentTimeMillis());
+	}
+
+
+	/**
+	 * @param session - the game, which its actor no longer uses
+	 * @param now - the current time in milliseconds
+	 */
+	public void detach(Session session, long now) {
+		session.detachedAt = now;
+		Session replaced = sessions.put(session.getGameKey(), session);
+		if (replaced != null && replaced != session) {
+			replaced.end();
+		}
+		while (sessions.size() > maxSessions) {
+			Session oldest = null;
+			for (Session detached : sessions.values()) {
+				if (oldest == null || detached.detachedAt < oldest.detachedAt) {
+					oldest = detached;
+				}
+			}
+			if (oldest != null && sessions.remove(oldest.getGameKey(), oldest)) {
+				oldest.end();
+			}
+		}
+	}
+
+
+	/**
+	 * Hand over a detached game to a new connection
+	 *
+	 * @param gameKey - the key the client was given for the game
+	 * @return Session - the game, no longer kept here, or null if there is no detached game with that key
+	 */
+	public Session reattach(String gameKey) {
+		return sessions.remove(gameKey);
+	}
+
+
+	/**
+	 * Record which actor holds a running game, so a new connection to the game can find it
+	 *
+	 * @param gameKey - the game's key
+	 * @param owner - the GameActor the game is attached to
+	 */
+	public void attached(String gameKey, ActorRef owner) {
+		owners.put(gameKey, owner);
+	}
+
+
+	/**
+	 * Forget the actor holding a game, once it has detached the game or handed it over
+	 *
+	 * @param gameKey - the game's key
+	 * @param owner - the GameActor the game was attached to, which is only forgotten if it still holds the game
+	 */
+	public void released(String gameKey, ActorRef owner) {
+		owners.remove(gameKey, owner);
+	}
+
+
+	/**
+	 * @param gameKey - the game's key
+	 * @return ActorRef - the GameActor the game is attached to, or null if it isn't attached
+	 */
+	public ActorRef ownerOf(String gameKey) {
+		return owners.get(gameKey);
+	}
+
+
+	/**
+	 * End the games which have been detached for longer than the time to live
+	 *
+	 * @param now - the current time in milliseconds
+	 * @return int - the number of games evicted
+	 */
+	public int evictIdle(long now) {
+		List<Session> idle = new ArrayList<Session>();
+		for (Session session : sessions.values()) {
+			if (now - session.detachedAt > ttlMillis && sessions.remove(session.getGameKey(), session)) {
+				idle.add(session);
+			}
+		}
+		for (Session session : idle) {
+			session.end();
+		}
+		return idle.size();
+	}
+
+
+	public int size() {
+		return sessions.size();
+	}
+
+
+	public long getTtlMillis() {
+		return ttlMillis;
+	}
+
+
+	public int getMaxSessions() {
+		return maxSessions;
+	}
+
+
+	/**
+	 * A running game, with the journal it can be resumed from once the server has restarted
+	 */
+	public static class Session {
+
+		private final String gameKey;
+		private final GameState gameState;
+		private final GameJournal journal;
+		private volatile long detachedAt;
+
+
+		/**
+		 * @param gameKey - the game's key
+		 * @param gameState - the game, with its event log if it is logged
+		 * @param journal - the game's journal, or null if it isn't journalled
+		 */
+		public Session(String gameKey, GameState gameState, GameJournal journal) {
+			this.gameKey = gameKey;
+			this.gameState = gameState;
+			this.journal = journal;
+		}
+
+
+		public String getGameKey() {
+			return gameKey;
+		}
+
+
+		public GameState getGameState() {
+			return gameState;
+		}
+
+
+		public GameJournal getJournal() {
+			return journal;
+		}
+
+
+		/**
+		 * @return long - when the game was detached, in milliseconds
+		 */
+		public long getDetachedAt() {
+			return detachedAt;
+		}
+
+
+		/**
+		 * End an abandoned game: close its event log and delete its journal, as it won't be resumed
+		 */
+		void end() {
+			if (gameState.getEventLog() != null) {
+				gameState.getEventLog().close();
+			}
+			if (journal != null) {
+				journal.delete();
+			}
+		}
+	}
+}
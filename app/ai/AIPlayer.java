@@ -0,0 +1,22 @@
+package ai;
+
+import structures.GameState;
+
+/**
+ * Plays the turns of a computer-controlled player. An implementation plays the whole turn of
+ * whichever player's turn it is (GameState.getCurrentPlayer()) through the same click events a
+ * human would send, and ends it.
+ *
+ * The AI a game uses is set with GameState.setAiPlayer(). The default is the rule-based
+ * AILogic.playTurn, MctsAI searches ahead within a time budget.
+ *
+ */
+public interface AIPlayer {
+
+	/**
+	 * Play and end the current player's turn
+	 *
+	 * @param gameState - the game, which is not over
+	 */
+	void playTurn(GameState gameState);
+}
@@ -0,0 +1,45 @@
+package ai;
+
+import java.util.List;
+
+/**
+ * Unit abilities (see utils.UnitAttributes) as bits of an int, so a snapshot can keep the
+ * abilities of every unit in a primitive array.
+ */
+public final class Abilities {
+
+	public static final int PROVOKE = 1;
+	public static final int RANGED = 1 << 1;
+	public static final int FLYING = 1 << 2;
+	public static final int ATTACK_TWICE = 1 << 3;
+	public static final int AVATAR_DAMAGE_EFFECT = 1 << 4;
+	public static final int DRAW_CARD_ON_DEATH = 1 << 5;
+	public static final int DRAW_CARD_ON_SUMMON = 1 << 6;
+	public static final int HEAL_AVATAR_ON_SUMMON = 1 << 7;
+	public static final int SPELL_CAST_EFFECT = 1 << 8;
+	public static final int SUMMON_ANYWHERE = 1 << 9;
+
+	private static final String[] NAMES = { "provoke", "ranged", "flying", "attackTwice", "avatarDamageEffect",
+			"drawCardOnDeath", "drawCardOnSummon", "healAvatarOnSummon", "spellCastEffect", "summonAnywhere" };
+
+
+	private Abilities() {}
+
+
+	/**
+	 * @param abilities - ability names, as held by Unit
+	 * @return int - the abilities as bits, unknown names are ignored
+	 */
+	public static int fromNames(List<String> abilities) {
+		int bits = 0;
+		if (abilities == null) return bits;
+		for (String ability : abilities) {
+			for (int i = 0; i < NAMES.length; i++) {
+				if (NAMES[i].equals(ability)) {
+					bits |= 1 << i;
+				}
+			}
+		}
+		return bits;
+	}
+}
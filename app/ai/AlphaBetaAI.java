@@ -0,0 +1,86 @@
+package ai;
+
+import java.util.concurrent.ForkJoinPool;
+
+import structures.GameState;
+import structures.basic.AILogic;
+
+/**
+ * An AI player which plans with AlphaBetaSearch to a fixed depth, so its difficulty does not vary
+ * with the speed of the server: the same game state always gets the same moves. Each move is
+ * searched for afresh from the state the last one left, the transposition table being kept
+ * between searches, and played as clicks (see MoveClicks) until the search chooses to end the turn.
+ *
+ * A hosted game searches on its host's SearchPool, holding one of its permits for the whole turn,
+ * and plays the turn with AILogic if every permit is taken. A game without a pool searches on the
+ * calling thread. The depth is cut to the pool's maximum, or to MAX_DEPTH without a pool, as each
+ * move deeper multiplies the time a search takes.
+ *
+ */
+public class AlphaBetaAI implements AIPlayer {
+
+	public static final int DEFAULT_DEPTH = 3;
+	// deepest search a turn can have, unless the game's search pool allows less
+	public static final int MAX_DEPTH = 5;
+
+	// a turn can't have more moves than this, in case the live game refuses a move
+	private static final int MAX_MOVES_PER_TURN = 60;
+
+	private final AlphaBetaSearch search;
+	private final int depth;
+
+
+	/**
+	 * @param depth - number of moves to look ahead, at least 1
+	 */
+	public AlphaBetaAI(int depth) {
+		if (depth < 1) {
+			throw new IllegalArgumentException("Depth must be at least 1, not " + depth);
+		}
+		this.search = new AlphaBetaSearch();
+		this.depth = depth;
+	}
+
+
+	@Override
+	public void playTurn(GameState gameState) {
+		SearchPool pool = gameState.getSearchPool();
+		if (pool == null) {
+			playTurn(gameState, Math.min(depth, MAX_DEPTH), null);
+		} else if (pool.tryAcquire()) {
+			try {
+				playTurn(gameState, Math.min(depth, pool.getMaxDepth()), pool.getPool());
+			} finally {
+				pool.release();
+			}
+		} else {
+			AILogic.playTurn(gameState);
+		}
+	}
+
+
+	/**
+	 * Play the turn, searching to depth on the pool if there is one
+	 */
+	private void playTurn(GameState gameState, int depth, ForkJoinPool pool) {
+		int player = gameState.getCurrentPlayer().equals(gameState.getHumanPlayer()) ? 0 : 1;
+		for (int i = 0; i < MAX_MOVES_PER_TURN && !gameState.isGameOver(); i++) {
+			GameSnapshot state = GameSnapshot.of(gameState);
+			if (state.getCurrentPlayer() != player) {
+				return;
+			}
+			int move = search.search(state, depth, pool).getMove();
+			MoveClicks.play(gameState, state, move);
+			if (GameSnapshot.moveType(move) == GameSnapshot.END_TURN) {
+				return;
+			}
+			if (GameSnapshot.of(gameState).equals(state)) {
+				System.err.println("AlphaBetaAI: move " + move + " was refused, ending the turn");
+				break;
+			}
+		}
+		if (!gameState.isGameOver() && gameState.getCurrentPlayer().equals(player == 0 ? gameState.getHumanPlayer() : gameState.getAIPlayer())) {
+			MoveClicks.endTurn(gameState);
+		}
+	}
+}
@@ -0,0 +1,297 @@
+package ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Depth-limited alpha-beta search over GameSnapshot moves, with iterative deepening and a
+ * transposition table. Depth is counted in moves, so a player's turn is a run of plies by the
+ * same player, and the many orders in which the same moves of a turn can be played meet again
+ * in the transposition table. Scores come from Evaluation.score(), player 0 maximises.
+ *
+ * The search is parallel with Young Brothers Wait: at nodes with enough depth left, the first
+ * (eldest) move is searched alone to narrow the window, then the remaining moves are searched in
+ * parallel on the fork-join pool the search is given, usually a SearchPool's. Without a pool the
+ * whole search runs on the calling thread.
+ *
+ * For a given state and depth the chosen move does not depend on the number of threads or the
+ * contents of the table. Every node is fail-hard, so returns its minimax value clamped to its
+ * window, whatever the timing of its children; table entries are only trusted for the exact depth
+ * they were stored at; and at the root, ties are broken by the order of legalMoves().
+ *
+ */
+public class AlphaBetaSearch {
+
+	public static final int DEFAULT_TABLE_SIZE_LOG2 = 18;
+
+	private static final int INFINITY = Evaluation.WIN + 1;
+	// nodes with this much depth left search their younger brothers in parallel, shallower ones are not worth forking
+	private static final int PARALLEL_MIN_DEPTH = 3;
+
+	private final TranspositionTable table;
+	private volatile ForkJoinPool pool; // pool the current search forks its younger brothers on, null if it runs on one thread
+	private final LongAdder nodes = new LongAdder();
+
+
+	public AlphaBetaSearch() {
+		this(new TranspositionTable(DEFAULT_TABLE_SIZE_LOG2));
+	}
+
+
+	/**
+	 * @param table - transposition table, which can be kept from search to search
+	 */
+	public AlphaBetaSearch(TranspositionTable table) {
+		this.table = table;
+	}
+
+
+	/**
+	 * The move chosen by a search and what it is worth
+	 */
+	public static final class Result {
+
+		private final int move;
+		private final int value;
+		private final long nodes;
+
+
+		Result(int move, int value, long nodes) {
+			this.move = move;
+			this.value = value;
+			this.nodes = nodes;
+		}
+
+
+		public int getMove() {
+			return move;
+		}
+
+
+		/**
+		 * @return the minimax value of the move, from player 0's point of view
+		 */
+		public int getValue() {
+			return value;
+		}
+
+
+		/**
+		 * @return nodes visited over all iterations
+		 */
+		public long getNodes() {
+			return nodes;
+		}
+	}
+
+
+	/**
+	 * Find the current player's best move on the calling thread, deepening one move at a time up to depth
+	 *
+	 * @param root - the state to search from, which is not changed
+	 * @param depth - number of moves to look ahead, at least 1
+	 * @return Result
+	 */
+	public Result search(GameSnapshot root, int depth) {
+		return search(root, depth, null);
+	}
+
+
+	/**
+	 * Find the current player's best move, deepening one move at a time up to depth
+	 *
+	 * @param root - the state to search from, which is not changed
+	 * @param depth - number of moves to look ahead, from 1 to TranspositionTable.MAX_DEPTH
+	 * @param pool - pool to search younger brothers on in parallel, or null to search on the calling thread
+	 * @return Result
+	 */
+	public Result search(GameSnapshot root, int depth, ForkJoinPool pool) {
+		if (depth < 1 || depth > TranspositionTable.MAX_DEPTH) {
+			throw new IllegalArgumentException("Depth must be from 1 to " + TranspositionTable.MAX_DEPTH + ", not " + depth);
+		}
+		this.pool = pool;
+		nodes.reset();
+		int[] best = null;
+		for (int d = 1; d <= depth; d++) {
+			int searchDepth = d;
+			best = (pool == null) ? searchRoot(root, searchDepth) : pool.invoke(new RecursiveTask<int[]>() {
+				@Override
+				protected int[] compute() {
+					return searchRoot(root, searchDepth);
+				}
+			});
+		}
+		return new Result(best[0], best[1], nodes.sum());
+	}
+
+
+	/**
+	 * @return int[] - the best move and its value
+	 */
+	private int[] searchRoot(GameSnapshot root, int depth) {
+		int[] moves = root.legalMoves();
+		boolean maximising = root.getCurrentPlayer() == 0;
+		long data = table.probe(root.zobrist());
+		int[] order = order(moves, (data == TranspositionTable.MISS) ? -1 : TranspositionTable.move(data));
+
+		// the eldest brother gets the full window
+		int first = order[0];
+		int firstValue = alphaBeta(root.play(moves[first]), depth - 1, -INFINITY, INFINITY);
+
+		// the others only need to show whether they are at least as good, a window one wider than the eldest's value
+		// gives the exact value of every move that is, so ties can be broken by move order
+		int alpha = maximising ? firstValue - 1 : -INFINITY;
+		int beta = maximising ? INFINITY : firstValue + 1;
+		int[] values = new int[moves.length];
+		values[first] = firstValue;
+		if (pool != null && depth >= PARALLEL_MIN_DEPTH) {
+			List<Child> children = new ArrayList<Child>(order.length - 1);
+			for (int i = 1; i < order.length; i++) {
+				children.add(new Child(root.play(moves[order[i]]), depth - 1, alpha, beta));
+			}
+			RecursiveTask.invokeAll(children);
+			for (int i = 1; i < order.length; i++) {
+				values[order[i]] = children.get(i - 1).join();
+			}
+		} else {
+			for (int i = 1; i < order.length; i++) {
+				values[order[i]] = alphaBeta(root.play(moves[order[i]]), depth - 1, alpha, beta);
+			}
+		}
+
+		int best = first;
+		for (int i = 0; i < moves.length; i++) {
+			if (maximising ? values[i] > values[best] : values[i] < values[best]) {
+				best = i;
+			} else if (values[i] == values[best] && i < best) {
+				best = i;
+			}
+		}
+		table.store(root.zobrist(), depth, TranspositionTable.EXACT, values[best], moves[best]);
+		return new int[] { moves[best], values[best] };
+	}
+
+
+	/**
+	 * Fail-hard alpha-beta: the minimax value of the state to depth, clamped to [alpha, beta]
+	 */
+	private int alphaBeta(GameSnapshot state, int depth, int alpha, int beta) {
+		nodes.increment();
+		if (depth == 0 || state.isOver()) {
+			return clamp(Evaluation.score(state), alpha, beta);
+		}
+
+		long key = state.zobrist();
+		long data = table.probe(key);
+		int tableMove = -1;
+		if (data != TranspositionTable.MISS) {
+			tableMove = TranspositionTable.move(data);
+			if (TranspositionTable.depth(data) == depth) {
+				int value = TranspositionTable.value(data);
+				switch (TranspositionTable.flag(data)) {
+					case TranspositionTable.EXACT:
+						return clamp(value, alpha, beta);
+					case TranspositionTable.LOWER:
+						if (value >= beta) return beta;
+						break;
+					default:
+						if (value <= alpha) return alpha;
+				}
+			}
+		}
+
+		int alpha0 = alpha;
+		int beta0 = beta;
+		boolean maximising = state.getCurrentPlayer() == 0;
+		int[] moves = state.legalMoves();
+		int[] order = order(moves, tableMove);
+		int bestMove = -1;
+
+		for (int i = 0; i < order.length && alpha < beta; i++) {
+			if (i == 1 && pool != null && depth >= PARALLEL_MIN_DEPTH && order.length > 2) {
+				// young brothers wait for the eldest, then are searched in parallel with the window it left
+				List<Child> children = new ArrayList<Child>(order.length - 1);
+				for (int j = 1; j < order.length; j++) {
+					children.add(new Child(state.play(moves[order[j]]), depth - 1, alpha, beta));
+				}
+				RecursiveTask.invokeAll(children);
+				for (int j = 1; j < order.length; j++) {
+					int value = children.get(j - 1).join();
+					if (maximising ? value > alpha : value < beta) {
+						bestMove = moves[order[j]];
+						if (maximising) alpha = value;
+						else beta = value;
+					}
+				}
+				break;
+			}
+			int value = alphaBeta(state.play(moves[order[i]]), depth - 1, alpha, beta);
+			if (maximising ? value > alpha : value < beta) {
+				bestMove = moves[order[i]];
+				if (maximising) alpha = value;
+				else beta = value;
+			}
+		}
+
+		int value = maximising ? Math.min(alpha, beta) : Math.max(alpha, beta);
+		int flag = (value <= alpha0) ? TranspositionTable.UPPER : (value >= beta0) ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+		table.store(key, depth, flag, value, (bestMove != -1) ? bestMove : tableMove);
+		return value;
+	}
+
+
+	/**
+	 * A move searched in parallel
+	 */
+	private final class Child extends RecursiveTask<Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final GameSnapshot state;
+		private final int depth;
+		private final int alpha;
+		private final int beta;
+
+
+		Child(GameSnapshot state, int depth, int alpha, int beta) {
+			this.state = state;
+			this.depth = depth;
+			this.alpha = alpha;
+			this.beta = beta;
+		}
+
+
+		@Override
+		protected Integer compute() {
+			return alphaBeta(state, depth, alpha, beta);
+		}
+	}
+
+
+	/**
+	 * Indexes into moves in the order to search them: the table's best move, then attacks, cards, unit moves and
+	 * ending the turn, each in the order of legalMoves()
+	 */
+	private static int[] order(int[] moves, int tableMove) {
+		int[] order = new int[moves.length];
+		int n = 0;
+		for (int i = 0; i < moves.length; i++) {
+			if (moves[i] == tableMove) order[n++] = i;
+		}
+		int[] types = { GameSnapshot.ATTACK, GameSnapshot.CARD, GameSnapshot.MOVE, GameSnapshot.END_TURN };
+		for (int type : types) {
+			for (int i = 0; i < moves.length; i++) {
+				if (moves[i] != tableMove && GameSnapshot.moveType(moves[i]) == type) order[n++] = i;
+			}
+		}
+		return order;
+	}
+
+
+	private static int clamp(int value, int alpha, int beta) {
+		return Math.max(alpha, Math.min(beta, value));
+	}
+}
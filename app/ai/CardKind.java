@@ -0,0 +1,147 @@
+package ai;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import structures.basic.Card;
+import utils.CardNameToUnit;
+import utils.UnitAttributes;
+import utils.Zobrist;
+
+/**
+ * What a snapshot needs to know about a card: its mana cost, and either the stats and abilities
+ * of the unit it summons or the spell it casts. Every card with the same name has the same kind,
+ * so a snapshot holds hands and decks as arrays of kind indexes.
+ *
+ * Kinds are registered the first time a card with that name is seen and never change, so they
+ * can be shared by every snapshot and thread. Lookups by index (the hot path during search)
+ * read a copy-on-write array and take no lock.
+ */
+public final class CardKind {
+
+	public static final int NO_SPELL = 0;
+	public static final int TRUESTRIKE = 1;
+	public static final int SUNDROP_ELIXIR = 2;
+	public static final int STAFF_OF_YKIR = 3;
+	public static final int ENTROPIC_DECAY = 4;
+
+	private static volatile CardKind[] kinds = new CardKind[0];
+	private static final Map<String, CardKind> byName = new HashMap<String, CardKind>();
+
+	private final int index;
+	private final String name;
+	private final int manacost;
+	private final boolean unit;
+	private final int attack;
+	private final int health;
+	private final int abilities;
+	private final int spell;
+	private final long key;
+
+
+	private CardKind(int index, String name, int manacost, boolean unit, int attack, int health, int abilities, int spell) {
+		this.index = index;
+		this.name = name;
+		this.manacost = manacost;
+		this.unit = unit;
+		this.attack = attack;
+		this.health = health;
+		this.abilities = abilities;
+		this.spell = spell;
+		this.key = Zobrist.cardKey(name);
+	}
+
+
+	/**
+	 * @param card
+	 * @return CardKind - the kind of the card, registered now if it is the first card with its name
+	 */
+	public static synchronized CardKind of(Card card) {
+		CardKind kind = byName.get(card.getCardname());
+		if (kind == null) {
+			boolean isUnit = card.isUnitCard();
+			int abilities = 0;
+			if (isUnit) {
+				abilities = Abilities.fromNames(UnitAttributes.getAbilities(CardNameToUnit.map.get(card.getCardname())));
+				// the cards which can be summoned anywhere, as in LegalMoves.cardTargets
+				if (card.getCardname().equals("Ironcliff Guardian") || card.getCardname().equals("Planar Scout")) {
+					abilities |= Abilities.SUMMON_ANYWHERE;
+				}
+			}
+			kind = new CardKind(kinds.length, card.getCardname(), card.getManacost(), isUnit,
+					card.getBigCard().getAttack(), card.getBigCard().getHealth(), abilities, spellOf(card.getCardname()));
+			CardKind[] grown = Arrays.copyOf(kinds, kinds.length + 1);
+			grown[kind.index] = kind;
+			kinds = grown;
+			byName.put(kind.name, kind);
+		}
+		return kind;
+	}
+
+
+	/**
+	 * @param index
+	 * @return CardKind - the kind registered with this index
+	 */
+	public static CardKind get(int index) {
+		return kinds[index];
+	}
+
+
+	private static int spellOf(String cardName) {
+		if (cardName.equals("Truestrike")) return TRUESTRIKE;
+		if (cardName.equals("Sundrop Elixir")) return SUNDROP_ELIXIR;
+		if (cardName.equals("Staff of Y'Kir'")) return STAFF_OF_YKIR;
+		if (cardName.equals("Entropic Decay")) return ENTROPIC_DECAY;
+		return NO_SPELL;
+	}
+
+
+	public int getIndex() {
+		return index;
+	}
+
+
+	public String getName() {
+		return name;
+	}
+
+
+	public int getManacost() {
+		return manacost;
+	}
+
+
+	public boolean isUnit() {
+		return unit;
+	}
+
+
+	public int getAttack() {
+		return attack;
+	}
+
+
+	public int getHealth() {
+		return health;
+	}
+
+
+	public int getAbilities() {
+		return abilities;
+	}
+
+
+	/**
+	 * @return long - Zobrist key of the card, the same in every process
+	 */
+	public long getKey() {
+		return key;
+	}
+
+
+	public int getSpell() {
+		return spell;
+	}
+}
@@ -0,0 +1,198 @@
+package ai;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Chooses the cards the current player should play from their hand, the order to play them in and
+ * the tile to play each on, so that the state left once they are played scores best for them.
+ *
+ * Every affordable card is tried on every target, then every card still affordable after it, and
+ * so on, so the plan is the best subset and order of plays within the player's mana. The states
+ * reached are memoised by their zobrist key, so the many orders of the same plays are only scored
+ * once, and identical cards in the hand are only tried once each time. Spells are tried on all of
+ * their targets; summons on the summonTiles best placed of theirs (nearest the enemy avatar, or
+ * furthest from the enemy's units for ranged and flying units), as the placement of a unit changes
+ * the evaluation far less often than it multiplies the states to search.
+ *
+ * Between plans of equal score the one spending more mana is chosen, as mana not spent this turn
+ * is lost, then the first found in the order of the hand and the tiles.
+ *
+ */
+public class CardPlaySolver {
+
+	public static final int DEFAULT_SUMMON_TILES = 3;
+
+	private static final int NO_MOVE = 0xFFFF;
+
+	private final Evaluator evaluator;
+	private final int summonTiles;
+
+
+	public CardPlaySolver() {
+		this(Evaluation::score, DEFAULT_SUMMON_TILES);
+	}
+
+
+	/**
+	 * @param evaluator - scores the states the plays lead to
+	 * @param summonTiles - number of tiles each unit card is tried on, at least 1
+	 */
+	public CardPlaySolver(Evaluator evaluator, int summonTiles) {
+		this.evaluator = evaluator;
+		this.summonTiles = summonTiles;
+	}
+
+
+	/**
+	 * @param root - the state to play cards from, which is not changed
+	 * @return int[] - the CARD moves to play in order, each legal in the state the ones before it leave, empty to play nothing
+	 */
+	public int[] solve(GameSnapshot root) {
+		Map<Long, Long> memo = new HashMap<Long, Long>();
+		int player = root.getCurrentPlayer();
+		best(root, player, memo);
+
+		int[] plan = new int[GameSnapshot.HAND_SIZE * 2];
+		int n = 0;
+		GameSnapshot state = root;
+		for (int move = move(memo.get(root.zobrist())); move != NO_MOVE; move = move(memo.get(state.zobrist()))) {
+			if (n == plan.length) {
+				plan = Arrays.copyOf(plan, n * 2);
+			}
+			plan[n++] = move;
+			state = state.play(move);
+		}
+		return Arrays.copyOf(plan, n);
+	}
+
+
+	/**
+	 * @param root - the state to play cards from, which is not changed
+	 * @return int - the score solve()'s plan leads to, from the current player's point of view
+	 */
+	public int value(GameSnapshot root) {
+		return value(best(root, root.getCurrentPlayer(), new HashMap<Long, Long>()));
+	}
+
+
+	/**
+	 * @return long - the best plays from state for player, packed as the score they lead to, the mana they spend and the first move
+	 */
+	private long best(GameSnapshot state, int player, Map<Long, Long> memo) {
+		long key = state.zobrist();
+		Long known = memo.get(key);
+		if (known != null) {
+			return known;
+		}
+
+		int score = evaluator.score(state);
+		long best = pack((player == 0) ? score : -score, 0, NO_MOVE);
+		if (!state.isOver() && state.getCurrentPlayer() == player) {
+			int handSize = state.getHandSize(player);
+			for (int i = 0; i < handSize; i++) {
+				CardKind kind = state.getHandCard(player, i);
+				if (sameCardEarlierInHand(state, player, i)) {
+					continue;
+				}
+				long targets = state.cardTargets(i);
+				if (kind.isUnit()) {
+					targets = bestPlaced(state, player, kind, targets);
+				}
+				for (long mask = targets; mask != 0; mask &= mask - 1) {
+					int move = GameSnapshot.encode(GameSnapshot.CARD, i, Long.numberOfTrailingZeros(mask));
+					long next = best(state.play(move), player, memo);
+					long candidate = pack(value(next), spent(next) + kind.getManacost(), move);
+					if (value(candidate) > value(best) || (value(candidate) == value(best) && spent(candidate) > spent(best))) {
+						best = candidate;
+					}
+				}
+			}
+		}
+		memo.put(key, best);
+		return best;
+	}
+
+
+	private static boolean sameCardEarlierInHand(GameSnapshot state, int player, int handIndex) {
+		CardKind kind = state.getHandCard(player, handIndex);
+		for (int i = 0; i < handIndex; i++) {
+			if (state.getHandCard(player, i) == kind) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * The summonTiles of targets best placed for a unit of kind: nearest the enemy avatar, or for ranged and flying
+	 * units, furthest from the nearest enemy unit. Ties go to the lower tile index.
+	 */
+	private long bestPlaced(GameSnapshot state, int player, CardKind kind, long targets) {
+		if (Long.bitCount(targets) <= summonTiles) {
+			return targets;
+		}
+		boolean keepAway = (kind.getAbilities() & (Abilities.RANGED | Abilities.FLYING)) != 0;
+		int avatarTile = state.getUnitTile(state.getAvatarSlot(1 - player));
+		long enemies = state.getUnitMask(1 - player);
+
+		long chosen = 0L;
+		for (int k = 0; k < summonTiles; k++) {
+			int bestTile = -1;
+			int bestCost = Integer.MAX_VALUE;
+			for (long mask = targets & ~chosen; mask != 0; mask &= mask - 1) {
+				int tile = Long.numberOfTrailingZeros(mask);
+				int cost = keepAway ? -nearest(state, tile, enemies) : distance(state, tile, avatarTile);
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestTile = tile;
+				}
+			}
+			chosen |= 1L << bestTile;
+		}
+		return chosen;
+	}
+
+
+	/**
+	 * @return int - distance from tile to the nearest of tiles, 0 if there are none
+	 */
+	private static int nearest(GameSnapshot state, int tile, long tiles) {
+		int nearest = (tiles == 0) ? 0 : Integer.MAX_VALUE;
+		for (long mask = tiles; mask != 0; mask &= mask - 1) {
+			nearest = Math.min(nearest, distance(state, tile, Long.numberOfTrailingZeros(mask)));
+		}
+		return nearest;
+	}
+
+
+	/**
+	 * @return int - the number of tiles between a and b along the board's rows and columns
+	 */
+	private static int distance(GameSnapshot state, int a, int b) {
+		int height = state.getHeight();
+		return Math.abs(a / height - b / height) + Math.abs(a % height - b % height);
+	}
+
+
+	private static long pack(int value, int spent, int move) {
+		return ((long) value << 32) | ((long) (spent & 0xFFFF) << 16) | (move & 0xFFFF);
+	}
+
+
+	private static int value(long packed) {
+		return (int) (packed >> 32);
+	}
+
+
+	private static int spent(long packed) {
+		return (int) (packed >>> 16) & 0xFFFF;
+	}
+
+
+	private static int move(long packed) {
+		return (int) packed & 0xFFFF;
+	}
+}
@@ -0,0 +1,39 @@
+package ai;
+
+import utils.StaticConfFiles;
+
+/**
+ * The evaluation shared by the searches and the rule-based AI: a WeightedEvaluator with the
+ * weights in StaticConfFiles.evaluationWeights, or the default weights (avatar health, plus half
+ * the attack and health of the players' other units) if there is no such file. Scores are in
+ * hundredths, from player 0's point of view, so positive favours player 0.
+ *
+ */
+public final class Evaluation {
+
+	/** the score of a won game, larger than any score of an unfinished one */
+	public static final int WIN = 1000000;
+
+	private static final WeightedEvaluator evaluator = WeightedEvaluator.load(StaticConfFiles.evaluationWeights);
+
+
+	private Evaluation() {
+	}
+
+
+	/**
+	 * @param state
+	 * @return int - WIN or -WIN once the game is over, otherwise the heuristic score
+	 */
+	public static int score(GameSnapshot state) {
+		return evaluator.score(state);
+	}
+
+
+	/**
+	 * @return WeightedEvaluator - the evaluator score() uses
+	 */
+	public static WeightedEvaluator getEvaluator() {
+		return evaluator;
+	}
+}
@@ -0,0 +1,16 @@
+package ai;
+
+/**
+ * Scores a GameSnapshot, in hundredths from player 0's point of view, as Evaluation.score()
+ * does, so a search or solver can be given a different evaluation.
+ *
+ */
+@FunctionalInterface
+public interface Evaluator {
+
+	/**
+	 * @param state
+	 * @return int - Evaluation.WIN or -Evaluation.WIN once the game is over, otherwise the score
+	 */
+	int score(GameSnapshot state);
+}
@@ -0,0 +1,936 @@
+package ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import structures.GameState;
+import structures.basic.Board;
+import structures.basic.Card;
+import structures.basic.Player;
+import structures.basic.Unit;
+import utils.Zobrist;
+
+/**
+ * A compact copy of a game's state for AI search. Units, hands and decks are held in primitive
+ * arrays and the board in bitboards, so a snapshot can be copied cheaply and moves can be played
+ * on it without touching the live game or sending anything to the front-end.
+ *
+ * The rules mirror the live game: LegalMoves for what each unit and card may target,
+ * Unit.performAction for moves and attacks (with counter attacks), Card.castSpell and
+ * Card.summonUnit for cards, and Player/GameState for drawing, damage effects, turn changes and
+ * the end of the game. Cosmetic state (animations, highlighting, notifications) is left out.
+ *
+ * Player 0 is the game's human player (player 1 on screen), player 1 is the AI player.
+ *
+ * Moves are ints (see encode()): a type, an actor (a unit slot or a hand index) and a target
+ * tile. play() returns a new snapshot and leaves this one as it was. playInPlace() changes this
+ * snapshot instead, for searches which own their copy and want to avoid allocating one per move.
+ *
+ */
+public final class GameSnapshot {
+
+	public static final int MOVE = 0;
+	public static final int ATTACK = 1;
+	public static final int CARD = 2;
+	public static final int END_TURN = 3;
+
+	public static final int HAND_SIZE = 6;
+	public static final int NO_UNIT = -1;
+
+	private static final int MAX_AVATAR_HEALTH = 20;
+
+	// board
+	private final int width;
+	private final int height;
+	private final long allTiles;
+	private final long[] adjacent;
+	private final long topRow;
+	private final long bottomRow;
+	private int[] tileUnit;  // slot of the unit on each tile, NO_UNIT if empty
+	private long occupied;
+	private long[] ownedBy;  // tiles of each player's units
+	private long provoke;    // tiles of units with provoke
+
+	// units, one slot each, a slot is free while unitTile is NO_UNIT
+	private int[] unitTile;
+	private int[] unitOwner;
+	private int[] unitId;    // id of the unit in the live game, 0 for units summoned in the snapshot
+	private int[] unitHealth;
+	private int[] unitAttack;
+	private int[] unitStartingHealth;
+	private int[] unitAttacksRemaining;
+	private int[] unitMovesRemaining;
+	private int[] unitAttacksPerTurn;
+	private int[] unitAbilities;
+	private int[] avatarSlot;
+	private long unitHash;   // Zobrist hash of the units, kept up to date as they change (see unitKey())
+
+	// players
+	private int[] health;
+	private int[] mana;
+	private int[] turnNumber;
+	private int[][] hand;    // card kind indexes
+	private int[] handSize;
+	private int[][] deck;    // card kind indexes, in draw order
+	private int[] deckPosition;
+	private int current;
+	private int loser = -1;  // first player to lose, -1 while the game is going
+
+
+	private GameSnapshot(int width, int height) {
+		this.width = width;
+		this.height = height;
+		int tiles = width * height;
+		this.allTiles = (tiles == Long.SIZE) ? -1L : (1L << tiles) - 1;
+		this.adjacent = new long[tiles];
+		long top = 0L;
+		long bottom = 0L;
+		for (int x = 0; x < width; x++) {
+			top |= 1L << (x * height);
+			bottom |= 1L << (x * height + height - 1);
+			for (int y = 0; y < height; y++) {
+				long mask = 0L;
+				for (int i = x - 1; i <= x + 1; i++) {
+					for (int j = y - 1; j <= y + 1; j++) {
+						if (!(i == x && j == y) && i >= 0 && j >= 0 && i < width && j < height) {
+							mask |= 1L << (i * height + j);
+						}
+					}
+				}
+				adjacent[x * height + y] = mask;
+			}
+		}
+		this.topRow = top;
+		this.bottomRow = bottom;
+	}
+
+
+	/**
+	 * Take a snapshot of a live game
+	 *
+	 * @param gameState - the game, which must have been initalized
+	 * @return GameSnapshot
+	 */
+	public static GameSnapshot of(GameState gameState) {
+		Board board = gameState.getBoard();
+		GameSnapshot s = new GameSnapshot(board.getWidth(), board.getHeight());
+		int tiles = s.width * s.height;
+		Player[] players = { gameState.getHumanPlayer(), gameState.getAIPlayer() };
+
+		s.tileUnit = new int[tiles];
+		Arrays.fill(s.tileUnit, NO_UNIT);
+		s.ownedBy = new long[2];
+		s.allocateUnits(tiles);
+		s.avatarSlot = new int[] { NO_UNIT, NO_UNIT };
+
+		int slot = 0;
+		for (Unit unit : board.getUnits()) {
+			int tile = unit.getPosition().getTilex() * s.height + unit.getPosition().getTiley();
+			int owner = unit.getPlayer().equals(players[0]) ? 0 : 1;
+			s.unitId[slot] = unit.getId();
+			s.unitHealth[slot] = unit.getUnitHealth();
+			s.unitAttack[slot] = unit.getUnitAttack();
+			s.unitStartingHealth[slot] = unit.getStartingHealth();
+			s.unitAttacksRemaining[slot] = unit.getAttacksRemaining();
+			s.unitMovesRemaining[slot] = unit.getMovesRemaining();
+			s.unitAttacksPerTurn[slot] = unit.getAttacksPerTurn();
+			s.unitAbilities[slot] = Abilities.fromNames(unit.getAbilities());
+			s.place(slot, owner, tile);
+			if (unit.isAvatar()) {
+				s.avatarSlot[owner] = slot;
+			}
+			slot++;
+		}
+
+		s.health = new int[2];
+		s.mana = new int[2];
+		s.turnNumber = new int[2];
+		s.hand = new int[2][HAND_SIZE];
+		s.handSize = new int[2];
+		s.deck = new int[2][];
+		s.deckPosition = new int[2];
+		for (int p = 0; p < 2; p++) {
+			Player player = players[p];
+			s.health[p] = player.getHealth();
+			s.mana[p] = player.getMana();
+			s.turnNumber[p] = player.getTurnNumber();
+			for (Card card : player.getCards()) {
+				s.hand[p][s.handSize[p]++] = CardKind.of(card).getIndex();
+			}
+			ArrayList<Card> deckCards = player.getDeck().getCards();
+			s.deck[p] = new int[deckCards.size()];
+			for (int i = 0; i < deckCards.size(); i++) {
+				s.deck[p][i] = CardKind.of(deckCards.get(i)).getIndex();
+			}
+		}
+		s.current = gameState.getCurrentPlayer().equals(players[0]) ? 0 : 1;
+		Player losing = gameState.getLosingPlayer();
+		s.loser = (losing == null) ? -1 : (losing.equals(players[0]) ? 0 : 1);
+		return s;
+	}
+
+
+	private void allocateUnits(int capacity) {
+		unitTile = new int[capacity];
+		Arrays.fill(unitTile, NO_UNIT);
+		unitOwner = new int[capacity];
+		unitId = new int[capacity];
+		unitHealth = new int[capacity];
+		unitAttack = new int[capacity];
+		unitStartingHealth = new int[capacity];
+		unitAttacksRemaining = new int[capacity];
+		unitMovesRemaining = new int[capacity];
+		unitAttacksPerTurn = new int[capacity];
+		unitAbilities = new int[capacity];
+	}
+
+
+	/**
+	 * @return GameSnapshot - an independent copy of this snapshot
+	 */
+	public GameSnapshot copy() {
+		GameSnapshot c = new GameSnapshot(this);
+		return c;
+	}
+
+
+	private GameSnapshot(GameSnapshot o) {
+		// board geometry never changes so it is shared
+		width = o.width;
+		height = o.height;
+		allTiles = o.allTiles;
+		adjacent = o.adjacent;
+		topRow = o.topRow;
+		bottomRow = o.bottomRow;
+
+		tileUnit = o.tileUnit.clone();
+		occupied = o.occupied;
+		ownedBy = o.ownedBy.clone();
+		provoke = o.provoke;
+
+		unitHash = o.unitHash;
+		unitTile = o.unitTile.clone();
+		unitOwner = o.unitOwner.clone();
+		unitId = o.unitId.clone();
+		unitHealth = o.unitHealth.clone();
+		unitAttack = o.unitAttack.clone();
+		unitStartingHealth = o.unitStartingHealth.clone();
+		unitAttacksRemaining = o.unitAttacksRemaining.clone();
+		unitMovesRemaining = o.unitMovesRemaining.clone();
+		unitAttacksPerTurn = o.unitAttacksPerTurn.clone();
+		unitAbilities = o.unitAbilities.clone();
+		avatarSlot = o.avatarSlot.clone();
+
+		health = o.health.clone();
+		mana = o.mana.clone();
+		turnNumber = o.turnNumber.clone();
+		hand = new int[][] { o.hand[0].clone(), o.hand[1].clone() };
+		handSize = o.handSize.clone();
+		deck = o.deck; // decks are only read, draws move deckPosition
+		deckPosition = o.deckPosition.clone();
+		current = o.current;
+		loser = o.loser;
+	}
+
+
+	// ------------------------------------------------------------------ moves
+
+	/**
+	 * @param type - MOVE, ATTACK, CARD or END_TURN
+	 * @param actor - unit slot for MOVE and ATTACK, hand index for CARD
+	 * @param tile - target tile index (x * height + y)
+	 * @return int - the encoded move
+	 */
+	public static int encode(int type, int actor, int tile) {
+		return (type << 12) | (actor << 6) | tile;
+	}
+
+
+	public static int moveType(int move) {
+		return move >>> 12;
+	}
+
+
+	public static int moveActor(int move) {
+		return (move >>> 6) & 63;
+	}
+
+
+	public static int moveTile(int move) {
+		return move & 63;
+	}
+
+
+	/**
+	 * Every move the current player can make, ending the turn last
+	 *
+	 * @return int[] - encoded moves, empty once the game is over
+	 */
+	public int[] legalMoves() {
+		if (isOver()) {
+			return new int[0];
+		}
+		int[] moves = new int[64];
+		int count = 0;
+		int p = current;
+		for (int i = 0; i < handSize[p]; i++) {
+			long targets = cardTargets(i);
+			while (targets != 0) {
+				if (count == moves.length) moves = Arrays.copyOf(moves, count * 2);
+				moves[count++] = encode(CARD, i, Long.numberOfTrailingZeros(targets));
+				targets &= targets - 1;
+			}
+		}
+		for (int slot = 0; slot < unitTile.length; slot++) {
+			if (unitTile[slot] == NO_UNIT || unitOwner[slot] != p) continue;
+			long targets = moveTargets(slot);
+			while (targets != 0) {
+				if (count == moves.length) moves = Arrays.copyOf(moves, count * 2);
+				moves[count++] = encode(MOVE, slot, Long.numberOfTrailingZeros(targets));
+				targets &= targets - 1;
+			}
+			targets = attackTargets(slot);
+			while (targets != 0) {
+				if (count == moves.length) moves = Arrays.copyOf(moves, count * 2);
+				moves[count++] = encode(ATTACK, slot, Long.numberOfTrailingZeros(targets));
+				targets &= targets - 1;
+			}
+		}
+		if (count == moves.length) moves = Arrays.copyOf(moves, count + 1);
+		moves[count++] = encode(END_TURN, 0, 0);
+		return Arrays.copyOf(moves, count);
+	}
+
+
+	/**
+	 * Tiles the unit in slot can move to, as LegalMoves.moveTargets
+	 */
+	public long moveTargets(int slot) {
+		int tile = unitTile[slot];
+		if (unitMovesRemaining[slot] <= 0 || provokingMask(slot) != 0L) {
+			return 0L;
+		}
+		long mask = reachable(slot, tile);
+		if ((unitAbilities[slot] & Abilities.FLYING) != 0) {
+			mask |= allTiles & ~occupied;
+		}
+		return mask & ~(1L << tile);
+	}
+
+
+	/**
+	 * Tiles the unit in slot can attack, moving first if it has to, as LegalMoves.attackTargets
+	 */
+	public long attackTargets(int slot) {
+		if (unitAttacksRemaining[slot] <= 0) {
+			return 0L;
+		}
+		long provoking = provokingMask(slot);
+		if (provoking != 0L) {
+			return provoking;
+		}
+		long enemies = ownedBy[1 - unitOwner[slot]];
+		if ((unitAbilities[slot] & Abilities.RANGED) != 0) {
+			return enemies;
+		}
+		int tile = unitTile[slot];
+		long mask = adjacent[tile] & enemies;
+		if (unitAttacksPerTurn[slot] == 2 || unitMovesRemaining[slot] > 0) {
+			mask |= adjacentTo(reachable(slot, tile)) & enemies;
+		}
+		return mask;
+	}
+
+
+	/**
+	 * Tiles the current player's card at handIndex can be played on, empty if they can't afford it. As LegalMoves.cardTargets.
+	 */
+	public long cardTargets(int handIndex) {
+		int p = current;
+		CardKind kind = CardKind.get(hand[p][handIndex]);
+		if (kind.getManacost() > mana[p]) {
+			return 0L;
+		}
+		switch (kind.getSpell()) {
+			case CardKind.TRUESTRIKE:
+				return ownedBy[1 - p];
+			case CardKind.SUNDROP_ELIXIR:
+				return ownedBy[p];
+			case CardKind.STAFF_OF_YKIR:
+				return avatarMask(p);
+			case CardKind.ENTROPIC_DECAY:
+				return ownedBy[1 - p] & ~avatarMask(1 - p);
+			default:
+				if ((kind.getAbilities() & Abilities.SUMMON_ANYWHERE) != 0) {
+					return allTiles & ~occupied;
+				}
+				return adjacentTo(ownedBy[p]) & ~occupied;
+		}
+	}
+
+
+	/**
+	 * @param move - an encoded move, which must be legal
+	 * @return GameSnapshot - a new snapshot with the move played, this snapshot is unchanged
+	 */
+	public GameSnapshot play(int move) {
+		GameSnapshot next = copy();
+		next.playInPlace(move);
+		return next;
+	}
+
+
+	/**
+	 * Play a move on this snapshot. Only use this on a snapshot nothing else refers to, e.g. one made with copy().
+	 *
+	 * @param move - an encoded move, which must be legal
+	 */
+	public void playInPlace(int move) {
+		int actor = moveActor(move);
+		int tile = moveTile(move);
+		switch (moveType(move)) {
+			case MOVE:
+				moveUnit(actor, tile);
+				long before = unitKey(actor);
+				unitMovesRemaining[actor]--;
+				rehash(actor, before);
+				break;
+			case ATTACK:
+				attack(actor, tile);
+				break;
+			case CARD:
+				playCard(actor, tile);
+				break;
+			default:
+				endTurn();
+		}
+	}
+
+
+	// ------------------------------------------------------------------ rules
+
+	private void attack(int slot, int targetTile) {
+		int target = tileUnit[targetTile];
+		boolean ranged = (unitAbilities[slot] & Abilities.RANGED) != 0;
+		if (!ranged && (adjacent[unitTile[slot]] & (1L << targetTile)) == 0) {
+			// move and attack, from the nearest tile next to the target
+			moveUnit(slot, moveAndAttackTile(slot, targetTile));
+		}
+		long before = unitKey(slot);
+		unitAttacksRemaining[slot]--;
+		unitMovesRemaining[slot]--;
+		rehash(slot, before);
+
+		int targetHealth = unitHealth[target] - unitAttack[slot];
+		setUnitHealth(target, targetHealth);
+		if (targetHealth > 0 && unitTile[slot] != NO_UNIT) {
+			// ranged units are only counter attacked when they attack an adjacent unit
+			if (!ranged || (adjacent[unitTile[slot]] & (1L << targetTile)) != 0) {
+				setUnitHealth(slot, unitHealth[slot] - unitAttack[target]);
+			}
+		}
+	}
+
+
+	/**
+	 * The tile a unit moves to before attacking a unit it is not next to, as Unit.moveAndAttackHelper: the first tile
+	 * in board order, fewest steps away, which is next to the target and can be reached
+	 */
+	private int moveAndAttackTile(int slot, int targetTile) {
+		int tile = unitTile[slot];
+		long candidates = reachable(slot, tile) & adjacent[targetTile];
+		int x = tile / height;
+		int y = tile % height;
+		for (int steps = 1; steps <= 2; steps++) {
+			long remaining = candidates;
+			while (remaining != 0) {
+				int t = Long.numberOfTrailingZeros(remaining);
+				if (Math.abs(t / height - x) + Math.abs(t % height - y) == steps) {
+					return t;
+				}
+				remaining &= remaining - 1;
+			}
+		}
+		return tile;
+	}
+
+
+	private void playCard(int handIndex, int tile) {
+		int p = current;
+		CardKind kind = CardKind.get(hand[p][handIndex]);
+		mana[p] -= kind.getManacost();
+		for (int i = handIndex; i < handSize[p] - 1; i++) {
+			hand[p][i] = hand[p][i + 1];
+		}
+		handSize[p]--;
+
+		if (kind.isUnit()) {
+			summon(p, kind, tile);
+			return;
+		}
+		int target = tileUnit[tile];
+		switch (kind.getSpell()) {
+			case CardKind.TRUESTRIKE:
+				setUnitHealth(target, unitHealth[target] - 2);
+				break;
+			case CardKind.ENTROPIC_DECAY:
+				setUnitHealth(target, 0);
+				break;
+			case CardKind.STAFF_OF_YKIR:
+				addAttack(target, 2);
+				break;
+			case CardKind.SUNDROP_ELIXIR:
+				setUnitHealth(target, Math.min(unitStartingHealth[target], unitHealth[target] + 5));
+				break;
+			default:
+		}
+		// enemy units with spellCastEffect grow whenever a spell is cast
+		for (int slot = 0; slot < unitTile.length; slot++) {
+			if (unitTile[slot] != NO_UNIT && unitOwner[slot] != p && (unitAbilities[slot] & Abilities.SPELL_CAST_EFFECT) != 0) {
+				addAttack(slot, 1);
+				setUnitHealth(slot, unitHealth[slot] + 1);
+			}
+		}
+	}
+
+
+	private void summon(int p, CardKind kind, int tile) {
+		int slot = 0;
+		while (unitTile[slot] != NO_UNIT) slot++;
+		unitId[slot] = 0;
+		unitHealth[slot] = kind.getHealth();
+		unitAttack[slot] = kind.getAttack();
+		unitStartingHealth[slot] = kind.getHealth();
+		unitAbilities[slot] = kind.getAbilities();
+		unitAttacksPerTurn[slot] = ((kind.getAbilities() & Abilities.ATTACK_TWICE) != 0) ? 2 : 1;
+		// units can't move or attack on the turn they are summoned
+		unitAttacksRemaining[slot] = 0;
+		unitMovesRemaining[slot] = 0;
+		place(slot, p, tile);
+
+		if ((kind.getAbilities() & Abilities.HEAL_AVATAR_ON_SUMMON) != 0) {
+			int avatar = avatarSlot[p];
+			setUnitHealth(avatar, Math.min(MAX_AVATAR_HEALTH, unitHealth[avatar] + 3));
+		}
+		if ((kind.getAbilities() & Abilities.DRAW_CARD_ON_SUMMON) != 0) {
+			drawCard(0);
+			drawCard(1);
+		}
+	}
+
+
+	private void endTurn() {
+		int p = current;
+		mana[p] = 0;
+		drawCard(p);
+		turnNumber[p]++;
+		for (int slot = 0; slot < unitTile.length; slot++) {
+			if (unitTile[slot] != NO_UNIT && unitOwner[slot] == p) {
+				long before = unitKey(slot);
+				unitAttacksRemaining[slot] = unitAttacksPerTurn[slot];
+				unitMovesRemaining[slot] = 1;
+				rehash(slot, before);
+			}
+		}
+		current = 1 - p;
+		mana[current] = turnNumber[current] + 1;
+	}
+
+
+	/**
+	 * Set a unit's health, as Unit.setUnitHealth: avatars pass their health on to their player, units at 0 health die
+	 */
+	private void setUnitHealth(int slot, int value) {
+		long before = unitKey(slot);
+		unitHealth[slot] = value;
+		rehash(slot, before);
+		int owner = unitOwner[slot];
+		if (slot == avatarSlot[owner]) {
+			setPlayerHealth(owner, value);
+		}
+		if (value <= 0) {
+			remove(slot);
+			if ((unitAbilities[slot] & Abilities.DRAW_CARD_ON_DEATH) != 0) {
+				drawCard(owner);
+			}
+		}
+	}
+
+
+	/**
+	 * Set a player's health, as Player.setHealth: damage grows their units with avatarDamageEffect, 0 health loses the game
+	 */
+	private void setPlayerHealth(int p, int value) {
+		if (health[p] > value) {
+			for (int slot = 0; slot < unitTile.length; slot++) {
+				if (unitTile[slot] != NO_UNIT && unitOwner[slot] == p && (unitAbilities[slot] & Abilities.AVATAR_DAMAGE_EFFECT) != 0) {
+					addAttack(slot, 2);
+				}
+			}
+		}
+		health[p] = value;
+		if (health[p] < 1) {
+			health[p] = 0;
+			lose(p);
+		}
+	}
+
+
+	/**
+	 * Draw a card, as Player.drawCard: an empty deck loses the game, a full hand discards the card
+	 */
+	private void drawCard(int p) {
+		if (deckPosition[p] == deck[p].length) {
+			lose(p);
+			return;
+		}
+		int card = deck[p][deckPosition[p]++];
+		if (handSize[p] < HAND_SIZE) {
+			hand[p][handSize[p]++] = card;
+		}
+	}
+
+
+	private void lose(int p) {
+		if (loser == -1) {
+			loser = p;
+		}
+	}
+
+
+	// ------------------------------------------------------------------ board
+
+	private void addAttack(int slot, int amount) {
+		long before = unitKey(slot);
+		unitAttack[slot] += amount;
+		rehash(slot, before);
+	}
+
+
+	private void place(int slot, int owner, int tile) {
+		long bit = 1L << tile;
+		unitTile[slot] = tile;
+		unitOwner[slot] = owner;
+		unitHash ^= unitKey(slot);
+		tileUnit[tile] = slot;
+		occupied |= bit;
+		ownedBy[owner] |= bit;
+		if ((unitAbilities[slot] & Abilities.PROVOKE) != 0) {
+			provoke |= bit;
+		}
+	}
+
+
+	private void remove(int slot) {
+		int tile = unitTile[slot];
+		if (tile == NO_UNIT) return;
+		unitHash ^= unitKey(slot);
+		long bit = 1L << tile;
+		tileUnit[tile] = NO_UNIT;
+		occupied &= ~bit;
+		ownedBy[unitOwner[slot]] &= ~bit;
+		provoke &= ~bit;
+		unitTile[slot] = NO_UNIT;
+	}
+
+
+	private void moveUnit(int slot, int tile) {
+		int owner = unitOwner[slot];
+		remove(slot);
+		place(slot, owner, tile);
+	}
+
+
+	private long provokingMask(int slot) {
+		return adjacent[unitTile[slot]] & ownedBy[1 - unitOwner[slot]] & provoke;
+	}
+
+
+	private long avatarMask(int p) {
+		int slot = avatarSlot[p];
+		return (slot == NO_UNIT || unitTile[slot] == NO_UNIT) ? 0L : 1L << unitTile[slot];
+	}
+
+
+	private long adjacentTo(long mask) {
+		long result = 0L;
+		while (mask != 0) {
+			result |= adjacent[Long.numberOfTrailingZeros(mask)];
+			mask &= mask - 1;
+		}
+		return result;
+	}
+
+
+	/**
+	 * Empty tiles the unit can end a move of up to two steps on, passing through friendly units, as ReachableTiles
+	 */
+	private long reachable(int slot, int tile) {
+		long origin = 1L << tile;
+		long empty = allTiles & ~occupied;
+		long passable = (empty | ownedBy[unitOwner[slot]]) & ~origin;
+		long visited = origin;
+		long frontier = origin;
+		long mask = 0L;
+		for (int step = 1; step <= 2 && frontier != 0; step++) {
+			long next = ((frontier << 1) & ~topRow) | ((frontier >>> 1) & ~bottomRow)
+					| (frontier << height) | (frontier >>> height);
+			next &= passable & ~visited & allTiles;
+			mask |= next & empty;
+			visited |= next;
+			frontier = next;
+		}
+		return mask;
+	}
+
+
+	// ------------------------------------------------------------------ queries
+
+	public int getCurrentPlayer() {
+		return current;
+	}
+
+
+	public boolean isOver() {
+		return loser != -1;
+	}
+
+
+	/**
+	 * @return the player who lost, -1 while the game is going
+	 */
+	public int getLoser() {
+		return loser;
+	}
+
+
+	/**
+	 * @return the player who won, -1 while the game is going
+	 */
+	public int getWinner() {
+		return loser == -1 ? -1 : 1 - loser;
+	}
+
+
+	public int getHealth(int p) {
+		return health[p];
+	}
+
+
+	public int getMana(int p) {
+		return mana[p];
+	}
+
+
+	public int getHandSize(int p) {
+		return handSize[p];
+	}
+
+
+	/**
+	 * @return the kind of the card at index i of player p's hand
+	 */
+	public CardKind getHandCard(int p, int i) {
+		return CardKind.get(hand[p][i]);
+	}
+
+
+	public int getCardsLeftInDeck(int p) {
+		return deck[p].length - deckPosition[p];
+	}
+
+
+	public int getWidth() {
+		return width;
+	}
+
+
+	public int getHeight() {
+		return height;
+	}
+
+
+	public long getOccupiedMask() {
+		return occupied;
+	}
+
+
+	/**
+	 * @return bitboard of the tiles of player p's units
+	 */
+	public long getUnitMask(int p) {
+		return ownedBy[p];
+	}
+
+
+	/**
+	 * @return slot of the unit on the tile, NO_UNIT if it is empty
+	 */
+	public int getUnitAt(int tile) {
+		return tileUnit[tile];
+	}
+
+
+	/**
+	 * @return the number of unit slots, some of which may be free
+	 */
+	public int getUnitSlots() {
+		return unitTile.length;
+	}
+
+
+	public int getUnitTile(int slot) {
+		return unitTile[slot];
+	}
+
+
+	public int getUnitOwner(int slot) {
+		return unitOwner[slot];
+	}
+
+
+	/**
+	 * @return the id of the unit in the live game, 0 for units summoned in the snapshot
+	 */
+	public int getUnitId(int slot) {
+		return unitId[slot];
+	}
+
+
+	public int getUnitHealth(int slot) {
+		return unitHealth[slot];
+	}
+
+
+	public int getUnitAttack(int slot) {
+		return unitAttack[slot];
+	}
+
+
+	public int getUnitAbilities(int slot) {
+		return unitAbilities[slot];
+	}
+
+
+	public int getAvatarSlot(int p) {
+		return avatarSlot[p];
+	}
+
+
+	/**
+	 * @return long - mask of the (up to eight) tiles around tile
+	 */
+	public long getAdjacent(int tile) {
+		return adjacent[tile];
+	}
+
+
+	// ------------------------------------------------------------------ hashing
+
+	/**
+	 * The Zobrist key of a unit, for its tile, owner and stats together
+	 */
+	private long unitKey(int slot) {
+		return Zobrist.unitKey(unitTile[slot], unitOwner[slot], unitHealth[slot], unitAttack[slot], unitStartingHealth[slot],
+				unitAttacksRemaining[slot], unitMovesRemaining[slot], unitAttacksPerTurn[slot], unitAbilities[slot]);
+	}
+
+
+	/**
+	 * Update the hash after a unit on the board has changed
+	 *
+	 * @param slot - the unit
+	 * @param before - its unitKey() before the change
+	 */
+	private void rehash(int slot, long before) {
+		if (unitTile[slot] != NO_UNIT) {
+			unitHash ^= before ^ unitKey(slot);
+		}
+	}
+
+
+	/**
+	 * A 64 bit Zobrist hash of the state (see utils.Zobrist), equal for equal snapshots and for the live game the
+	 * snapshot was taken of. The units' part is kept up to date as moves are played, only the few player values are
+	 * hashed again on each call.
+	 *
+	 * @return long
+	 */
+	public long zobrist() {
+		long h = unitHash ^ Zobrist.turnKey(current, loser);
+		for (int p = 0; p < 2; p++) {
+			h ^= Zobrist.playerKey(p, health[p], mana[p], turnNumber[p], handSize[p], getCardsLeftInDeck(p));
+			for (int i = 0; i < handSize[p]; i++) {
+				h ^= Zobrist.handKey(p, i, CardKind.get(hand[p][i]).getKey());
+			}
+		}
+		return h;
+	}
+
+
+	/**
+	 * Two snapshots are equal if the games they describe are in the same state, whichever slots their units are in
+	 * and whatever the units' live ids
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) return true;
+		if (!(other instanceof GameSnapshot)) return false;
+		GameSnapshot o = (GameSnapshot) other;
+		if (width != o.width || height != o.height || current != o.current || loser != o.loser || occupied != o.occupied
+				|| !Arrays.equals(ownedBy, o.ownedBy) || provoke != o.provoke || !Arrays.equals(health, o.health)
+				|| !Arrays.equals(mana, o.mana) || !Arrays.equals(turnNumber, o.turnNumber) || !Arrays.equals(handSize, o.handSize)) {
+			return false;
+		}
+		for (int p = 0; p < 2; p++) {
+			if (!Arrays.equals(hand[p], 0, handSize[p], o.hand[p], 0, handSize[p])
+					|| !Arrays.equals(deck[p], deckPosition[p], deck[p].length, o.deck[p], o.deckPosition[p], o.deck[p].length)) {
+				return false;
+			}
+			if (avatarMask(p) != o.avatarMask(p)) {
+				return false;
+			}
+		}
+		long remaining = occupied;
+		while (remaining != 0) {
+			int tile = Long.numberOfTrailingZeros(remaining);
+			int a = tileUnit[tile];
+			int b = o.tileUnit[tile];
+			if (unitHealth[a] != o.unitHealth[b] || unitAttack[a] != o.unitAttack[b]
+					|| unitStartingHealth[a] != o.unitStartingHealth[b] || unitAttacksRemaining[a] != o.unitAttacksRemaining[b]
+					|| unitMovesRemaining[a] != o.unitMovesRemaining[b] || unitAttacksPerTurn[a] != o.unitAttacksPerTurn[b]
+					|| unitAbilities[a] != o.unitAbilities[b]) {
+				return false;
+			}
+			remaining &= remaining - 1;
+		}
+		return true;
+	}
+
+
+	@Override
+	public int hashCode() {
+		long h = zobrist();
+		return (int) (h ^ (h >>> 32));
+	}
+
+
+	/**
+	 * @return a short description of each unit, for debugging
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("player ").append(current).append(" to play, health ").append(health[0]).append('/').append(health[1])
+				.append(", mana ").append(mana[0]).append('/').append(mana[1]);
+		long remaining = occupied;
+		while (remaining != 0) {
+			int tile = Long.numberOfTrailingZeros(remaining);
+			int slot = tileUnit[tile];
+			sb.append("\n  (").append(tile / height).append(',').append(tile % height).append(") p").append(unitOwner[slot])
+					.append(' ').append(unitAttack[slot]).append('/').append(unitHealth[slot]);
+			remaining &= remaining - 1;
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,120 @@
+package ai;
+
+import java.util.Random;
+
+import structures.GameState;
+import structures.basic.AILogic;
+
+/**
+ * An AI player which plans its turns with MctsSearch. The search runs on a GameSnapshot of the
+ * game, so nothing is sent to the front-end while it thinks, and the moves it chooses are then
+ * played as clicks (see MoveClicks), the same way as AILogic plays its moves.
+ *
+ * Each turn has a time budget. A search gets half of what is left of it and returns the moves it
+ * is confident of; if those don't end the turn, the rest of the turn is searched again from the
+ * new state. Once the budget is spent each further search still gets MIN_SEARCH_MILLIS, so a turn
+ * can overrun its budget slightly but never by much.
+ *
+ * A hosted game searches on its host's SearchPool, growing one tree per thread of the pool, and
+ * holds one of the pool's permits for the whole turn. If every permit is taken the turn is played
+ * by AILogic instead, so a busy server plays weaker turns rather than queueing them. A game
+ * without a pool searches one tree on the calling thread. A turn's budget is cut to the pool's
+ * maximum, or to MAX_TIME_BUDGET_MILLIS without a pool, so it is bounded even for a game resumed
+ * with a budget its server no longer allows.
+ *
+ */
+public class MctsAI implements AIPlayer {
+
+	public static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+	// longest time budget a turn can have, unless the game's search pool allows less
+	public static final long MAX_TIME_BUDGET_MILLIS = 10000;
+	public static final long MIN_SEARCH_MILLIS = 20;
+
+	private final long timeBudgetMillis;
+	private final long maxIterations;
+	private final Random seeds;
+
+
+	/**
+	 * @param timeBudgetMillis - thinking time for a whole turn
+	 * @param seed - seeds the searches, which are only repeatable if they are limited by iterations rather than time
+	 */
+	public MctsAI(long timeBudgetMillis, long seed) {
+		this(timeBudgetMillis, Long.MAX_VALUE, seed);
+	}
+
+
+	/**
+	 * @param timeBudgetMillis - thinking time for a whole turn, more than 0
+	 * @param maxIterations - iterations per tree at which each search stops, even with time left
+	 * @param seed - seeds the searches
+	 */
+	public MctsAI(long timeBudgetMillis, long maxIterations, long seed) {
+		if (timeBudgetMillis <= 0) {
+			throw new IllegalArgumentException("Time budget must be more than 0 ms, not " + timeBudgetMillis);
+		}
+		this.timeBudgetMillis = timeBudgetMillis;
+		this.maxIterations = maxIterations;
+		this.seeds = new Random(seed);
+	}
+
+
+	@Override
+	public void playTurn(GameState gameState) {
+		SearchPool pool = gameState.getSearchPool();
+		if (pool == null) {
+			playTurn(gameState, new MctsSearch(1), null);
+		} else if (pool.tryAcquire()) {
+			try {
+				playTurn(gameState, new MctsSearch(pool.getThreads()), pool);
+			} finally {
+				pool.release();
+			}
+		} else {
+			AILogic.playTurn(gameState);
+		}
+	}
+
+
+	/**
+	 * Play the turn, searching on the pool if there is one
+	 */
+	private void playTurn(GameState gameState, MctsSearch search, SearchPool pool) {
+		long budgetMillis = Math.min(timeBudgetMillis, (pool != null) ? pool.getMaxThinkingMillis() : MAX_TIME_BUDGET_MILLIS);
+		long deadline = System.nanoTime() + budgetMillis * 1000000L;
+		int player = gameState.getCurrentPlayer().equals(gameState.getHumanPlayer()) ? 0 : 1;
+
+		while (!gameState.isGameOver()) {
+			GameSnapshot state = GameSnapshot.of(gameState);
+			if (state.getCurrentPlayer() != player) {
+				return;
+			}
+			long now = System.nanoTime();
+			long searchEnd = now + Math.max((deadline - now) / 2, MIN_SEARCH_MILLIS * 1000000L);
+			int[] plan = search.search(state, searchEnd, maxIterations, nextSeed(), (pool != null) ? pool.getPool() : null).getMoves();
+
+			for (int move : plan) {
+				if (gameState.isGameOver()) {
+					return;
+				}
+				MoveClicks.play(gameState, state, move);
+				if (GameSnapshot.moveType(move) == GameSnapshot.END_TURN) {
+					return;
+				}
+				state.playInPlace(move);
+			}
+
+			// the live game should have followed the snapshot, if a move was refused end the turn rather than retry it
+			if (!GameSnapshot.of(gameState).equals(state)) {
+				System.err.println("MctsAI: game differs from the planned state, ending the turn");
+				MoveClicks.endTurn(gameState);
+				return;
+			}
+		}
+	}
+
+
+	private synchronized long nextSeed() {
+		return seeds.nextLong();
+	}
+}
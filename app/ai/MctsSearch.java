@@ -0,0 +1,343 @@
+package ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Monte Carlo tree search over GameSnapshot moves. A tree node is one move (a card, a unit's
+ * move or attack, or ending the turn), so a path through the tree is a sequence of whole turns.
+ * Each iteration selects a path with UCT, expands one new move, plays random moves on from there
+ * to the end of the turn and scores the result, and backs the score up the path.
+ *
+ * The search is root parallel: each thread grows its own tree from the same snapshot with its
+ * own random generator, sharing nothing, and the trees are merged only when picking the plan.
+ * The plan is the chain of moves with the most visits summed over all trees, followed while it
+ * is still the searching player's turn and the moves have been visited often enough to trust.
+ *
+ * The trees are grown on a shared ForkJoinPool (see SearchPool) if one is given, otherwise one
+ * after another on the calling thread.
+ *
+ * A search stops at a deadline or after a number of iterations per thread, whichever comes first.
+ *
+ */
+public class MctsSearch {
+
+	public static final double DEFAULT_EXPLORATION = 1.0;
+	// rollouts end with the turn they start in, playing on through the opponent's turn makes the scores too noisy
+	public static final int DEFAULT_ROLLOUT_TURNS = 1;
+
+	// moves deeper in the plan need this many visits over all trees, otherwise the caller searches again from there
+	private static final int MIN_PLAN_VISITS = 16;
+	// cap on moves in one rollout, in case neither player ends their turn
+	private static final int MAX_ROLLOUT_MOVES = 200;
+
+	private final int threads;
+	private final double exploration;
+	private final int rolloutTurns;
+
+
+	/**
+	 * @param threads - number of trees grown, at once if they are searched on a pool
+	 */
+	public MctsSearch(int threads) {
+		this(threads, DEFAULT_EXPLORATION, DEFAULT_ROLLOUT_TURNS);
+	}
+
+
+	/**
+	 * @param threads - number of trees grown, at once if they are searched on a pool
+	 * @param exploration - UCT exploration constant, higher tries more moves less deeply
+	 * @param rolloutTurns - number of turn ends played out randomly after the tree before the state is scored, 1 finishes the current turn
+	 */
+	public MctsSearch(int threads, double exploration, int rolloutTurns) {
+		this.threads = threads;
+		this.exploration = exploration;
+		this.rolloutTurns = rolloutTurns;
+	}
+
+
+	/**
+	 * The result of a search: the moves to play and how much work went into choosing them
+	 */
+	public static final class Plan {
+
+		private final int[] moves;
+		private final long iterations;
+
+
+		Plan(int[] moves, long iterations) {
+			this.moves = moves;
+			this.iterations = iterations;
+		}
+
+
+		/**
+		 * @return the moves to play in order, never empty. The turn only ends if the last move is END_TURN, otherwise
+		 *         the rest of the turn needs a new search.
+		 */
+		public int[] getMoves() {
+			return moves;
+		}
+
+
+		/**
+		 * @return iterations run over all threads
+		 */
+		public long getIterations() {
+			return iterations;
+		}
+	}
+
+
+	/**
+	 * Search for the current player's best moves on the calling thread
+	 *
+	 * @param root - the state to search from, which is not changed
+	 * @param deadlineNanos - System.nanoTime() at which to stop
+	 * @param maxIterations - iterations per thread at which to stop
+	 * @param seed - seeds the random generator of each thread
+	 * @return Plan
+	 */
+	public Plan search(GameSnapshot root, long deadlineNanos, long maxIterations, long seed) {
+		return search(root, deadlineNanos, maxIterations, seed, null);
+	}
+
+
+	/**
+	 * Search for the current player's best moves
+	 *
+	 * @param root - the state to search from, which is not changed
+	 * @param deadlineNanos - System.nanoTime() at which to stop
+	 * @param maxIterations - iterations per thread at which to stop
+	 * @param seed - seeds the random generator of each thread
+	 * @param pool - pool to grow the trees on at once, or null to grow them one after another on the calling thread
+	 * @return Plan
+	 */
+	public Plan search(GameSnapshot root, long deadlineNanos, long maxIterations, long seed, ForkJoinPool pool) {
+		int[] rootMoves = root.legalMoves();
+		if (rootMoves.length <= 1) {
+			// nothing to do but end the turn
+			return new Plan(new int[] { GameSnapshot.encode(GameSnapshot.END_TURN, 0, 0) }, 0);
+		}
+
+		List<Node> trees = new ArrayList<Node>(threads);
+		if (pool == null || threads == 1) {
+			for (int i = 0; i < threads; i++) {
+				trees.add(grow(root, deadlineNanos, maxIterations, new Random(seed + i)));
+			}
+		} else {
+			List<ForkJoinTask<Node>> tasks = new ArrayList<ForkJoinTask<Node>>(threads);
+			for (int i = 0; i < threads; i++) {
+				Random random = new Random(seed + i);
+				tasks.add(pool.submit(() -> grow(root, deadlineNanos, maxIterations, random)));
+			}
+			for (ForkJoinTask<Node> task : tasks) {
+				trees.add(task.join());
+			}
+		}
+
+		long iterations = 0;
+		for (Node tree : trees) {
+			iterations += tree.visits;
+		}
+		return new Plan(bestPlan(trees, root.getCurrentPlayer()), iterations);
+	}
+
+
+	/**
+	 * Follow the most visited moves summed over all trees, while they are the searching player's and well visited
+	 */
+	private static int[] bestPlan(List<Node> trees, int player) {
+		int[] plan = new int[8];
+		int length = 0;
+		List<Node> level = trees;
+		while (true) {
+			int bestMove = -1;
+			int bestVisits = 0;
+			for (Node node : level) {
+				for (int i = 0; i < node.childCount; i++) {
+					int move = node.children[i].move;
+					int visits = 0;
+					for (Node other : level) {
+						Node child = other.child(move);
+						if (child != null) visits += child.visits;
+					}
+					if (visits > bestVisits || (visits == bestVisits && move < bestMove)) {
+						bestMove = move;
+						bestVisits = visits;
+					}
+				}
+			}
+			// always play the first move, later ones only if the trees agree on them
+			if (bestMove == -1 || (length > 0 && bestVisits < MIN_PLAN_VISITS)) {
+				break;
+			}
+			if (length == plan.length) plan = Arrays.copyOf(plan, length * 2);
+			plan[length++] = bestMove;
+
+			List<Node> next = new ArrayList<Node>(level.size());
+			for (Node node : level) {
+				Node child = node.child(bestMove);
+				if (child != null) next.add(child);
+			}
+			if (GameSnapshot.moveType(bestMove) == GameSnapshot.END_TURN || next.get(0).player != player) {
+				break;
+			}
+			level = next;
+		}
+		if (length == 0) {
+			return new int[] { GameSnapshot.encode(GameSnapshot.END_TURN, 0, 0) };
+		}
+		return Arrays.copyOf(plan, length);
+	}
+
+
+	/**
+	 * Grow one tree until the deadline or the iteration limit
+	 */
+	private Node grow(GameSnapshot root, long deadlineNanos, long maxIterations, Random random) {
+		Node rootNode = new Node(null, -1, 1 - root.getCurrentPlayer(), root.getCurrentPlayer(), root.legalMoves());
+		long iterations = 0;
+		while (iterations < maxIterations && (iterations == 0 || System.nanoTime() < deadlineNanos)) {
+			GameSnapshot state = root.copy();
+			Node node = rootNode;
+
+			// selection
+			while (node.untriedCount == 0 && node.childCount > 0) {
+				node = select(node);
+				state.playInPlace(node.move);
+			}
+
+			// expansion
+			if (node.untriedCount > 0) {
+				int i = random.nextInt(node.untriedCount);
+				int move = node.untried[i];
+				node.untried[i] = node.untried[--node.untriedCount];
+				int mover = state.getCurrentPlayer();
+				state.playInPlace(move);
+				node = node.addChild(move, mover, state.getCurrentPlayer(), state.legalMoves());
+			}
+
+			// simulation
+			double value = rollout(state, random);
+
+			// backpropagation, value is for player 0
+			while (node != null) {
+				node.visits++;
+				node.value += (node.mover == 0) ? value : 1.0 - value;
+				node = node.parent;
+			}
+			iterations++;
+		}
+		return rootNode;
+	}
+
+
+	private Node select(Node node) {
+		double logVisits = Math.log(node.visits);
+		Node best = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < node.childCount; i++) {
+			Node child = node.children[i];
+			double score = child.value / child.visits + exploration * Math.sqrt(logVisits / child.visits);
+			if (score > bestScore) {
+				best = child;
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+
+	/**
+	 * Play random moves, preferring attacks and cards, until rolloutTurns turns have ended or the game is over
+	 *
+	 * @return double - the score of the resulting state for player 0
+	 */
+	private double rollout(GameSnapshot state, Random random) {
+		int turnsEnded = 0;
+		for (int i = 0; i < MAX_ROLLOUT_MOVES && turnsEnded < rolloutTurns && !state.isOver(); i++) {
+			int[] moves = state.legalMoves();
+			int move = moves[random.nextInt(moves.length)];
+			if (GameSnapshot.moveType(move) == GameSnapshot.MOVE && random.nextBoolean()) {
+				// half the time, swap a plain move for the next attack or card in the list, if any
+				int start = random.nextInt(moves.length);
+				for (int j = 0; j < moves.length; j++) {
+					int other = moves[(start + j) % moves.length];
+					int type = GameSnapshot.moveType(other);
+					if (type == GameSnapshot.ATTACK || type == GameSnapshot.CARD) {
+						move = other;
+						break;
+					}
+				}
+			}
+			if (GameSnapshot.moveType(move) == GameSnapshot.END_TURN) {
+				turnsEnded++;
+			}
+			state.playInPlace(move);
+		}
+		return evaluate(state);
+	}
+
+
+	/**
+	 * Score a state for player 0: 1 or 0 once the game is over, otherwise a logistic function of Evaluation.score()
+	 *
+	 * @param state
+	 * @return double - between 0 and 1
+	 */
+	public static double evaluate(GameSnapshot state) {
+		if (state.isOver()) {
+			return (state.getWinner() == 0) ? 1.0 : 0.0;
+		}
+		return 1.0 / (1.0 + Math.exp(-Evaluation.score(state) / 800.0));
+	}
+
+
+	/**
+	 * A move in one tree, with the results of the iterations that passed through it
+	 */
+	private static final class Node {
+
+		final Node parent;
+		final int move;
+		final int mover;   // player who made the move, value is from their point of view
+		final int player;  // player to move after the move
+		final int[] untried;
+		int untriedCount;
+		Node[] children = new Node[4];
+		int childCount;
+		int visits;
+		double value;
+
+
+		Node(Node parent, int move, int mover, int player, int[] legalMoves) {
+			this.parent = parent;
+			this.move = move;
+			this.mover = mover;
+			this.player = player;
+			this.untried = legalMoves;
+			this.untriedCount = legalMoves.length;
+		}
+
+
+		Node addChild(int move, int mover, int player, int[] legalMoves) {
+			Node child = new Node(this, move, mover, player, legalMoves);
+			if (childCount == children.length) children = Arrays.copyOf(children, childCount * 2);
+			children[childCount++] = child;
+			return child;
+		}
+
+
+		Node child(int move) {
+			for (int i = 0; i < childCount; i++) {
+				if (children[i].move == move) return children[i];
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package ai;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import commands.BasicCommands;
+import events.CardClicked;
+import events.EndTurnClicked;
+import events.TileClicked;
+import play.libs.Json;
+import structures.GameState;
+
+/**
+ * Plays GameSnapshot moves in the live game as the clicks a player would make, so the searching
+ * AIs are shown on the front-end, and checked by the event processors, like any other player.
+ * Tests use it too, to play moves chosen from GameSnapshot.legalMoves() in a live game.
+ *
+ */
+public final class MoveClicks {
+
+	private MoveClicks() {
+	}
+
+
+	/**
+	 * Play a move as the clicks a player would make: the unit and then its target, the card and then its target, or
+	 * end turn
+	 * @param gameState - the live game
+	 * @param state - snapshot of the live game, which the move is legal in
+	 * @param move - the move
+	 */
+	public static void play(GameState gameState, GameSnapshot state, int move) {
+		int height = state.getHeight();
+		int tile = GameSnapshot.moveTile(move);
+		int actor = GameSnapshot.moveActor(move);
+		switch (GameSnapshot.moveType(move)) {
+			case GameSnapshot.MOVE:
+			case GameSnapshot.ATTACK:
+				int from = state.getUnitTile(actor);
+				clickOnTile(gameState, from / height, from % height);
+				BasicCommands.pause(500);
+				clickOnTile(gameState, tile / height, tile % height);
+				break;
+			case GameSnapshot.CARD:
+				clickOnCard(gameState, actor + 1);
+				BasicCommands.pause(500);
+				clickOnTile(gameState, tile / height, tile % height);
+				break;
+			default:
+				endTurn(gameState);
+		}
+	}
+
+
+	private static void clickOnCard(GameState gameState, int handPosition) {
+		ObjectNode clickCardMessage = Json.newObject();
+		clickCardMessage.put("messagetype", "cardclicked");
+		clickCardMessage.put("position", handPosition);
+		clickCardMessage.put("AI", "AI");
+		new CardClicked().processEvent(gameState.getOut(), gameState, clickCardMessage);
+	}
+
+
+	private static void clickOnTile(GameState gameState, int tilex, int tiley) {
+		ObjectNode tileClickMessage = Json.newObject();
+		tileClickMessage.put("messagetype", "tileclicked");
+		tileClickMessage.put("tilex", tilex);
+		tileClickMessage.put("tiley", tiley);
+		tileClickMessage.put("AI", "AI");
+		new TileClicked().processEvent(gameState.getOut(), gameState, tileClickMessage);
+	}
+
+
+	static void endTurn(GameState gameState) {
+		ObjectNode endTurnMessage = Json.newObject();
+		endTurnMessage.put("messageType", "endTurnClicked");
+		endTurnMessage.put("AI", "AI");
+		new EndTurnClicked().processEvent(gameState.getOut(), gameState, endTurnMessage);
+	}
+}
@@ -0,0 +1,105 @@
+package ai;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The threads AI searches run on, shared by every game on the server rather than each game or
+ * search starting threads of its own, and a cap on how many searches may run at once. A search
+ * takes a permit with tryAcquire() before it starts and gives it back with release(); when none
+ * is left the caller should play a cheaper move than searching, rather than wait for one.
+ *
+ * The pool also bounds how long an MctsAI may think for a turn and how deep an AlphaBetaAI may
+ * search, whatever its client asked for.
+ *
+ * The pool is created by the GameHost and given to each game with GameState.setSearchPool().
+ * Games without one (tests, replays, the self-play runner) search on the calling thread.
+ *
+ */
+public class SearchPool {
+
+	private final ForkJoinPool pool;
+	private final Semaphore searches;
+	private final int threads;
+	private final long maxThinkingMillis;
+	private final int maxDepth;
+
+
+	/**
+	 * @param threads - number of threads searches share
+	 * @param maxSearches - number of searches which may run at once
+	 */
+	public SearchPool(int threads, int maxSearches) {
+		this(threads, maxSearches, MctsAI.MAX_TIME_BUDGET_MILLIS, AlphaBetaAI.MAX_DEPTH);
+	}
+
+
+	/**
+	 * @param threads - number of threads searches share
+	 * @param maxSearches - number of searches which may run at once
+	 * @param maxThinkingMillis - longest time budget an MctsAI searching on the pool may have for a turn
+	 * @param maxDepth - deepest an AlphaBetaAI searching on the pool may search
+	 */
+	public SearchPool(int threads, int maxSearches, long maxThinkingMillis, int maxDepth) {
+		this.pool = new ForkJoinPool(threads);
+		this.searches = new Semaphore(maxSearches);
+		this.threads = threads;
+		this.maxThinkingMillis = maxThinkingMillis;
+		this.maxDepth = maxDepth;
+	}
+
+
+	/**
+	 * Take a permit to run a search
+	 *
+	 * @return boolean - false if maxSearches searches are already running
+	 */
+	public boolean tryAcquire() {
+		return searches.tryAcquire();
+	}
+
+
+	/**
+	 * Give back the permit of a search which has finished
+	 */
+	public void release() {
+		searches.release();
+	}
+
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+
+	/**
+	 * @return int - number of threads searches share, which is also how many trees or subtrees are worth searching at once
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+
+	/**
+	 * @return long - longest time budget an MctsAI searching on the pool may have for a turn
+	 */
+	public long getMaxThinkingMillis() {
+		return maxThinkingMillis;
+	}
+
+
+	/**
+	 * @return int - deepest an AlphaBetaAI searching on the pool may search
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+
+	/**
+	 * Stop the pool's threads once the searches running on them have finished
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,97 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size hash table of search results, keyed by GameSnapshot.zobrist(). Each entry packs a
+ * value, the depth it was searched to, whether the value is exact or a bound, and the best move
+ * into one long.
+ *
+ * The table is shared by the threads of a search without locks: each slot stores the key XORed
+ * with the data beside the data itself, so an entry torn by two threads writing at once no longer
+ * matches its key and is read as a miss. A slot is always overwritten by the latest store.
+ *
+ */
+public final class TranspositionTable {
+
+	public static final int EXACT = 0;
+	public static final int LOWER = 1;  // value is a lower bound, the search failed high
+	public static final int UPPER = 2;  // value is an upper bound, the search failed low
+
+	/** returned by probe() when there is no entry */
+	public static final long MISS = 0L;
+	/** deepest depth an entry can record */
+	public static final int MAX_DEPTH = 0xFF;
+
+	private static final long VALID = 1L << 63;
+
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+
+
+	/**
+	 * @param sizeLog2 - the table holds 2^sizeLog2 entries of 16 bytes
+	 */
+	public TranspositionTable(int sizeLog2) {
+		keys = new long[1 << sizeLog2];
+		data = new long[1 << sizeLog2];
+		mask = (1 << sizeLog2) - 1;
+	}
+
+
+	/**
+	 * @param key - zobrist hash of the state
+	 * @return long - the entry's data, to be read with value(), depth(), flag() and move(), or MISS
+	 */
+	public long probe(long key) {
+		int i = (int) key & mask;
+		long d = data[i];
+		return ((keys[i] ^ d) == key) ? d : MISS;
+	}
+
+
+	/**
+	 * @param key - zobrist hash of the state
+	 * @param depth - remaining depth the state was searched to
+	 * @param flag - EXACT, LOWER or UPPER
+	 * @param value - the value found
+	 * @param move - the best move found, -1 if none
+	 */
+	public void store(long key, int depth, int flag, int value, int move) {
+		long d = VALID | ((long) (move & 0xFFFF) << 42) | ((long) flag << 40) | ((long) (depth & 0xFF) << 32) | (value & 0xFFFFFFFFL);
+		int i = (int) key & mask;
+		data[i] = d;
+		keys[i] = key ^ d;
+	}
+
+
+	public void clear() {
+		Arrays.fill(keys, 0L);
+		Arrays.fill(data, 0L);
+	}
+
+
+	public static int value(long data) {
+		return (int) data;
+	}
+
+
+	public static int depth(long data) {
+		return (int) (data >>> 32) & 0xFF;
+	}
+
+
+	public static int flag(long data) {
+		return (int) (data >>> 40) & 3;
+	}
+
+
+	/**
+	 * @return the best move stored, -1 if none
+	 */
+	public static int move(long data) {
+		int move = (int) (data >>> 42) & 0xFFFF;
+		return (move == 0xFFFF) ? -1 : move;
+	}
+}
@@ -0,0 +1,181 @@
+package ai;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * An Evaluator scoring a state as a weighted sum of features. Each feature is counted for player 0
+ * less the same for player 1:
+ *
+ *   avatarHealth - avatar health
+ *   material     - attack plus health of the units other than the avatar
+ *   tempo        - 1 for the player to move
+ *   cards        - cards in hand
+ *   threat       - attack of the units which could reach the enemy avatar on their owner's next turn,
+ *                  moving two tiles then attacking (ranged and flying units reach anywhere)
+ *   provoke      - enemy units held in place by the player's provoke units
+ *
+ * Weights are whole hundredths per unit of a feature, so a score is an int dot product. They can
+ * be read from a JSON file of feature names and weights (see load() and save()), such as the one
+ * simulation.EvaluationTuner fits from self-play; features missing from the file keep their
+ * default weight.
+ *
+ */
+public final class WeightedEvaluator implements Evaluator {
+
+	public static final String[] FEATURES = { "avatarHealth", "material", "tempo", "cards", "threat", "provoke" };
+
+	public static final int AVATAR_HEALTH = 0;
+	public static final int MATERIAL = 1;
+	public static final int TEMPO = 2;
+	public static final int CARDS = 3;
+	public static final int THREAT = 4;
+	public static final int PROVOKE = 5;
+
+	private static final int[] DEFAULT_WEIGHTS = { 100, 50, 0, 0, 0, 0 };
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private final int[] weights;
+
+
+	/**
+	 * @param weights - one per feature, in the order of FEATURES
+	 */
+	public WeightedEvaluator(int[] weights) {
+		if (weights.length != FEATURES.length) {
+			throw new IllegalArgumentException("Expected " + FEATURES.length + " weights, got " + weights.length);
+		}
+		this.weights = weights.clone();
+	}
+
+
+	/**
+	 * @return WeightedEvaluator - with the default weights
+	 */
+	public static WeightedEvaluator defaults() {
+		return new WeightedEvaluator(DEFAULT_WEIGHTS);
+	}
+
+
+	/**
+	 * Read weights from a file, falling back to the default weights if there is no such file
+	 *
+	 * @param file - path of a JSON object of feature names and weights
+	 * @return WeightedEvaluator
+	 */
+	public static WeightedEvaluator load(String file) {
+		int[] weights = DEFAULT_WEIGHTS.clone();
+		File f = new File(file);
+		if (!f.exists()) {
+			return new WeightedEvaluator(weights);
+		}
+		try {
+			JsonNode json = mapper.readTree(f);
+			for (int i = 0; i < FEATURES.length; i++) {
+				if (json.hasNonNull(FEATURES[i])) {
+					weights[i] = json.get(FEATURES[i]).asInt();
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("WeightedEvaluator: couldn't read " + file + ", using the default weights");
+			e.printStackTrace();
+		}
+		return new WeightedEvaluator(weights);
+	}
+
+
+	/**
+	 * Write the weights as load() reads them
+	 *
+	 * @param file - path to write to
+	 */
+	public void save(String file) throws IOException {
+		ObjectNode json = mapper.createObjectNode();
+		for (int i = 0; i < FEATURES.length; i++) {
+			json.put(FEATURES[i], weights[i]);
+		}
+		File f = new File(file);
+		if (f.getParentFile() != null) {
+			f.getParentFile().mkdirs();
+		}
+		mapper.writerWithDefaultPrettyPrinter().writeValue(f, json);
+	}
+
+
+	public int[] getWeights() {
+		return weights.clone();
+	}
+
+
+	@Override
+	public int score(GameSnapshot state) {
+		if (state.isOver()) {
+			return (state.getWinner() == 0) ? Evaluation.WIN : -Evaluation.WIN;
+		}
+		int[] features = features(state, new int[FEATURES.length]);
+		int score = 0;
+		for (int i = 0; i < features.length; i++) {
+			score += weights[i] * features[i];
+		}
+		return score;
+	}
+
+
+	/**
+	 * @param state - a state of an unfinished game
+	 * @param out - array of at least FEATURES.length to fill
+	 * @return int[] - out, holding each feature for player 0 less the same for player 1
+	 */
+	public static int[] features(GameSnapshot state, int[] out) {
+		out[AVATAR_HEALTH] = state.getHealth(0) - state.getHealth(1);
+		out[TEMPO] = (state.getCurrentPlayer() == 0) ? 1 : -1;
+		out[CARDS] = state.getHandSize(0) - state.getHandSize(1);
+
+		int material = 0;
+		int provoke = 0;
+		int threat = 0;
+		int avatarTile0 = state.getUnitTile(state.getAvatarSlot(0));
+		int avatarTile1 = state.getUnitTile(state.getAvatarSlot(1));
+		for (int slot = 0; slot < state.getUnitSlots(); slot++) {
+			int tile = state.getUnitTile(slot);
+			if (tile == GameSnapshot.NO_UNIT) {
+				continue;
+			}
+			int owner = state.getUnitOwner(slot);
+			int sign = (owner == 0) ? 1 : -1;
+			if (slot != state.getAvatarSlot(owner)) {
+				material += sign * (state.getUnitAttack(slot) + state.getUnitHealth(slot));
+			}
+			int abilities = state.getUnitAbilities(slot);
+			if ((abilities & Abilities.PROVOKE) != 0) {
+				provoke += sign * Long.bitCount(state.getAdjacent(tile) & state.getUnitMask(1 - owner));
+			}
+			if ((abilities & (Abilities.RANGED | Abilities.FLYING)) != 0 || reaches(state, tile, (owner == 0) ? avatarTile1 : avatarTile0)) {
+				threat += sign * state.getUnitAttack(slot);
+			}
+		}
+		out[MATERIAL] = material;
+		out[THREAT] = threat;
+		out[PROVOKE] = provoke;
+		return out;
+	}
+
+
+	/**
+	 * @return boolean - whether a unit on tile could attack target after a move of two tiles, ignoring what's in its way
+	 */
+	private static boolean reaches(GameSnapshot state, int tile, int target) {
+		if (target == GameSnapshot.NO_UNIT) {
+			return false;
+		}
+		int height = state.getHeight();
+		int dx = Math.abs(tile / height - target / height);
+		int dy = Math.abs(tile % height - target % height);
+		return dx <= 3 && dy <= 3 && dx + dy <= 4;
+	}
+}
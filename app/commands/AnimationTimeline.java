@@ -0,0 +1,174 @@
+package commands;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import akka.actor.ActorRef;
+import akka.actor.Cancellable;
+import akka.actor.Scheduler;
+import scala.concurrent.ExecutionContextExecutor;
+
+/**
+ * A per-game timeline that paces the commands sent to the front-end without blocking the thread
+ * running the game logic.
+ *
+ * Game logic runs straight through. Where it used to Thread.sleep() to let an animation play
+ * out it now calls BasicCommands.pause(), which only moves the timeline's cursor forward. Each
+ * command sent while the cursor is in the future is queued with the time it should be shown at,
+ * and the Akka scheduler sends the queued commands to the front-end once their time comes.
+ * Commands therefore reach the front-end in the same order and with the same spacing as before,
+ * while the actor's dispatcher thread is free to serve other games.
+ *
+ * The timeline is used from the game's actor and from scheduler threads, so all methods are synchronized.
+ *
+ */
+public class AnimationTimeline implements UiSink {
+
+	private final ActorRef out;
+	private final Scheduler scheduler;
+	private final ExecutionContextExecutor dispatcher;
+
+	// commands waiting to be sent, in the order they were issued (so also in order of time due)
+	private final ArrayDeque<Frame> frames = new ArrayDeque<Frame>();
+
+	// time (ms) at which the next command issued should be shown on the front-end
+	private long cursor = 0L;
+
+	// the scheduled wake up, and the time (ms) it will happen at
+	private Cancellable wakeUp = null;
+	private long wakeUpAt = Long.MAX_VALUE;
+
+	// run once every queued command has been sent and every pause has elapsed
+	private Runnable onIdle = null;
+
+
+	/**
+	 * A command and the time (ms) it should be sent at
+	 */
+	private static class Frame {
+		final long due;
+		final ObjectNode message;
+
+		Frame(long due, ObjectNode message) {
+			this.due = due;
+			this.message = message;
+		}
+	}
+
+
+	/**
+	 * @param out - the front-end the commands are sent to
+	 * @param scheduler - scheduler used to send queued commands when they are due
+	 * @param dispatcher - dispatcher the scheduled sends are run on
+	 */
+	public AnimationTimeline(ActorRef out, Scheduler scheduler, ExecutionContextExecutor dispatcher) {
+		this.out = out;
+		this.scheduler = scheduler;
+		this.dispatcher = dispatcher;
+	}
+
+
+	/**
+	 * Send a command at the current position of the cursor, immediately if nothing is still playing
+	 *
+	 * @param message - command to send
+	 */
+	@Override
+	public synchronized void send(ObjectNode message) {
+		long now = now();
+		if (frames.isEmpty() && cursor <= now) {
+			out.tell(message, out);
+			return;
+		}
+		Frame frame = new Frame(Math.max(cursor, now), message);
+		frames.add(frame);
+		scheduleWakeUp(frames.peek().due, now);
+	}
+
+
+	/**
+	 * Leave a gap before any commands sent after this, e.g. to let an animation finish
+	 *
+	 * @param millis - length of the gap in milliseconds
+	 */
+	@Override
+	public synchronized void pause(long millis) {
+		cursor = Math.max(cursor, now()) + millis;
+	}
+
+
+	/**
+	 * @return true while there are commands waiting to be sent or a pause has not yet elapsed
+	 */
+	public synchronized boolean isBusy() {
+		return !frames.isEmpty() || cursor > now();
+	}
+
+
+	/**
+	 * Run a callback once the timeline is no longer busy, replacing any callback already waiting.
+	 * The callback is run straight away if the timeline is idle.
+	 *
+	 * @param callback - callback to run
+	 */
+	public synchronized void whenIdle(Runnable callback) {
+		if (!isBusy()) {
+			callback.run();
+			return;
+		}
+		onIdle = callback;
+		long now = now();
+		scheduleWakeUp(frames.isEmpty() ? cursor : frames.peek().due, now);
+	}
+
+
+	/**
+	 * Send every command which is due, then schedule the next wake up (or run the idle callback)
+	 */
+	private synchronized void wake() {
+		wakeUp = null;
+		wakeUpAt = Long.MAX_VALUE;
+
+		long now = now();
+		while (!frames.isEmpty() && frames.peek().due <= now) {
+			out.tell(frames.poll().message, out);
+		}
+
+		if (!frames.isEmpty()) {
+			scheduleWakeUp(frames.peek().due, now);
+		} else if (onIdle != null) {
+			if (cursor > now) {
+				scheduleWakeUp(cursor, now);
+			} else {
+				Runnable callback = onIdle;
+				onIdle = null;
+				callback.run();
+			}
+		}
+	}
+
+
+	/**
+	 * Make sure a wake up will happen no later than the given time
+	 *
+	 * @param at - time (ms) to wake up at
+	 * @param now - current time (ms)
+	 */
+	private void scheduleWakeUp(long at, long now) {
+		if (wakeUp != null) {
+			if (wakeUpAt <= at) {
+				return;
+			}
+			wakeUp.cancel();
+		}
+		wakeUpAt = at;
+		wakeUp = scheduler.scheduleOnce(Duration.ofMillis(Math.max(0L, at - now)), this::wake, dispatcher);
+	}
+
+
+	private static long now() {
+		return System.nanoTime() / 1000000L;
+	}
+}
@@ -1,10 +1,13 @@
 package commands;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import akka.actor.ActorRef;
 import play.libs.Json;
+import structures.GameState;
 import structures.basic.Card;
 import structures.basic.EffectAnimation;
 import structures.basic.Player;
@@ -22,12 +25,56 @@ import structures.basic.UnitAnimationType;
  */
 public class BasicCommands {
 
-	private static ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to turn java objects to Strings
-	
 	// An alternative class with a 'tell' implementation can be given if writing unit tests
-	// and need to have a null ActorRef. This should be null during normal operation.
+	// and need to have a null ActorRef. This should be null during normal operation. Games with
+	// their own UiSink (see GameState) do not use it.
 	public static DummyTell altTell = null;
 	
+	// The UI sink of the game being processed on the current thread, if any. While one is bound, every command goes
+	// to the sink and pause() is handled by it (paced by an AnimationTimeline, or skipped when headless).
+	private static final ThreadLocal<UiSink> sink = new ThreadLocal<UiSink>();
+	
+	
+	/**
+	 * Binds a game's UI sink to the current thread, so that commands sent while processing one of its events
+	 * go to that sink. Returns the sink which was bound before, to be restored with bindSink() afterwards
+	 * (see GameState.withUiSink).
+	 * @param gameSink - sink to bind, or null to unbind
+	 * @return the previously bound sink, or null
+	 */
+	public static UiSink bindSink(UiSink gameSink) {
+		UiSink previous = sink.get();
+		if (gameSink!=null) sink.set(gameSink);
+		else sink.remove();
+		return previous;
+	}
+	
+	/**
+	 * Leaves a gap of the given length before any following commands are shown, e.g. to let an animation play out.
+	 * If no sink is bound to the current thread this falls back to sleeping.
+	 * @param millis
+	 */
+	public static void pause(long millis) {
+		UiSink gameSink = sink.get();
+		if (gameSink!=null) gameSink.pause(millis);
+		else {
+			try {Thread.sleep(millis);} catch (InterruptedException e) {e.printStackTrace();}
+		}
+	}
+	
+	/**
+	 * Sends a command to the game's sink if one is bound, otherwise to altTell if one has been given, otherwise
+	 * straight to the front-end
+	 * @param out
+	 * @param returnMessage
+	 */
+	private static void send(ActorRef out, ObjectNode returnMessage) {
+		UiSink gameSink = sink.get();
+		if (gameSink!=null) gameSink.send(returnMessage);
+		else if (altTell!=null) altTell.tell(returnMessage);
+		else out.tell(returnMessage, out);
+	}
+	
 	
 	/**
 	 * You can consider the contents of the user’s browser window a canvas that can be drawn upon. drawTile will draw 
@@ -38,15 +85,55 @@ public class BasicCommands {
 	 * @param tile
 	 * @param mode
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void drawTile(ActorRef out, Tile tile, int mode) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "drawTile");
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
+			returnMessage.set("tile", JsonWriters.writeTile(tile));
 			returnMessage.put("mode", mode);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			send(out, returnMessage);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Draws a batch of tiles in a single message, e.g. all the tiles whose highlighting has changed after a click.
+	 * Each entry in the tiles array holds a tile and the visualisation mode to draw it in, exactly as for drawTile.
+	 * @param out
+	 * @param tiles
+	 * @param modes - visualisation mode for the tile at the same index in tiles
+	 */
+	public static void drawTiles(ActorRef out, List<Tile> tiles, int[] modes) {
+		try {
+			ObjectNode returnMessage = Json.newObject();
+			returnMessage.put("messagetype", "drawTiles");
+			ArrayNode tileArray = returnMessage.putArray("tiles");
+			for (int i = 0; i < tiles.size(); i++) {
+				ObjectNode entry = tileArray.addObject();
+				entry.set("tile", JsonWriters.writeTile(tiles.get(i)));
+				entry.put("mode", modes[i]);
+			}
+			send(out, returnMessage);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Draws a whole game in a single message: every tile in its visualisation mode, every unit with its health and 
+	 * attack, both players' health and mana and the cards in the human player's hand. It stands for the drawTile, 
+	 * drawUnit, setUnitHealth, setUnitAttack, setPlayerHealth, setPlayerMana and drawCard commands which would 
+	 * otherwise draw the game piece by piece, e.g. when it starts or when a client reconnects to it.
+	 * @param out
+	 * @param gameState
+	 */
+	public static void drawGameState(ActorRef out, GameState gameState) {
+		try {
+			ObjectNode returnMessage = Json.newObject();
+			returnMessage.put("messagetype", "fullState");
+			returnMessage.setAll(JsonWriters.writeGameState(gameState));
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -60,15 +147,13 @@ public class BasicCommands {
 	 * @param unit
 	 * @param tile
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void drawUnit(ActorRef out, Unit unit, Tile tile) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "drawUnit");
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.set("tile", JsonWriters.writeTile(tile));
+			returnMessage.set("unit", JsonWriters.writeUnit(unit));
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -81,15 +166,13 @@ public class BasicCommands {
 	 * @param unit
 	 * @param attack
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void setUnitAttack(ActorRef out, Unit unit, int attack) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "setUnitAttack");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
+			returnMessage.set("unit", JsonWriters.writeUnit(unit));
 			returnMessage.put("attack", attack);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -102,15 +185,13 @@ public class BasicCommands {
 	 * @param unit
 	 * @param health
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void setUnitHealth(ActorRef out, Unit unit, int health) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "setUnitHealth");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
+			returnMessage.set("unit", JsonWriters.writeUnit(unit));
 			returnMessage.put("health", health);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -123,15 +204,13 @@ public class BasicCommands {
 	 * @param unit
 	 * @param tile
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void moveUnitToTile(ActorRef out, Unit unit, Tile tile) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "moveUnitToTile");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.set("unit", JsonWriters.writeUnit(unit));
+			returnMessage.set("tile", JsonWriters.writeTile(tile));
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -146,16 +225,14 @@ public class BasicCommands {
 	 * @param unit
 	 * @param tile
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void moveUnitToTile(ActorRef out, Unit unit, Tile tile, boolean yfirst) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "moveUnitToTile");
 			returnMessage.put("yfirst", yfirst);
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.set("unit", JsonWriters.writeUnit(unit));
+			returnMessage.set("tile", JsonWriters.writeTile(tile));
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -169,7 +246,6 @@ public class BasicCommands {
 	 * @param unit
 	 * @param animation
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void playUnitAnimation(ActorRef out, Unit unit, UnitAnimationType animationToPlay) {
 		try {
 			
@@ -177,10 +253,9 @@ public class BasicCommands {
 			
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "playUnitAnimation");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
+			returnMessage.set("unit", JsonWriters.writeUnit(unit));
 			returnMessage.put("animation", animationToPlay.toString());
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -192,14 +267,12 @@ public class BasicCommands {
 	 * @param out
 	 * @param unit
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void deleteUnit(ActorRef out, Unit unit) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "deleteUnit");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.set("unit", JsonWriters.writeUnit(unit));
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -212,14 +285,12 @@ public class BasicCommands {
 	 * @param out
 	 * @param player
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void setPlayer1Health(ActorRef out, Player player) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "setPlayer1Health");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.set("player", JsonWriters.writePlayer(player));
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -232,14 +303,12 @@ public class BasicCommands {
 	 * @param out
 	 * @param player
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void setPlayer2Health(ActorRef out, Player player) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "setPlayer2Health");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.set("player", JsonWriters.writePlayer(player));
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -252,14 +321,12 @@ public class BasicCommands {
 	 * @param out
 	 * @param player
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void setPlayer1Mana(ActorRef out, Player player) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "setPlayer1Mana");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.set("player", JsonWriters.writePlayer(player));
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -272,14 +339,12 @@ public class BasicCommands {
 	 * @param out
 	 * @param player
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void setPlayer2Mana(ActorRef out, Player player) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "setPlayer2Mana");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.set("player", JsonWriters.writePlayer(player));
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -294,16 +359,14 @@ public class BasicCommands {
 	 * @param position
 	 * @param mode
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void drawCard(ActorRef out, Card card, int position, int mode) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "drawCard");
-			returnMessage.put("card", mapper.readTree(mapper.writeValueAsString(card)));
+			returnMessage.set("card", JsonWriters.writeCard(card));
 			returnMessage.put("position", position);
 			returnMessage.put("mode", mode);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -319,8 +382,7 @@ public class BasicCommands {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "deleteCard");
 			returnMessage.put("position", position);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -333,15 +395,13 @@ public class BasicCommands {
 	 * @param effect
 	 * @param tile
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void playEffectAnimation(ActorRef out, EffectAnimation effect, Tile tile) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "playEffectAnimation");
-			returnMessage.put("effect", mapper.readTree(mapper.writeValueAsString(effect)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.set("effect", JsonWriters.writeEffect(effect));
+			returnMessage.set("tile", JsonWriters.writeTile(tile));
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -361,8 +421,7 @@ public class BasicCommands {
 			returnMessage.put("messagetype", "addPlayer1Notification");
 			returnMessage.put("text", text);
 			returnMessage.put("seconds", displayTimeSeconds);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -374,17 +433,15 @@ public class BasicCommands {
 	 * @param effect
 	 * @param tile
 	 */
-	@SuppressWarnings({"deprecation"})
 	public static void playProjectileAnimation(ActorRef out, EffectAnimation effect, int mode, Tile startTile, Tile targetTile) {
 		try {
 			ObjectNode returnMessage = Json.newObject();
 			returnMessage.put("messagetype", "drawProjectile");
-			returnMessage.put("effect", mapper.readTree(mapper.writeValueAsString(effect)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(startTile)));
-			returnMessage.put("targetTile", mapper.readTree(mapper.writeValueAsString(targetTile)));
-			returnMessage.put("mode", mapper.readTree(mapper.writeValueAsString(mode)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			returnMessage.set("effect", JsonWriters.writeEffect(effect));
+			returnMessage.set("tile", JsonWriters.writeTile(startTile));
+			returnMessage.set("targetTile", JsonWriters.writeTile(targetTile));
+			returnMessage.put("mode", mode);
+			send(out, returnMessage);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -0,0 +1,50 @@
+package commands;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * UI sink for games run without a front-end (simulations, self-play, load testing). Commands are
+ * dropped, or passed to a DummyTell if one is given (e.g. to check them in a test), and pauses
+ * return straight away, so a game runs as fast as its logic allows.
+ */
+public class HeadlessSink implements UiSink {
+
+	private final DummyTell listener;
+	private long commandsSent = 0;
+
+	
+	public HeadlessSink() {
+		this(null);
+	}
+
+	
+	/**
+	 * @param listener - receives every command sent, may be null
+	 */
+	public HeadlessSink(DummyTell listener) {
+		this.listener = listener;
+	}
+
+	
+	@Override
+	public void send(ObjectNode message) {
+		commandsSent++;
+		if (listener != null) {
+			listener.tell(message);
+		}
+	}
+
+	
+	@Override
+	public void pause(long millis) {
+		// no animations to wait for
+	}
+
+	
+	/**
+	 * @return the number of commands sent to this sink
+	 */
+	public long getCommandsSent() {
+		return commandsSent;
+	}
+}
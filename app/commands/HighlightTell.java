@@ -2,8 +2,11 @@ package commands;
 
 import java.util.ArrayList;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import play.libs.Json;
+
 public class HighlightTell implements DummyTell {
 	
 	ArrayList<ObjectNode> messages = new ArrayList<ObjectNode>();
@@ -18,6 +21,16 @@ public class HighlightTell implements DummyTell {
 			if (message.findValuesAsText("messagetype").get(0).equals("drawTile")) {
 				this.messages.add(message);
 			}
+			// batched highlight frames are split back into one drawTile message per tile
+			else if (message.get("messagetype").asText().equals("drawTiles")) {
+				for (JsonNode entry : message.get("tiles")) {
+					ObjectNode tileMessage = Json.newObject();
+					tileMessage.put("messagetype", "drawTile");
+					tileMessage.set("tile", entry.get("tile"));
+					tileMessage.set("mode", entry.get("mode"));
+					this.messages.add(tileMessage);
+				}
+			}
 		}
 	}
 
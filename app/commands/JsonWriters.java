@@ -0,0 +1,216 @@
+package commands;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import structures.GameState;
+import structures.basic.Board;
+import structures.basic.Card;
+import structures.basic.EffectAnimation;
+import structures.basic.Player;
+import structures.basic.Position;
+import structures.basic.Tile;
+import structures.basic.Unit;
+
+/**
+ * Hand-written writers that turn the game objects sent to the front-end straight into JsonNode trees,
+ * rather than writing each object to a String with Jackson and parsing it back again.
+ *
+ * Only the fields the front-end draws from are written, so server-side state reachable from
+ * the objects (e.g. a tile's board and unit, or a player's deck and hand) is no longer sent with
+ * every command. Nested beans that never change once loaded (animation sets, image corrections,
+ * mini/big cards) are converted with valueToTree on the shared mapper, which caches its
+ * serializer for each class after first use.
+ *
+ * Tiles and cards only send fields that are fixed once they are loaded, so the fragment written
+ * for them is kept on the object and reused by every later command (a setter on one of those
+ * fields clears it). Cached fragments are shared between messages, so they must not be modified.
+ *
+ */
+public class JsonWriters {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final JsonNodeFactory nodes = JsonNodeFactory.instance;
+
+
+	/**
+	 * @param tile - tile to write
+	 * @return ObjectNode - tileTextures, xpos, ypos, width, height, tilex and tiley of the tile
+	 */
+	public static ObjectNode writeTile(Tile tile) {
+		ObjectNode node = tile.getRenderJson();
+		if (node == null) {
+			node = buildTile(tile);
+			tile.setRenderJson(node);
+		}
+		return node;
+	}
+
+
+	private static ObjectNode buildTile(Tile tile) {
+		ObjectNode node = nodes.objectNode();
+		ArrayNode textures = node.putArray("tileTextures");
+		if (tile.getTileTextures() != null) {
+			for (String texture : tile.getTileTextures()) {
+				textures.add(texture);
+			}
+		}
+		node.put("xpos", tile.getXpos());
+		node.put("ypos", tile.getYpos());
+		node.put("width", tile.getWidth());
+		node.put("height", tile.getHeight());
+		node.put("tilex", tile.getTilex());
+		node.put("tiley", tile.getTiley());
+		return node;
+	}
+
+
+	/**
+	 * @param unit - unit to write
+	 * @return ObjectNode - id, animation, position, animations and correction of the unit along with its current stats
+	 */
+	public static ObjectNode writeUnit(Unit unit) {
+		ObjectNode node = nodes.objectNode();
+		node.put("id", unit.getId());
+		if (unit.getAnimation() != null) {
+			node.put("animation", unit.getAnimation().name());
+		} else {
+			node.putNull("animation");
+		}
+		node.set("position", writePosition(unit.getPosition()));
+		node.set("animations", mapper.valueToTree(unit.getAnimations()));
+		node.set("correction", mapper.valueToTree(unit.getCorrection()));
+		node.put("unitHealth", unit.getUnitHealth());
+		node.put("unitAttack", unit.getUnitAttack());
+		node.put("attacksRemaining", unit.getAttacksRemaining());
+		node.put("movesRemaining", unit.getMovesRemaining());
+		node.put("attacksPerTurn", unit.getAttacksPerTurn());
+		node.put("startingHealth", unit.getStartingHealth());
+		ArrayNode abilities = node.putArray("abilities");
+		if (unit.getAbilities() != null) {
+			for (String ability : unit.getAbilities()) {
+				abilities.add(ability);
+			}
+		}
+		node.put("avatar", unit.isAvatar());
+		return node;
+	}
+
+
+	/**
+	 * @param position - position to write, may be null for a unit not yet placed
+	 * @return ObjectNode - xpos, ypos, tilex and tiley of the position
+	 */
+	private static ObjectNode writePosition(Position position) {
+		if (position == null) {
+			return null;
+		}
+		ObjectNode node = nodes.objectNode();
+		node.put("xpos", position.getXpos());
+		node.put("ypos", position.getYpos());
+		node.put("tilex", position.getTilex());
+		node.put("tiley", position.getTiley());
+		return node;
+	}
+
+
+	/**
+	 * @param player - player to write
+	 * @return ObjectNode - turn number, health, mana and hand position of the player
+	 */
+	public static ObjectNode writePlayer(Player player) {
+		ObjectNode node = nodes.objectNode();
+		node.put("turnNumber", player.getTurnNumber());
+		node.put("health", player.getHealth());
+		node.put("mana", player.getMana());
+		node.put("position", player.getPosition());
+		return node;
+	}
+
+
+	/**
+	 * @param card - card to write
+	 * @return ObjectNode - id, name, mana cost, mini and big card of the card
+	 */
+	public static ObjectNode writeCard(Card card) {
+		ObjectNode node = card.getRenderJson();
+		if (node == null) {
+			node = buildCard(card);
+			card.setRenderJson(node);
+		}
+		return node;
+	}
+
+
+	private static ObjectNode buildCard(Card card) {
+		ObjectNode node = nodes.objectNode();
+		node.put("id", card.getId());
+		node.put("cardname", card.getCardname());
+		node.put("manacost", card.getManacost());
+		node.set("miniCard", mapper.valueToTree(card.getMiniCard()));
+		node.set("bigCard", mapper.valueToTree(card.getBigCard()));
+		node.put("unitCard", card.isUnitCard());
+		return node;
+	}
+
+
+	/**
+	 * @param gameState - game to write
+	 * @return ObjectNode - every tile with its mode, every unit with its tile, player1 and player2, the human player's
+	 * hand (each card with its position and mode) and the current player (1 or 2), in the shapes drawTiles, drawUnit,
+	 * setPlayer1Health and drawCard send them
+	 */
+	public static ObjectNode writeGameState(GameState gameState) {
+		Board board = gameState.getBoard();
+		Player human = gameState.getHumanPlayer();
+		ObjectNode node = nodes.objectNode();
+
+		ArrayNode tiles = node.putArray("tiles");
+		for (Tile tile : board.getTiles(board.getAllTilesMask())) {
+			ObjectNode entry = tiles.addObject();
+			entry.set("tile", writeTile(tile));
+			entry.put("mode", tile.getHighlighted());
+		}
+		ArrayNode units = node.putArray("units");
+		for (Unit unit : board.getUnits()) {
+			ObjectNode entry = units.addObject();
+			entry.set("tile", writeTile(board.getTile(unit.getPosition().getTilex(), unit.getPosition().getTiley())));
+			entry.set("unit", writeUnit(unit));
+		}
+
+		node.set("player1", writePlayer(human));
+		node.set("player2", writePlayer(gameState.getAIPlayer()));
+		ArrayNode hand = node.putArray("hand");
+		for (int i = 0; i < Player.HAND_SIZE; i++) {
+			Card card = human.getCard(i);
+			if (card != null) {
+				ObjectNode entry = hand.addObject();
+				entry.set("card", writeCard(card));
+				entry.put("position", i + 1);
+				entry.put("mode", (gameState.isCardSelected() && gameState.getClickedCard() == card) ? 1 : 0);
+			}
+		}
+		node.put("currentPlayer", (gameState.getCurrentPlayer() == human) ? 1 : 2);
+		return node;
+	}
+
+
+	/**
+	 * @param effect - effect animation to write
+	 * @return ObjectNode - animation textures, correction and fps of the effect
+	 */
+	public static ObjectNode writeEffect(EffectAnimation effect) {
+		ObjectNode node = nodes.objectNode();
+		ArrayNode textures = node.putArray("animationTextures");
+		if (effect.getAnimationTextures() != null) {
+			for (String texture : effect.getAnimationTextures()) {
+				textures.add(texture);
+			}
+		}
+		node.set("correction", mapper.valueToTree(effect.getCorrection()));
+		node.put("fps", effect.getFps());
+		return node;
+	}
+}
@@ -0,0 +1,27 @@
+package commands;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Where the commands of one game go. While a game's sink is bound to the thread processing one of its
+ * events (see GameState.withUiSink), BasicCommands sends every command through it, and waits for
+ * animations by calling its pause method rather than sleeping.
+ *
+ * AnimationTimeline is the sink for games played in a browser, HeadlessSink is the sink for games
+ * run without one.
+ */
+public interface UiSink {
+
+	/**
+	 * Send a command to the front-end
+	 * @param message
+	 */
+	public void send(ObjectNode message);
+	
+	/**
+	 * Leave a gap before the following commands, e.g. to let an animation play out
+	 * @param millis
+	 */
+	public void pause(long millis);
+	
+}
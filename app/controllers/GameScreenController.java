@@ -1,14 +1,17 @@
 package controllers;
 
+import java.util.concurrent.CompletableFuture;
+
 import javax.inject.Inject;
 
-import actors.GameActor;
+import actors.GameHost;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.actor.Props;
 import akka.stream.Materializer;
 import play.data.Form;
 import play.data.FormFactory;
+import play.libs.F;
 import play.libs.streams.ActorFlow;
 import play.mvc.Controller;
 import play.mvc.Http;
@@ -25,24 +28,32 @@ public class GameScreenController extends Controller {
 
 	private final ActorSystem actorSystem;
 	private final Materializer materializer;
+	private final GameHost gameHost;
 	Form<User> userForm = null;
 	
 	
 	@Inject
-	public GameScreenController(FormFactory formFactory, ActorSystem actorSystem, Materializer materializer) {
+	public GameScreenController(FormFactory formFactory, ActorSystem actorSystem, Materializer materializer, GameHost gameHost) {
 		this.actorSystem = actorSystem;
 		this.materializer = materializer;
+		this.gameHost = gameHost;
 		userForm = formFactory.form(User.class);
 	}
 
 	/**
-	 * This responds to the request for creation of the Websocket 
+	 * This responds to the request for creation of the Websocket. If the host is already running
+	 * its maximum number of games the connection is refused with 503 (server busy). The game's
+	 * place is only reserved once its GameActor has started.
 	 * @return
 	 */
 	public WebSocket socket() {
 
-		return WebSocket.Json.accept(
-				request -> ActorFlow.actorRef(this::createGameActor, actorSystem, materializer));
+		return WebSocket.Json.acceptOrResult(request -> {
+			if (!gameHost.hasRoom()) {
+				return CompletableFuture.completedFuture(F.Either.Left(status(SERVICE_UNAVAILABLE, "Server busy, too many games running. Please try again later.")));
+			}
+			return CompletableFuture.completedFuture(F.Either.Right(ActorFlow.actorRef(this::createGameActor, actorSystem, materializer)));
+		});
 	}
 
 	/**
@@ -54,7 +65,15 @@ public class GameScreenController extends Controller {
 		return ok(views.html.gamescreen.render(request, null));
 	}
 	
+	/**
+	 * Host wide and per-game metrics for the games running on this node
+	 * @return
+	 */
+	public Result metrics() {
+		return ok(gameHost.metricsToJson());
+	}
+	
 	public Props createGameActor(ActorRef out) {
-		return Props.create(GameActor.class, out); // calls the constructor for Game Actor
+		return gameHost.gameActorProps(out); // calls the constructor for Game Actor, on the game dispatcher
 	}
 }
\ No newline at end of file
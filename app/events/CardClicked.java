@@ -7,6 +7,7 @@ import commands.BasicCommands;
 import structures.GameState;
 import structures.basic.Board;
 import structures.basic.Card;
+import structures.basic.LegalMoves;
 import structures.basic.Player;
 
 /**
@@ -25,62 +26,50 @@ import structures.basic.Player;
 public class CardClicked implements EventProcessor {
 	@Override
 	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
+		gameState.logEvent("cardclicked", message);
 
 		if (gameState.isGameOver()) {
 			return;
 		} 
 		else if (gameState.isUiClickable() || message.hasNonNull("AI")) {		
-		
-			// establish identity of clicked card
-			int handPosition = message.get("position").asInt();
-			Player player = gameState.getCurrentPlayer();
-			Player enemy = gameState.getOtherPlayer();
-			Card clickedCard = player.getCard(handPosition - 1);
-			String cardName = clickedCard.getCardname();
-			Board board = gameState.getBoard();
+
+			// collect all highlighting changes from this click and send them to the front-end as one frame
+			gameState.getBoard().beginHighlightFrame();
+			try {
+				// establish identity of clicked card
+				int handPosition = message.get("position").asInt();
+				Player player = gameState.getCurrentPlayer();
+				Player enemy = gameState.getOtherPlayer();
+				Card clickedCard = player.getCard(handPosition - 1);
+				Board board = gameState.getBoard();
 			
-			// if a different card was previously selected 
-			if(gameState.isCardSelected() && gameState.getClickedCard()!=clickedCard) {
-				// de-highlight previously selected card
-				BasicCommands.drawCard(out, gameState.getClickedCard(), gameState.getCardPosition(), 0);
-				// de-highlight previously highlighted tiles
-				board.highlightAll(0);
-			}
+				// if a different card was previously selected 
+				if(gameState.isCardSelected() && gameState.getClickedCard()!=clickedCard) {
+					// de-highlight previously selected card
+					BasicCommands.drawCard(out, gameState.getClickedCard(), gameState.getCardPosition(), 0);
+					// de-highlight previously highlighted tiles
+					board.highlightAll(0);
+				}
 			
-			// handle case where a unit has been clicked, but no action taken immediately prior to card being clicked
-			if (gameState.isUnitSelected()) {
-				gameState.setUnitSelected(false);
-				gameState.setClickedUnit(null);
-				board.highlightAll(0);
-			}
+				// handle case where a unit has been clicked, but no action taken immediately prior to card being clicked
+				if (gameState.isUnitSelected()) {
+					gameState.setUnitSelected(false);
+					gameState.setClickedUnit(null);
+					board.highlightAll(0);
+				}
 			
-			// update gameState so that future events can be interpreted
-			gameState.setCardSelected(true);
-			gameState.setClickedCard(clickedCard);
-			gameState.setCardPosition(handPosition);
+				// update gameState so that future events can be interpreted
+				gameState.setCardSelected(true);
+				gameState.setClickedCard(clickedCard);
+				gameState.setCardPosition(handPosition);
 			
-			// highlight the selected card on the UI
-			BasicCommands.drawCard(out, clickedCard, handPosition, 1);
+				// highlight the selected card on the UI
+				BasicCommands.drawCard(out, clickedCard, handPosition, 1);
 		
-			// highlight where spell cards can be played and unit cards summoned		
-			if (cardName.equals("Truestrike")) {
-				// truestrike
-				board.highlightUnits(enemy, true, 2);
-			} else if (cardName.equals("Sundrop Elixir")) {
-				// sundrop elixir
-				board.highlightUnits(player, true, 2);
-			} else if (cardName.equals("Staff of Y'Kir'")) {
-				// staff of y'kir
-				board.highlightAvatar(player, 2);
-			} else if (cardName.equals("Entropic Decay")) {
-				// entropic decay
-				board.highlightUnits(enemy, false, 2);
-			} else if (cardName.equals("Ironcliff Guardian") || cardName.equals("Planar Scout") ) {
-				// ironcliff guardian or planar scout - can be summoned anywhere
-				board.highlightEmpty(2);
-			} else {
-				// other units - can only be summoned to tile adjacent to a friendly unit
-				board.highlightSummonLocations(player, 2);
+				// highlight where spell cards can be played and unit cards summoned
+				board.highlightMask(LegalMoves.cardTargets(board, player, enemy, clickedCard), 2);
+			} finally {
+				gameState.getBoard().flushHighlightFrame();
 			}
 		}
 	}
@@ -19,6 +19,7 @@ public class EndTurnClicked implements EventProcessor {
 
 	@Override
 	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
+		gameState.logEvent("endturnclicked", message);
 		if (gameState.isGameOver()) {
 			return;
 		} 
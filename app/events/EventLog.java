@@ -0,0 +1,362 @@
+package events;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import play.libs.Json;
+
+/**
+ * An append-only binary log of the events a game processed, from which the game can be replayed
+ * (see simulation.GameReplayer). Events are logged by their processors as they start, so clicks
+ * the AI makes while another event is being processed are logged in the order they happen. The
+ * initalize record holds the order both decks were dealt in, as indexes into the decks
+ * OrderedCardLoader loads, which with the clicks is all a replay needs.
+ *
+ * A log is the magic number and version, then one record per event:
+ *
+ *   type          - 1 byte, one of the record types below, or'd with FROM_AI for the AI's clicks
+ *   millis        - varint, milliseconds since the previous record
+ *   payload       - initalize: for each deck its size then one index per card, 1 byte each, then
+ *                                the AI opponent (1 byte, see AI_NAMES) and its setting (varint)
+ *                   tile clicked: x and y, 1 byte each
+ *                   card clicked: hand position, 1 byte
+ *                   end turn and other clicked: nothing
+ *
+ * so a whole game is usually a few kilobytes. A log is written by the thread processing its game's
+ * events only, and write errors are reported once and then stop the log rather than the game.
+ *
+ */
+public class EventLog {
+
+	public static final int MAGIC = 0x474C4F47; // "GLOG"
+	public static final int VERSION = 2; // version 1 logs have no AI opponent in their initalize record
+
+	public static final int INITALIZE = 1;
+	public static final int TILE_CLICKED = 2;
+	public static final int CARD_CLICKED = 3;
+	public static final int END_TURN_CLICKED = 4;
+	public static final int OTHER_CLICKED = 5;
+
+	public static final int FROM_AI = 0x80;
+
+	private static final String[] MESSAGE_TYPES = { null, "initalize", "tileclicked", "cardclicked", "endturnclicked", "otherclicked" };
+
+	// the AI opponents Initalize can choose, and the field of the initalize message holding each one's setting
+	private static final String[] AI_NAMES = { "rules", "mcts", "alphabeta" };
+	private static final String[] AI_SETTINGS = { null, "aiThinkingMillis", "aiDepth" };
+
+	private final DataOutputStream out;
+	private long lastMillis;
+	private boolean failed = false;
+
+
+	/**
+	 * Start a log, writing its header
+	 *
+	 * @param stream - where records are written, buffered by the log
+	 */
+	public EventLog(OutputStream stream) throws IOException {
+		this(stream, null);
+	}
+
+
+	/**
+	 * Continue a log, e.g. of a game recovered from its journal (see GameJournal)
+	 *
+	 * @param stream - where records are written, buffered by the log
+	 * @param log - the log so far, header included, written to stream first, or null to start a new log
+	 */
+	public EventLog(OutputStream stream, byte[] log) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(stream));
+		this.lastMillis = System.currentTimeMillis();
+		if (log == null) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+		} else {
+			out.write(log);
+		}
+	}
+
+
+	/**
+	 * Log the start of a game
+	 *
+	 * @param deckOrders - for each player, the index in OrderedCardLoader's deck of each card of their deck in order
+	 * @param message - the initalize message, whose choice of AI opponent is logged
+	 */
+	public void initalized(int[][] deckOrders, JsonNode message) {
+		try {
+			begin(INITALIZE);
+			for (int[] order : deckOrders) {
+				out.writeByte(order.length);
+				for (int index : order) {
+					out.writeByte(index);
+				}
+			}
+			int ai = 0;
+			for (int i = 1; i < AI_NAMES.length; i++) {
+				if (AI_NAMES[i].equals(message.path("ai").asText())) {
+					ai = i;
+				}
+			}
+			out.writeByte(ai);
+			writeVarint((ai > 0 && message.hasNonNull(AI_SETTINGS[ai])) ? message.get(AI_SETTINGS[ai]).asLong() + 1 : 0);
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+
+	/**
+	 * Log a click, messages of other types are not logged as they do not change the game
+	 *
+	 * @param messageType - the lower case message type, as GameActor dispatches on
+	 * @param message - the message, clicks made by the AI carry an "AI" field
+	 */
+	public void record(String messageType, JsonNode message) {
+		int type = typeOf(messageType);
+		if (type == 0 || type == INITALIZE) {
+			return;
+		}
+		try {
+			begin(message.hasNonNull("AI") ? (type | FROM_AI) : type);
+			if (type == TILE_CLICKED) {
+				out.writeByte(message.get("tilex").asInt());
+				out.writeByte(message.get("tiley").asInt());
+			} else if (type == CARD_CLICKED) {
+				out.writeByte(message.get("position").asInt());
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+
+	/**
+	 * Write out the records logged so far
+	 */
+	public void flush() {
+		try {
+			if (!failed) {
+				out.flush();
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+
+	public void close() {
+		try {
+			out.close();
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+
+	private void begin(int type) throws IOException {
+		if (failed) {
+			throw new IOException("Event log stopped by an earlier error");
+		}
+		long now = System.currentTimeMillis();
+		out.writeByte(type);
+		writeVarint(Math.max(0L, now - lastMillis));
+		lastMillis = now;
+	}
+
+
+	private void fail(IOException e) {
+		if (!failed) {
+			failed = true;
+			System.err.println("EventLog: couldn't write the event log, no more events will be logged");
+			e.printStackTrace();
+		}
+	}
+
+
+	private void writeVarint(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+
+	private static int typeOf(String messageType) {
+		for (int type = 1; type < MESSAGE_TYPES.length; type++) {
+			if (MESSAGE_TYPES[type].equalsIgnoreCase(messageType)) {
+				return type;
+			}
+		}
+		return 0;
+	}
+
+
+	/**
+	 * Read every record of a log. A record cut short at the end, e.g. by the server stopping, is dropped.
+	 *
+	 * @param stream - a log, read to its end
+	 * @return List<Event> - its records in order
+	 */
+	public static List<Event> read(InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not an event log");
+		}
+		int version = in.readUnsignedByte();
+		if (version < 1 || version > VERSION) {
+			throw new IOException("Unsupported event log version " + version);
+		}
+
+		List<Event> events = new ArrayList<Event>();
+		long millis = 0;
+		try {
+			while (true) {
+				int header = in.read();
+				if (header < 0) {
+					break;
+				}
+				int type = header & ~FROM_AI;
+				if (type < 1 || type >= MESSAGE_TYPES.length) {
+					throw new IOException("Unknown event type " + type + " after " + events.size() + " events");
+				}
+				millis += readVarint(in);
+				Event event = new Event(type, (header & FROM_AI) != 0, millis);
+				if (type == INITALIZE) {
+					event.deckOrders = new int[2][];
+					for (int player = 0; player < 2; player++) {
+						event.deckOrders[player] = new int[in.readUnsignedByte()];
+						for (int i = 0; i < event.deckOrders[player].length; i++) {
+							event.deckOrders[player][i] = in.readUnsignedByte();
+						}
+					}
+					if (version >= 2) {
+						event.ai = in.readUnsignedByte();
+						event.aiSetting = readVarint(in) - 1;
+					}
+				} else if (type == TILE_CLICKED) {
+					event.x = in.readUnsignedByte();
+					event.y = in.readUnsignedByte();
+				} else if (type == CARD_CLICKED) {
+					event.position = in.readUnsignedByte();
+				}
+				events.add(event);
+			}
+		} catch (EOFException e) {
+			// the last record was cut short
+		}
+		return events;
+	}
+
+
+	/**
+	 * @param file - path of a log
+	 * @return List<Event> - its records in order
+	 */
+	public static List<Event> read(String file) throws IOException {
+		try (InputStream stream = new FileInputStream(file)) {
+			return read(stream);
+		}
+	}
+
+
+	private static long readVarint(DataInputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+
+
+	/**
+	 * A record read back from a log
+	 */
+	public static final class Event {
+
+		private final int type;
+		private final boolean fromAI;
+		private final long millis;
+		private int x, y, position;
+		private int[][] deckOrders;
+		private int ai;
+		private long aiSetting = -1; // -1 for the AI's default
+
+		private Event(int type, boolean fromAI, long millis) {
+			this.type = type;
+			this.fromAI = fromAI;
+			this.millis = millis;
+		}
+
+		public int getType() {
+			return type;
+		}
+
+		public String getMessageType() {
+			return MESSAGE_TYPES[type];
+		}
+
+		public boolean isFromAI() {
+			return fromAI;
+		}
+
+		/**
+		 * @return long - milliseconds since the log started
+		 */
+		public long getMillis() {
+			return millis;
+		}
+
+		/**
+		 * @return int[][] - the deck orders of an initalize record, null for other records
+		 */
+		public int[][] getDeckOrders() {
+			return deckOrders;
+		}
+
+		/**
+		 * @return ObjectNode - the message the event was logged from, as its processor reads it
+		 */
+		public ObjectNode toMessage() {
+			ObjectNode message = Json.newObject();
+			message.put("messagetype", getMessageType());
+			if (type == INITALIZE && ai > 0) {
+				message.put("ai", AI_NAMES[ai]);
+				if (aiSetting >= 0) {
+					message.put(AI_SETTINGS[ai], aiSetting);
+				}
+			} else if (type == TILE_CLICKED) {
+				message.put("tilex", x);
+				message.put("tiley", y);
+			} else if (type == CARD_CLICKED) {
+				message.put("position", position);
+			}
+			if (fromAI) {
+				message.put("AI", "AI");
+			}
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return millis + "ms " + toMessage();
+		}
+	}
+}
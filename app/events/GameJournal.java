@@ -0,0 +1,297 @@
+package events;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A per-game journal, kept in a fixed size memory-mapped file so a game survives the JVM stopping:
+ * writes to the map are in the operating system's page cache as soon as they are made, without a
+ * system call. It is the stream an EventLog writes to, so what it holds is the game's event log,
+ * from which the game can be rebuilt by replaying it (see recover() and simulation.GameReplayer).
+ *
+ * Each flush() appends the records logged since the last one to a ring as an entry. Every
+ * CHECKPOINT_INTERVAL entries, and before the ring would wrap onto the last checkpoint, the whole
+ * log journalled so far is first written again as a checkpoint entry and the header is pointed at
+ * it. Room for that checkpoint is always kept free, so the last checkpoint is never overwritten.
+ * A game's whole log is a few kilobytes, so checkpoints are small, and recovery only ever needs
+ * the last checkpoint and the entries after it.
+ *
+ * The file is a header then the ring:
+ *
+ *   header - magic, version, ring capacity, offset of the last checkpoint (4 byte ints)
+ *   entry  - payload length (int, WRAP if the ring continues from its start), sequence number (int),
+ *            kind (byte), payload, CRC32 of the sequence number, kind and payload (int)
+ *
+ * Entries are checked by their CRC and sequence numbers when recovering, so one cut short by the
+ * JVM stopping part way through writing it ends the journal. Like EventLog, a journal is written by
+ * the thread processing its game's events only.
+ *
+ */
+public class GameJournal extends OutputStream {
+
+	public static final int MAGIC = 0x474A4E4C; // "GJNL"
+	public static final int VERSION = 1;
+
+	public static final int DEFAULT_CAPACITY = 64 * 1024;
+	public static final int CHECKPOINT_INTERVAL = 64;
+
+	private static final int HEADER_SIZE = 16;
+	private static final int CHECKPOINT_OFFSET = 12;
+	private static final int ENTRY_OVERHEAD = 13;
+	private static final int WRAP = -1;
+
+	private static final byte EVENTS = 1;
+	private static final byte CHECKPOINT = 2;
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final MappedByteBuffer ring;
+	private final int capacity;
+	private final CRC32 crc = new CRC32();
+
+	private byte[] log = new byte[1024]; // the whole event log so far
+	private int logSize = 0;
+	private int journalled = 0; // bytes of the log already in the ring
+
+	private int position = HEADER_SIZE; // where the next entry goes
+	private int sequence = 0;
+	private int sinceCheckpoint = 0; // ring bytes used from the start of the last checkpoint
+	private int entriesSinceCheckpoint = 0;
+	private boolean failed = false;
+
+
+	/**
+	 * Create a journal, replacing any file already at its path
+	 *
+	 * @param file - the journal's file, its folders are created if needed
+	 * @param capacity - size of the file in bytes
+	 */
+	public GameJournal(File file, int capacity) throws IOException {
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		this.file = file;
+		this.capacity = capacity;
+		this.raf = new RandomAccessFile(file, "rw");
+		raf.setLength(0);
+		raf.setLength(capacity);
+		this.ring = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		ring.putInt(0, MAGIC);
+		ring.putInt(4, VERSION);
+		ring.putInt(8, capacity);
+		ring.putInt(CHECKPOINT_OFFSET, 0);
+	}
+
+
+	public File getFile() {
+		return file;
+	}
+
+
+	@Override
+	public void write(int b) {
+		ensureLog(1);
+		log[logSize++] = (byte) b;
+	}
+
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) {
+		ensureLog(length);
+		System.arraycopy(bytes, offset, log, logSize, length);
+		logSize += length;
+	}
+
+
+	/**
+	 * Journal what has been logged since the last flush, after a checkpoint if one is due
+	 */
+	@Override
+	public void flush() {
+		if (failed || journalled == logSize) {
+			return;
+		}
+		if (entriesSinceCheckpoint == 0) {
+			checkpoint(logSize);
+			journalled = logSize;
+			return;
+		}
+		int size = ENTRY_OVERHEAD + (logSize - journalled);
+		if (entriesSinceCheckpoint >= CHECKPOINT_INTERVAL || !fits(size)) {
+			// the room for a checkpoint of what is already journalled was kept free by the last flush
+			checkpoint(journalled);
+			if (!fits(size)) {
+				failed = true;
+				System.err.println("GameJournal: the log of " + logSize + " bytes no longer fits " + file + ", no more events will be journalled");
+				return;
+			}
+		}
+		append(EVENTS, log, journalled, logSize - journalled);
+		entriesSinceCheckpoint++;
+		journalled = logSize;
+	}
+
+
+	/**
+	 * Close the journal's file, leaving it in place to be recovered from
+	 */
+	@Override
+	public void close() {
+		flush();
+		try {
+			raf.close();
+		} catch (IOException e) {
+			System.err.println("GameJournal: couldn't close " + file);
+			e.printStackTrace();
+		}
+	}
+
+
+	/**
+	 * Close the journal and delete its file, once its game no longer needs recovering
+	 */
+	public void delete() {
+		failed = true;
+		close();
+		file.delete();
+	}
+
+
+	/**
+	 * Write the first length bytes of the log as a checkpoint, and point the header at it
+	 */
+	private void checkpoint(int length) {
+		int start = append(CHECKPOINT, log, 0, length);
+		ring.putInt(CHECKPOINT_OFFSET, start);
+		sinceCheckpoint = ENTRY_OVERHEAD + length;
+		entriesSinceCheckpoint = 1;
+	}
+
+
+	/**
+	 * @return boolean - whether an entry of size bytes can be appended while leaving room, without overwriting the
+	 * last checkpoint, to write a checkpoint of the whole log after it
+	 */
+	private boolean fits(int size) {
+		int checkpoint = ENTRY_OVERHEAD + logSize;
+		// any entry may have to skip the end of the ring, wasting less than its own size
+		return sinceCheckpoint + 2 * size + 2 * checkpoint <= capacity - HEADER_SIZE;
+	}
+
+
+	/**
+	 * @return int - the offset the entry was written at
+	 */
+	private int append(byte kind, byte[] payload, int offset, int length) {
+		int size = ENTRY_OVERHEAD + length;
+		if (position + size > capacity) {
+			if (position + 4 <= capacity) {
+				ring.putInt(position, WRAP);
+			}
+			sinceCheckpoint += capacity - position;
+			position = HEADER_SIZE;
+		}
+		int start = position;
+		sequence++;
+		crc.reset();
+		crc.update(sequence >>> 24);
+		crc.update(sequence >>> 16);
+		crc.update(sequence >>> 8);
+		crc.update(sequence);
+		crc.update(kind);
+		crc.update(payload, offset, length);
+
+		ring.position(start);
+		ring.putInt(length);
+		ring.putInt(sequence);
+		ring.put(kind);
+		ring.put(payload, offset, length);
+		ring.putInt((int) crc.getValue());
+		position += size;
+		sinceCheckpoint += size;
+		return start;
+	}
+
+
+	private void ensureLog(int length) {
+		if (logSize + length > log.length) {
+			log = Arrays.copyOf(log, Math.max(log.length * 2, logSize + length));
+		}
+	}
+
+
+	/**
+	 * Read back the event log held by a journal: its last checkpoint and the entries after it
+	 *
+	 * @param file - a journal's file
+	 * @return byte[] - the event log, to be read with EventLog.read(), or null if the journal holds no checkpoint
+	 */
+	public static byte[] recover(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			MappedByteBuffer ring = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			if (raf.length() < HEADER_SIZE || ring.getInt(0) != MAGIC) {
+				throw new IOException(file + " is not a game journal");
+			}
+			if (ring.getInt(4) != VERSION) {
+				throw new IOException("Unsupported game journal version " + ring.getInt(4));
+			}
+			int capacity = ring.getInt(8);
+			int position = ring.getInt(CHECKPOINT_OFFSET);
+			if (position < HEADER_SIZE || capacity > raf.length()) {
+				return null;
+			}
+
+			byte[] log = null;
+			int logSize = 0;
+			int sequence = 0;
+			CRC32 crc = new CRC32();
+			while (true) {
+				if (position + 4 <= capacity && ring.getInt(position) == WRAP) {
+					position = HEADER_SIZE;
+				}
+				if (position + ENTRY_OVERHEAD > capacity) {
+					position = HEADER_SIZE;
+				}
+				int length = ring.getInt(position);
+				if (length < 0 || position + ENTRY_OVERHEAD + length > capacity) {
+					break;
+				}
+				int entrySequence = ring.getInt(position + 4);
+				byte kind = ring.get(position + 8);
+				if ((log == null) ? kind != CHECKPOINT : (kind != EVENTS || entrySequence != sequence + 1)) {
+					break;
+				}
+				byte[] payload = new byte[length];
+				ring.position(position + 9);
+				ring.get(payload);
+				crc.reset();
+				crc.update(entrySequence >>> 24);
+				crc.update(entrySequence >>> 16);
+				crc.update(entrySequence >>> 8);
+				crc.update(entrySequence);
+				crc.update(kind);
+				crc.update(payload);
+				if (ring.getInt(position + 9 + length) != (int) crc.getValue()) {
+					break;
+				}
+
+				if (log == null) {
+					log = new byte[Math.max(1024, length * 2)];
+				} else if (logSize + length > log.length) {
+					log = Arrays.copyOf(log, Math.max(log.length * 2, logSize + length));
+				}
+				System.arraycopy(payload, 0, log, logSize, length);
+				logSize += length;
+				sequence = entrySequence;
+				position += ENTRY_OVERHEAD + length;
+			}
+			return (log == null) ? null : Arrays.copyOf(log, logSize);
+		}
+	}
+}
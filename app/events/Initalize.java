@@ -1,9 +1,19 @@
 package events;
 
 import java.util.ArrayList;
+import java.util.Collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import ai.AlphaBetaAI;
+import ai.MctsAI;
+import ai.SearchPool;
 import akka.actor.ActorRef;
+import commands.BasicCommands;
+import commands.HeadlessSink;
+import commands.UiSink;
 import structures.GameState;
 import structures.basic.Board;
 import structures.basic.Card;
@@ -19,10 +29,24 @@ import utils.StaticConfFiles;
  * 
  * Also responsible for creating the gameboard, both players and their avatars,
  * as well as loading each player's deck object and then drawing three cards for each player.
- * Also sets various starting gameState. 
+ * Also sets various starting gameState. The dealt game is drawn in one fullState message
+ * rather than piece by piece as it is built.
+ * 
+ * The message can choose the AI opponent for this game: "mcts" for MctsAI with an optional
+ * thinking time per turn, "alphabeta" for AlphaBetaAI with an optional search depth, otherwise
+ * the rule-based AILogic is used. The thinking time is cut to the most the game's search pool
+ * allows (MctsAI.MAX_TIME_BUDGET_MILLIS without a pool), and the default is used instead of a
+ * time which isn't more than 0. Likewise the depth is cut to the pool's maximum (AlphaBetaAI.MAX_DEPTH
+ * without a pool), and the default is used instead of a depth less than 1.
+ * 
+ * The decks are dealt in the game state's deck orders if it has them (when replaying a logged
+ * game), otherwise shuffled with its deck shuffle if it has one, otherwise in the order loaded.
  * 
  * { 
  *   messageType = “initalize”
+ *   ai = “mcts” (optional)
+ *   aiThinkingMillis = <thinking time per AI turn> (optional)
+ *   aiDepth = <moves the AI looks ahead> (optional)
  * }
  * 
  * @author Dr. Richard McCreadie
@@ -30,9 +54,59 @@ import utils.StaticConfFiles;
  */
 public class Initalize implements EventProcessor{
 
+	private static final Logger logger = LoggerFactory.getLogger(Initalize.class);
+
 	@Override
 	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
 		
+		// nothing is drawn while the game is dealt and its first turn begun, the client is sent it whole afterwards
+		UiSink sink = BasicCommands.bindSink(new HeadlessSink());
+		int[][] deckOrders;
+		try {
+			deckOrders = deal(out, gameState);
+			gameState.getHumanPlayer().startTurn();
+		} finally {
+			BasicCommands.bindSink(sink);
+		}
+		gameState.redraw();
+		BasicCommands.addPlayer1Notification(out, "Player's Turn", 2);
+		
+		// choose the AI opponent
+		String ai = message.hasNonNull("ai") ? message.get("ai").asText() : "";
+		if (ai.equals("mcts")) {
+			long thinkingMillis = message.hasNonNull("aiThinkingMillis") ? message.get("aiThinkingMillis").asLong() : MctsAI.DEFAULT_TIME_BUDGET_MILLIS;
+			if (thinkingMillis <= 0) {
+				thinkingMillis = MctsAI.DEFAULT_TIME_BUDGET_MILLIS;
+			}
+			SearchPool pool = gameState.getSearchPool();
+			thinkingMillis = Math.min(thinkingMillis, (pool != null) ? pool.getMaxThinkingMillis() : MctsAI.MAX_TIME_BUDGET_MILLIS);
+			logger.info("MCTS AI thinking for {} ms a turn", thinkingMillis);
+			gameState.setAiPlayer(new MctsAI(thinkingMillis, System.nanoTime()));
+		} else if (ai.equals("alphabeta")) {
+			int depth = message.hasNonNull("aiDepth") ? message.get("aiDepth").asInt() : AlphaBetaAI.DEFAULT_DEPTH;
+			if (depth < 1) {
+				depth = AlphaBetaAI.DEFAULT_DEPTH;
+			}
+			SearchPool pool = gameState.getSearchPool();
+			depth = Math.min(depth, (pool != null) ? pool.getMaxDepth() : AlphaBetaAI.MAX_DEPTH);
+			logger.info("Alpha-beta AI searching {} moves deep", depth);
+			gameState.setAiPlayer(new AlphaBetaAI(depth));
+		}
+		
+		// log the order the decks were dealt in, which with the clicks that follow is enough to replay the game
+		if (gameState.getEventLog() != null) {
+			gameState.getEventLog().initalized(deckOrders, message);
+		}
+	}
+	
+	
+	/**
+	 * Create the board, both players and their avatars, deal their decks and draw their first cards
+	 * 
+	 * @return int[][] - the index in each player's deck as loaded of each of its cards, in the order they are dealt
+	 */
+	private static int[][] deal(ActorRef out, GameState gameState) {
+		
 		// create board
 		Board board = new Board(out, 9, 5);
 		gameState.setBoard(board);
@@ -48,6 +122,24 @@ public class Initalize implements EventProcessor{
 		// build decks in correct order
 		ArrayList<Card> cardsPlayer1 = (ArrayList<Card>) OrderedCardLoader.getPlayer1Cards();
 		ArrayList<Card> cardsPlayer2 = (ArrayList<Card>) OrderedCardLoader.getPlayer2Cards();
+		
+		// give each card an ID unique to this game, the loaders number every deck the same way
+		for (Card card : cardsPlayer1) {
+			card.setId(gameState.nextId());
+		}
+		for (Card card : cardsPlayer2) {
+			card.setId(gameState.nextId());
+		}
+		ArrayList<Card> loadedPlayer1 = new ArrayList<Card>(cardsPlayer1);
+		ArrayList<Card> loadedPlayer2 = new ArrayList<Card>(cardsPlayer2);
+		if (gameState.getDeckOrders() != null) {
+			cardsPlayer1 = inOrder(loadedPlayer1, gameState.getDeckOrders()[0]);
+			cardsPlayer2 = inOrder(loadedPlayer2, gameState.getDeckOrders()[1]);
+		} else if (gameState.getDeckShuffle() != null) {
+			Collections.shuffle(cardsPlayer1, gameState.getDeckShuffle());
+			Collections.shuffle(cardsPlayer2, gameState.getDeckShuffle());
+		}
+		int[][] deckOrders = { orderOf(loadedPlayer1, cardsPlayer1), orderOf(loadedPlayer2, cardsPlayer2) };
 		new Deck(player1, cardsPlayer1);
 		new Deck(player2, cardsPlayer2);
 		
@@ -63,7 +155,34 @@ public class Initalize implements EventProcessor{
 			player2.drawCard();
 		}
 		
-		// begin first turn
-		player1.startTurn();
+		return deckOrders;
+	}
+	
+	
+	/**
+	 * @param loaded - a deck as it was loaded
+	 * @param order - the index in loaded of each card, in the order they are dealt
+	 * @return ArrayList<Card> - the cards of loaded in that order
+	 */
+	private static ArrayList<Card> inOrder(ArrayList<Card> loaded, int[] order) {
+		ArrayList<Card> cards = new ArrayList<Card>(order.length);
+		for (int index : order) {
+			cards.add(loaded.get(index));
+		}
+		return cards;
+	}
+	
+	
+	/**
+	 * @param loaded - a deck as it was loaded
+	 * @param cards - the same cards in the order they are dealt
+	 * @return int[] - the index in loaded of each card of cards
+	 */
+	private static int[] orderOf(ArrayList<Card> loaded, ArrayList<Card> cards) {
+		int[] order = new int[cards.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = loaded.indexOf(cards.get(i));
+		}
+		return order;
 	}
 }
\ No newline at end of file
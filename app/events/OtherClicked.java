@@ -22,23 +22,30 @@ public class OtherClicked implements EventProcessor {
 
 	@Override
 	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
+		gameState.logEvent("otherclicked", message);
 
 		if (gameState.isGameOver()) {
 			return;
 		} 
 		else if (gameState.isUiClickable() || message.hasNonNull("AI")) {
 
-			Board b = gameState.getBoard();
-
-			// reset board highlighting
-			b.highlightAll(0);
-
-			// reset other gameState
-			BasicCommands.drawCard(out, gameState.getClickedCard(), gameState.getCardPosition(), 0);
-			gameState.setCardSelected(false);
-			gameState.setClickedCard(null);
-			gameState.setUnitSelected(false);
-			gameState.setClickedUnit(null);
+			// collect all highlighting changes from this click and send them to the front-end as one frame
+			gameState.getBoard().beginHighlightFrame();
+			try {
+				Board b = gameState.getBoard();
+
+				// reset board highlighting
+				b.highlightAll(0);
+
+				// reset other gameState
+				BasicCommands.drawCard(out, gameState.getClickedCard(), gameState.getCardPosition(), 0);
+				gameState.setCardSelected(false);
+				gameState.setClickedCard(null);
+				gameState.setUnitSelected(false);
+				gameState.setClickedUnit(null);
+			} finally {
+				gameState.getBoard().flushHighlightFrame();
+			}
 		}
 		
 
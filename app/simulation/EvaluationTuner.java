@@ -0,0 +1,205 @@
+package simulation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import ai.AIPlayer;
+import ai.Evaluation;
+import ai.GameSnapshot;
+import ai.WeightedEvaluator;
+import structures.basic.AILogic;
+import utils.BasicObjectBuilders;
+import utils.StaticConfFiles;
+
+/**
+ * Fits the weights of the evaluation (see WeightedEvaluator) to the results of self-play games.
+ * The features of the position at the start of every turn are recorded with the result of the
+ * game it was in, then the weights are fitted so that the logistic of a position's score predicts
+ * that result, the mean squared error being minimised by gradient descent from the current weights.
+ *
+ * Run from the project root (the conf/ folder must be reachable) with
+ *   java simulation.EvaluationTuner [games] [threads] [seed] [output]
+ * which writes the weights to output, StaticConfFiles.evaluationWeights by default, where
+ * Evaluation reads them from.
+ *
+ */
+public class EvaluationTuner {
+
+	/** a score of SCALE hundredths predicts a win about three times in four */
+	public static final double SCALE = 800.0;
+
+	public static final int DEFAULT_ITERATIONS = 2000;
+
+	// the positions recorded by the game being played on each thread
+	private static final ThreadLocal<List<int[]>> recording = new ThreadLocal<List<int[]>>();
+
+	private final List<int[]> features = new ArrayList<int[]>();
+	private final List<Double> results = new ArrayList<Double>();
+
+
+	/**
+	 * A training position: its features and the result of its game for player 0
+	 */
+	public void add(int[] positionFeatures, double result) {
+		features.add(positionFeatures);
+		results.add(result);
+	}
+
+
+	public int size() {
+		return features.size();
+	}
+
+
+	/**
+	 * Play self-play games between rule-based AIs, recording the start of every turn
+	 *
+	 * @param games - number of games to play
+	 * @param threads - number of games played at once
+	 * @param maxTurns - turns after which an unfinished game is stopped, counting as a draw
+	 * @param seed - seed of the first game, game i uses seed + i
+	 */
+	public void record(int games, int threads, int maxTurns, long seed) {
+		BasicObjectBuilders.warmTemplates();
+
+		AIPlayer ai = gameState -> {
+			recording.get().add(WeightedEvaluator.features(GameSnapshot.of(gameState), new int[WeightedEvaluator.FEATURES.length]));
+			AILogic.playTurn(gameState);
+		};
+		SelfPlayRunner runner = new SelfPlayRunner(1, maxTurns);
+		runner.setPlayers(ai, ai);
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		List<ForkJoinTask<Object[]>> tasks = new ArrayList<ForkJoinTask<Object[]>>(games);
+		try {
+			for (int i = 0; i < games; i++) {
+				long gameSeed = seed + i;
+				tasks.add(pool.submit(() -> {
+					recording.set(new ArrayList<int[]>());
+					try {
+						return new Object[] { runner.playGame(gameSeed), recording.get() };
+					} finally {
+						recording.remove();
+					}
+				}));
+			}
+			for (ForkJoinTask<Object[]> task : tasks) {
+				Object[] game = task.join();
+				double result;
+				switch (((GameResult) game[0]).getOutcome()) {
+					case PLAYER1_WON:
+						result = 1.0;
+						break;
+					case PLAYER2_WON:
+						result = 0.0;
+						break;
+					case TURN_LIMIT:
+						result = 0.5;
+						break;
+					default:
+						continue;
+				}
+				@SuppressWarnings("unchecked")
+				List<int[]> positions = (List<int[]>) game[1];
+				for (int[] position : positions) {
+					add(position, result);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	/**
+	 * @param weights - one per feature
+	 * @return double - mean squared difference between the recorded results and those the weights predict
+	 */
+	public double error(double[] weights) {
+		double sum = 0;
+		for (int n = 0; n < features.size(); n++) {
+			double e = results.get(n) - predict(weights, features.get(n));
+			sum += e * e;
+		}
+		return sum / Math.max(1, features.size());
+	}
+
+
+	/**
+	 * Gradient descent on error(). Each weight's step is divided by the mean square of its feature, so features of
+	 * very different sizes (tempo is +-1, material tens) converge together.
+	 *
+	 * @param initial - weights to start from
+	 * @param iterations - number of steps
+	 * @return double[] - the fitted weights
+	 */
+	public double[] fit(double[] initial, int iterations) {
+		int k = initial.length;
+		double[] weights = initial.clone();
+		double[] meanSquare = new double[k];
+		for (int[] f : features) {
+			for (int j = 0; j < k; j++) {
+				meanSquare[j] += (double) f[j] * f[j] / features.size();
+			}
+		}
+
+		double rate = 2.0 * SCALE * SCALE;
+		double[] gradient = new double[k];
+		for (int it = 0; it < iterations; it++) {
+			Arrays.fill(gradient, 0.0);
+			for (int n = 0; n < features.size(); n++) {
+				int[] f = features.get(n);
+				double p = predict(weights, f);
+				double g = -2.0 * (results.get(n) - p) * p * (1 - p) / SCALE;
+				for (int j = 0; j < k; j++) {
+					gradient[j] += g * f[j];
+				}
+			}
+			for (int j = 0; j < k; j++) {
+				if (meanSquare[j] > 0) {
+					weights[j] -= rate * gradient[j] / features.size() / meanSquare[j];
+				}
+			}
+		}
+		return weights;
+	}
+
+
+	private static double predict(double[] weights, int[] f) {
+		double score = 0;
+		for (int j = 0; j < weights.length; j++) {
+			score += weights[j] * f[j];
+		}
+		return 1.0 / (1.0 + Math.exp(-score / SCALE));
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+		String output = args.length > 3 ? args[3] : StaticConfFiles.evaluationWeights;
+
+		EvaluationTuner tuner = new EvaluationTuner();
+		tuner.record(games, threads, SelfPlayRunner.DEFAULT_MAX_TURNS, seed);
+
+		int[] current = Evaluation.getEvaluator().getWeights();
+		double[] initial = new double[current.length];
+		for (int j = 0; j < current.length; j++) {
+			initial[j] = current[j];
+		}
+		double[] fitted = tuner.fit(initial, DEFAULT_ITERATIONS);
+
+		int[] weights = new int[fitted.length];
+		for (int j = 0; j < fitted.length; j++) {
+			weights[j] = (int) Math.round(fitted[j]);
+			System.out.println(WeightedEvaluator.FEATURES[j] + ": " + current[j] + " -> " + weights[j]);
+		}
+		System.out.println(tuner.size() + " positions, error " + tuner.error(initial) + " -> " + tuner.error(fitted));
+		new WeightedEvaluator(weights).save(output);
+	}
+}
@@ -0,0 +1,148 @@
+package simulation;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import events.CardClicked;
+import events.EndTurnClicked;
+import events.EventLog;
+import events.EventProcessor;
+import events.Initalize;
+import events.OtherClicked;
+import events.TileClicked;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Player;
+import utils.BasicObjectBuilders;
+
+/**
+ * Rebuilds the GameState of a logged game (see EventLog) by processing its events again, headless
+ * and with the AI's turns taken from the log rather than played, so a game replays exactly and at
+ * the speed of the game logic. A game can be replayed to its end or to the end of any turn, e.g. to
+ * reproduce a bug reported during a live game or to look at what the AI did in a position.
+ *
+ * Run from the project root (the conf/ folder must be reachable) with
+ *   java simulation.GameReplayer <log file> [turns]
+ * which prints the state of the game at the end of each turn, up to the given number of turns.
+ *
+ */
+public class GameReplayer {
+
+	private final List<EventLog.Event> events;
+	private final Map<String, EventProcessor> processors = new HashMap<String, EventProcessor>();
+
+
+	/**
+	 * @param events - the events of a logged game, starting with its initalize record
+	 */
+	public GameReplayer(List<EventLog.Event> events) {
+		if (events.isEmpty() || events.get(0).getType() != EventLog.INITALIZE) {
+			throw new IllegalArgumentException("An event log must start with the game being initalized");
+		}
+		this.events = events;
+		processors.put("tileclicked", new TileClicked());
+		processors.put("cardclicked", new CardClicked());
+		processors.put("endturnclicked", new EndTurnClicked());
+		processors.put("otherclicked", new OtherClicked());
+	}
+
+
+	/**
+	 * Replay the whole game
+	 *
+	 * @return GameState - the game after its last logged event
+	 */
+	public GameState replay() {
+		return replay(Integer.MAX_VALUE);
+	}
+
+
+	/**
+	 * Replay the game until a number of turns have ended, the turn which ends the game counting as ended
+	 *
+	 * @param turns - turns of either player to replay, 0 for the game as it was dealt
+	 * @return GameState - the game once that many turns have ended, or after its last event if it ended sooner
+	 */
+	public GameState replay(int turns) {
+		return replay(turns, null);
+	}
+
+
+	/**
+	 * @param turns - turns of either player to replay
+	 * @param turnEnded - given the game as it was dealt and at the end of each turn replayed, or null
+	 * @return GameState - the game once that many turns have ended, or after its last event if it ended sooner
+	 */
+	public GameState replay(int turns, Consumer<GameState> turnEnded) {
+		GameState gameState = GameState.headless();
+		gameState.setAiAutoPlay(false); // the AI's clicks are in the log
+		gameState.setDeckOrders(events.get(0).getDeckOrders());
+
+		gameState.withUiSink(() -> {
+			new Initalize().processEvent(null, gameState, events.get(0).toMessage());
+			if (turnEnded != null) {
+				turnEnded.accept(gameState);
+			}
+			int ended = 0;
+			for (int i = 1; i < events.size() && ended < turns; i++) {
+				EventLog.Event event = events.get(i);
+				Player current = gameState.getCurrentPlayer();
+				boolean over = gameState.isGameOver();
+				processors.get(event.getMessageType()).processEvent(null, gameState, event.toMessage());
+				// a turn ends when the other player's starts, or when it wins the game
+				if (gameState.getCurrentPlayer() != current || gameState.isGameOver() != over) {
+					ended++;
+					if (turnEnded != null) {
+						turnEnded.accept(gameState);
+					}
+				}
+			}
+		});
+		return gameState;
+	}
+
+
+	/**
+	 * @return ObjectNode - a summary of a game's state, to compare replays or follow a game turn by turn
+	 */
+	public static ObjectNode summary(GameState gameState) {
+		ObjectNode node = Json.newObject();
+		Player human = gameState.getHumanPlayer();
+		Player ai = gameState.getAIPlayer();
+		node.put("currentPlayer", gameState.getCurrentPlayer() == human ? 1 : 2);
+		node.put("player1Health", human.getHealth());
+		node.put("player2Health", ai.getHealth());
+		node.put("player1Mana", human.getMana());
+		node.put("player2Mana", ai.getMana());
+		node.put("units", gameState.getBoard().getUnits().size());
+		node.put("positionKey", Long.toHexString(gameState.getPositionKey()));
+		node.put("gameOver", gameState.isGameOver());
+		return node;
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: GameReplayer <log file> [turns]");
+			return;
+		}
+		BasicObjectBuilders.warmTemplates();
+		List<EventLog.Event> events = EventLog.read(args[0]);
+		int turns = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+		System.out.println(events.size() + " events over " + events.get(events.size() - 1).getMillis() + " ms");
+
+		int[] turn = {0};
+		long start = System.nanoTime();
+		GameState gameState = new GameReplayer(events).replay(turns, state -> {
+			ObjectNode summary = summary(state);
+			summary.put("turn", turn[0]++);
+			System.out.println(summary);
+		});
+		System.out.println("Replayed in " + (System.nanoTime() - start) / 1000 + " us, game " + (gameState.isGameOver() ? "over" : "not over"));
+	}
+}
@@ -0,0 +1,52 @@
+package simulation;
+
+/**
+ * The outcome of one self-play game
+ */
+public class GameResult {
+
+	/**
+	 * How a game ended: won by either player, stopped at the turn limit, or stopped by an exception in the game logic
+	 */
+	public enum Outcome { PLAYER1_WON, PLAYER2_WON, TURN_LIMIT, ERROR }
+
+	private final long seed;
+	private final Outcome outcome;
+	private final int turns;
+	private final LatencyHistogram turnLatency;
+	private final Throwable error;
+
+
+	public GameResult(long seed, Outcome outcome, int turns, LatencyHistogram turnLatency, Throwable error) {
+		this.seed = seed;
+		this.outcome = outcome;
+		this.turns = turns;
+		this.turnLatency = turnLatency;
+		this.error = error;
+	}
+
+
+	public long getSeed() {
+		return seed;
+	}
+
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+
+	public int getTurns() {
+		return turns;
+	}
+
+
+	public LatencyHistogram getTurnLatency() {
+		return turnLatency;
+	}
+
+
+	public Throwable getError() {
+		return error;
+	}
+}
@@ -0,0 +1,96 @@
+package simulation;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import play.libs.Json;
+
+/**
+ * Histogram of latencies with power of two buckets (bucket i counts latencies of [2^(i-1), 2^i)
+ * microseconds), small enough to keep one per game and merge them afterwards. Percentiles are
+ * reported as the upper bound of the bucket they fall in.
+ *
+ * Not thread safe, each game records into its own histogram.
+ */
+public class LatencyHistogram {
+
+	private static final int BUCKETS = 40;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count = 0;
+	private long totalNanos = 0;
+	private long maxNanos = 0;
+
+
+	/**
+	 * @param nanos - latency to record
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(0L, nanos / 1000L);
+		int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+		counts[bucket]++;
+		count++;
+		totalNanos += nanos;
+		maxNanos = Math.max(maxNanos, nanos);
+	}
+
+
+	/**
+	 * Add the latencies recorded in another histogram to this one
+	 *
+	 * @param other
+	 */
+	public void merge(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		totalNanos += other.totalNanos;
+		maxNanos = Math.max(maxNanos, other.maxNanos);
+	}
+
+
+	public long getCount() {
+		return count;
+	}
+
+
+	/**
+	 * @param percentile - between 0 and 100
+	 * @return the upper bound (microseconds) of the bucket the percentile falls in, 0 if nothing was recorded
+	 */
+	public long percentileMicros(double percentile) {
+		if (count == 0) return 0L;
+		long rank = (long) Math.ceil(count * percentile / 100.0);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= Math.max(1L, rank)) {
+				return upperBoundMicros(i);
+			}
+		}
+		return upperBoundMicros(BUCKETS - 1);
+	}
+
+
+	private static long upperBoundMicros(int bucket) {
+		return 1L << bucket;
+	}
+
+
+	public ObjectNode toJson() {
+		ObjectNode node = Json.newObject();
+		node.put("count", count);
+		node.put("meanMicros", count == 0 ? 0L : totalNanos / count / 1000L);
+		node.put("p50Micros", percentileMicros(50));
+		node.put("p90Micros", percentileMicros(90));
+		node.put("p99Micros", percentileMicros(99));
+		node.put("maxMicros", maxNanos / 1000L);
+		ObjectNode buckets = node.putObject("buckets");
+		for (int i = 0; i < BUCKETS; i++) {
+			if (counts[i] > 0) {
+				buckets.put("<" + upperBoundMicros(i) + "us", counts[i]);
+			}
+		}
+		return node;
+	}
+}
@@ -0,0 +1,91 @@
+package simulation;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import play.libs.Json;
+
+/**
+ * Results of a batch of self-play games: how each game ended, how many turns the games took and
+ * how long the AI took to decide each turn.
+ */
+public class SelfPlayReport {
+
+	private final Map<GameResult.Outcome, Integer> outcomes = new EnumMap<GameResult.Outcome, Integer>(GameResult.Outcome.class);
+	private final LatencyHistogram turnLatency = new LatencyHistogram();
+	private int games = 0;
+	private long totalTurns = 0;
+	private int minTurns = Integer.MAX_VALUE;
+	private int maxTurns = 0;
+	private long wallNanos = 0;
+
+
+	/**
+	 * Add the result of a game to the report
+	 *
+	 * @param result
+	 */
+	public void add(GameResult result) {
+		games++;
+		outcomes.merge(result.getOutcome(), 1, Integer::sum);
+		totalTurns += result.getTurns();
+		minTurns = Math.min(minTurns, result.getTurns());
+		maxTurns = Math.max(maxTurns, result.getTurns());
+		turnLatency.merge(result.getTurnLatency());
+	}
+
+
+	public void setWallNanos(long wallNanos) {
+		this.wallNanos = wallNanos;
+	}
+
+
+	public int getGames() {
+		return games;
+	}
+
+
+	/**
+	 * @param outcome
+	 * @return the number of games which ended this way
+	 */
+	public int count(GameResult.Outcome outcome) {
+		return outcomes.getOrDefault(outcome, 0);
+	}
+
+
+	/**
+	 * @param outcome
+	 * @return the fraction of games which ended this way
+	 */
+	public double rate(GameResult.Outcome outcome) {
+		return games == 0 ? 0.0 : (double) count(outcome) / games;
+	}
+
+
+	public LatencyHistogram getTurnLatency() {
+		return turnLatency;
+	}
+
+
+	public ObjectNode toJson() {
+		ObjectNode node = Json.newObject();
+		node.put("games", games);
+		node.put("wallMs", wallNanos / 1000000L);
+		node.put("gamesPerSecond", wallNanos == 0 ? 0.0 : games / (wallNanos / 1e9));
+		ObjectNode results = node.putObject("outcomes");
+		for (GameResult.Outcome outcome : GameResult.Outcome.values()) {
+			ObjectNode entry = results.putObject(outcome.name());
+			entry.put("games", count(outcome));
+			entry.put("rate", rate(outcome));
+		}
+		ObjectNode turns = node.putObject("turns");
+		turns.put("mean", games == 0 ? 0.0 : (double) totalTurns / games);
+		turns.put("min", games == 0 ? 0 : minTurns);
+		turns.put("max", maxTurns);
+		node.set("turnLatency", turnLatency.toJson());
+		return node;
+	}
+}
@@ -0,0 +1,159 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import ai.AIPlayer;
+import ai.AlphaBetaAI;
+import ai.MctsAI;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.AILogic;
+import structures.basic.Player;
+import utils.BasicObjectBuilders;
+
+/**
+ * Plays batches of games between two AI players to evaluate changes to the AI. Each game runs
+ * headless (see GameState.headless()), so nothing is sent to a front-end and no time is spent
+ * waiting for animations, and has its own GameState, so games share nothing but the read-only
+ * card and unit templates. Games are spread over a fork-join pool.
+ *
+ * Both sides are played by AILogic.playTurn unless other AIs are set with setPlayers(). The decks
+ * of each game are shuffled with a seed derived from the batch seed, so a batch of rule-based
+ * games can be replayed exactly.
+ *
+ * Run from the project root (the conf/ folder must be reachable) with
+ *   java simulation.SelfPlayRunner [games] [threads] [maxTurns] [seed] [player2Ai]
+ * where player2Ai is "rules" (the default), "mcts:<thinking millis per turn>" or
+ * "alphabeta:<search depth>".
+ *
+ */
+public class SelfPlayRunner {
+
+	public static final int DEFAULT_MAX_TURNS = 200;
+
+	private final int threads;
+	private final int maxTurns;
+	private AIPlayer player1Ai = AILogic::playTurn;
+	private AIPlayer player2Ai = AILogic::playTurn;
+
+
+	/**
+	 * @param threads - number of games played at once
+	 * @param maxTurns - turns after which an unfinished game is stopped
+	 */
+	public SelfPlayRunner(int threads, int maxTurns) {
+		this.threads = threads;
+		this.maxTurns = maxTurns;
+	}
+
+
+	/**
+	 * Choose the AIs playing each side, e.g. to play an MctsAI against the rule-based AI. Each is shared by all the
+	 * games of a batch, so must be safe to use from several threads.
+	 *
+	 * @param player1Ai - plays player 1 (the human player in a normal game)
+	 * @param player2Ai - plays player 2 (the AI player in a normal game)
+	 */
+	public void setPlayers(AIPlayer player1Ai, AIPlayer player2Ai) {
+		this.player1Ai = player1Ai;
+		this.player2Ai = player2Ai;
+	}
+
+
+	/**
+	 * Play a batch of games
+	 *
+	 * @param games - number of games to play
+	 * @param seed - seed of the first game, game i uses seed + i
+	 * @return SelfPlayReport - the combined results
+	 */
+	public SelfPlayReport run(int games, long seed) {
+		BasicObjectBuilders.warmTemplates();
+
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		List<ForkJoinTask<GameResult>> tasks = new ArrayList<ForkJoinTask<GameResult>>(games);
+		try {
+			for (int i = 0; i < games; i++) {
+				long gameSeed = seed + i;
+				tasks.add(pool.submit(() -> playGame(gameSeed)));
+			}
+			SelfPlayReport report = new SelfPlayReport();
+			for (ForkJoinTask<GameResult> task : tasks) {
+				report.add(task.join());
+			}
+			report.setWallNanos(System.nanoTime() - start);
+			return report;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	/**
+	 * Play one game to the end, or until maxTurns turns have been played
+	 *
+	 * @param seed - seed the decks are shuffled with
+	 * @return GameResult
+	 */
+	public GameResult playGame(long seed) {
+		GameState gameState = GameState.headless();
+		gameState.setAiAutoPlay(false); // turns are played below, for both players
+		gameState.setDeckShuffle(new Random(seed));
+
+		LatencyHistogram turnLatency = new LatencyHistogram();
+		int[] turns = {0};
+		try {
+			gameState.withUiSink(() -> {
+				new Initalize().processEvent(null, gameState, Json.newObject());
+				while (!gameState.isGameOver() && turns[0] < maxTurns) {
+					long turnStart = System.nanoTime();
+					// play the current player's turn and end it
+					boolean player1 = gameState.getCurrentPlayer().equals(gameState.getHumanPlayer());
+					(player1 ? player1Ai : player2Ai).playTurn(gameState);
+					turnLatency.record(System.nanoTime() - turnStart);
+					turns[0]++;
+				}
+			});
+		} catch (RuntimeException e) {
+			System.err.println("SelfPlayRunner: game with seed "+seed+" failed after "+turns[0]+" turns");
+			e.printStackTrace();
+			return new GameResult(seed, GameResult.Outcome.ERROR, turns[0], turnLatency, e);
+		}
+		return new GameResult(seed, outcome(gameState), turns[0], turnLatency, null);
+	}
+
+
+	private static GameResult.Outcome outcome(GameState gameState) {
+		Player winner = gameState.getWinner();
+		if (winner == null) {
+			return GameResult.Outcome.TURN_LIMIT;
+		}
+		return winner.equals(gameState.getHumanPlayer()) ? GameResult.Outcome.PLAYER1_WON : GameResult.Outcome.PLAYER2_WON;
+	}
+
+
+	public static void main(String[] args) {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int maxTurns = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_TURNS;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 0L;
+
+		SelfPlayRunner runner = new SelfPlayRunner(threads, maxTurns);
+		if (args.length > 4 && args[4].startsWith("mcts")) {
+			long thinkingMillis = args[4].contains(":") ? Long.parseLong(args[4].substring(args[4].indexOf(':') + 1)) : MctsAI.DEFAULT_TIME_BUDGET_MILLIS;
+			// games already run in parallel and have no search pool, so each search uses the thread its game runs on
+			runner.setPlayers(AILogic::playTurn, new MctsAI(thinkingMillis, seed));
+		} else if (args.length > 4 && args[4].startsWith("alphabeta")) {
+			int depth = args[4].contains(":") ? Integer.parseInt(args[4].substring(args[4].indexOf(':') + 1)) : AlphaBetaAI.DEFAULT_DEPTH;
+			runner.setPlayers(AILogic::playTurn, new AlphaBetaAI(depth));
+		}
+		SelfPlayReport report = runner.run(games, seed);
+		System.out.println(report.toJson().toPrettyString());
+	}
+}
@@ -1,10 +1,22 @@
 package structures;
 
+import java.util.Random;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import ai.AIPlayer;
+import ai.SearchPool;
 import commands.BasicCommands;
+import commands.HeadlessSink;
+import commands.UiSink;
+import events.EventLog;
+import structures.basic.AILogic;
 import structures.basic.Board;
 import structures.basic.Card;
 import structures.basic.Player;
 import structures.basic.Unit;
+import utils.Zobrist;
 import akka.actor.ActorRef;
 
 /**
@@ -20,8 +32,10 @@ public class GameState {
 	private Player humanPlayer;
 	private Player AIPlayer;	
 	private Board board;
-	private static int nextId = 0;
+	private static final IdAllocator sharedIds = new IdAllocator(); // IDs for units created outside of a game, e.g. in tests
+	private final IdAllocator ids = new IdAllocator(); // IDs for the units and cards of this game
 	private ActorRef out;
+	private UiSink uiSink; // where this game's commands go, null to use BasicCommands' defaults
 	private int cardPosition;
 	private boolean UnitMoving = false;
 	
@@ -35,6 +49,15 @@ public class GameState {
 	private Card clickedCard;
 	private Unit clickedUnit;
 	private boolean gameOver = false;
+	private Player losingPlayer;
+	
+	// settings for games not played through the front-end, e.g. self-play simulations
+	private boolean aiAutoPlay = true; // whether the AI player plays its turns itself when they start
+	private AIPlayer aiPlayer = AILogic::playTurn; // plays the AI player's turns
+	private SearchPool searchPool; // threads the AI searches on, null to search on the calling thread
+	private Random deckShuffle; // shuffles both decks at the start of the game if set, otherwise decks keep their order
+	private int[][] deckOrders; // deals both decks in this order at the start of the game if set, e.g. to replay a logged game
+	private EventLog eventLog; // logs the events this game processes, null if the game isn't logged
 	
 	
 	public GameState() {
@@ -42,6 +65,44 @@ public class GameState {
 	}
 
 	
+	/**
+	 * A game state for a game run without a front-end, e.g. a simulation between two AI players. Its commands are
+	 * dropped and it never waits for animations, so it runs as fast as the game logic allows. Events for it should be
+	 * processed through withUiSink().
+	 * @return GameState
+	 */
+	public static GameState headless() {
+		GameState gameState = new GameState();
+		gameState.setUiSink(new HeadlessSink());
+		return gameState;
+	}
+
+	
+	public UiSink getUiSink() {
+		return uiSink;
+	}
+
+	
+	public void setUiSink(UiSink uiSink) {
+		this.uiSink = uiSink;
+	}
+
+	
+	/**
+	 * Runs an action (usually processing an event) with this game's UI sink bound to the current thread, so the
+	 * commands it sends and the animations it waits for go through the sink. Any sink bound before is restored after.
+	 * @param action
+	 */
+	public void withUiSink(Runnable action) {
+		UiSink previous = BasicCommands.bindSink(uiSink);
+		try {
+			action.run();
+		} finally {
+			BasicCommands.bindSink(previous);
+		}
+	}
+
+	
 	public void setBoard(Board board) {
 		this.board = board;
 	}
@@ -52,10 +113,19 @@ public class GameState {
 	}
 
 	
+	/**
+	 * @return an ID not used by any game, for units created outside of a game
+	 */
 	public static int getNextID() {
-		int result = nextId;
-		nextId++;
-		return result;
+		return sharedIds.nextId();
+	}
+
+	
+	/**
+	 * @return an ID for a unit or card of this game, unique across all games in this JVM
+	 */
+	public int nextId() {
+		return ids.nextId();
 	}
 
 	
@@ -151,6 +221,26 @@ public class GameState {
 		}
 		// deactivate UI
 		gameOver = true;
+		if (this.losingPlayer == null) {
+			this.losingPlayer = losingPlayer;
+		}
+	}
+
+	
+	/**
+	 * @return the player who lost first, or null while the game is still going
+	 */
+	public Player getLosingPlayer() {
+		return losingPlayer;
+	}
+
+	
+	/**
+	 * @return the winner of the game, or null while the game is still going
+	 */
+	public Player getWinner() {
+		if (losingPlayer == null) return null;
+		return losingPlayer.equals(humanPlayer) ? AIPlayer : humanPlayer;
 	}
 
 	
@@ -170,7 +260,9 @@ public class GameState {
 		setClickedUnit(null);
 		setCardSelected(false);
 		setClickedCard(null);
+		getBoard().beginHighlightFrame();
 		getBoard().highlightAll(0);
+		getBoard().flushHighlightFrame();
 		
 		// transfer control to other player
 		currentPlayer.endTurn();
@@ -182,6 +274,30 @@ public class GameState {
 	public Player getOtherPlayer() {
 		return currentPlayer.equals(humanPlayer) ? AIPlayer : humanPlayer;
 	}
+
+
+	/**
+	 * Draw the whole game on the front-end in one fullState message, e.g. once it has been dealt or when a client
+	 * reconnects to it: the board with its highlighting, every unit with its stats, both players' health and mana and
+	 * the human player's hand
+	 */
+	public void redraw() {
+		BasicCommands.drawGameState(out, this);
+	}
+
+	
+	/**
+	 * A 64 bit Zobrist key of the current position (see utils.Zobrist), for transposition tables, spotting repeated
+	 * positions in replays or checking two copies of a game agree. The board and hands keep their parts of the key up
+	 * to date as they change, so this costs a few XORs. Equal to ai.GameSnapshot.of(this).zobrist().
+	 * 
+	 * @return long
+	 */
+	public long getPositionKey() {
+		int current = (currentPlayer == humanPlayer) ? 0 : 1;
+		int loser = (losingPlayer == null) ? -1 : (losingPlayer == humanPlayer) ? 0 : 1;
+		return board.getUnitHash() ^ humanPlayer.getPositionKey() ^ AIPlayer.getPositionKey() ^ Zobrist.turnKey(current, loser);
+	}
 	
 	
 	public void deactivateUI() {
@@ -212,4 +328,104 @@ public class GameState {
 	public boolean isGameOver() {
 		return gameOver;
 	}
+
+	
+	public boolean isAiAutoPlay() {
+		return aiAutoPlay;
+	}
+
+	
+	/**
+	 * Set to false to stop the AI player playing its turns when they start, so they can be played by the caller
+	 * instead (e.g. a self-play runner calling AILogic.playTurn for both players)
+	 * @param aiAutoPlay
+	 */
+	public void setAiAutoPlay(boolean aiAutoPlay) {
+		this.aiAutoPlay = aiAutoPlay;
+	}
+
+	
+	public AIPlayer getAiPlayer() {
+		return aiPlayer;
+	}
+
+	
+	/**
+	 * Choose the AI which plays the AI player's turns in this game, e.g. an MctsAI for a harder opponent
+	 * @param aiPlayer
+	 */
+	public void setAiPlayer(AIPlayer aiPlayer) {
+		this.aiPlayer = aiPlayer;
+	}
+
+	
+	@JsonIgnore
+	public SearchPool getSearchPool() {
+		return searchPool;
+	}
+
+	
+	/**
+	 * Share the host's search threads with this game's AI, see SearchPool
+	 * @param searchPool - the pool, or null for the AI to search on the calling thread
+	 */
+	@JsonIgnore
+	public void setSearchPool(SearchPool searchPool) {
+		this.searchPool = searchPool;
+	}
+
+	
+	public Random getDeckShuffle() {
+		return deckShuffle;
+	}
+
+	
+	/**
+	 * Shuffle both decks with the given generator when the game is initalized, e.g. to vary simulated games
+	 * @param deckShuffle - generator to shuffle with, or null to keep the decks in order
+	 */
+	public void setDeckShuffle(Random deckShuffle) {
+		this.deckShuffle = deckShuffle;
+	}
+
+	
+	public int[][] getDeckOrders() {
+		return deckOrders;
+	}
+
+	
+	/**
+	 * Deal both decks in a given order when the game is initalized, rather than shuffling them, e.g. to replay a
+	 * logged game
+	 * @param deckOrders - for each player, the index in OrderedCardLoader's deck of each card of their deck in order
+	 */
+	public void setDeckOrders(int[][] deckOrders) {
+		this.deckOrders = deckOrders;
+	}
+
+	
+	public EventLog getEventLog() {
+		return eventLog;
+	}
+
+	
+	/**
+	 * Log the events this game processes (see EventLog)
+	 * @param eventLog - the log, or null to stop logging
+	 */
+	public void setEventLog(EventLog eventLog) {
+		this.eventLog = eventLog;
+	}
+
+	
+	/**
+	 * Log an event about to be processed, if this game is logged
+	 * @param messageType
+	 * @param message
+	 */
+	public void logEvent(String messageType, JsonNode message) {
+		if (eventLog != null) {
+			eventLog.record(messageType, message);
+		}
+	}
 }
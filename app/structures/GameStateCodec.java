@@ -0,0 +1,382 @@
+package structures;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import structures.basic.Board;
+import structures.basic.Card;
+import structures.basic.Deck;
+import structures.basic.Player;
+import structures.basic.Tile;
+import structures.basic.Unit;
+import utils.BasicObjectBuilders;
+import utils.CardNameToUnit;
+import utils.OrderedCardLoader;
+import utils.StaticConfFiles;
+
+/**
+ * Encodes a whole GameState as a few hundred bytes, and decodes it back into a GameState which
+ * plays on exactly as the original would, e.g. to save and resume a game, move it to another node
+ * or keep a position as a test fixture. What a game's front-end shows is not encoded, a decoded
+ * game should be drawn again with GameState.redraw().
+ *
+ * Cards are encoded as their index in their player's deck as OrderedCardLoader loads it, and units
+ * by their kind, the index of their configuration file in UNIT_KINDS. A snapshot holds a checksum
+ * of UNIT_KINDS, so a snapshot of a game with other units is refused rather than decoded wrongly.
+ *
+ *   header   - 'G', 'S', VERSION, checksum of UNIT_KINDS (int), board width and height
+ *   flags    - 1 byte, see the flag constants
+ *   players  - for player 1 then player 2: health, mana, turn number, hand (size then card indexes),
+ *              deck (size then card indexes, in the order they will be drawn), 1 byte each
+ *   units    - count, then for each unit in the board's order: tile, kind << 1 | owner, health,
+ *              attack, starting health, attacks and moves remaining (4 bit signed values, -1 once a
+ *              unit has used up its moves by attacking), attacks per turn
+ *   UI state - the tiles highlighted in mode 1 and mode 2 (varints), the clicked card (owner << 4 |
+ *              hand slot, or NONE), the card position, the tile of the clicked unit (or NONE)
+ *
+ * IDs are not encoded, a decoded game's cards and units get new IDs from its own allocator. The
+ * AI opponent and its settings are not part of the game state either.
+ *
+ */
+public class GameStateCodec {
+
+	public static final int VERSION = 1;
+
+	private static final int FLAG_AI_TO_PLAY = 1;
+	private static final int FLAG_UI_ACTIVE = 2;
+	private static final int FLAG_CARD_SELECTED = 4;
+	private static final int FLAG_UNIT_SELECTED = 8;
+	private static final int FLAG_GAME_OVER = 16;
+	private static final int FLAG_AI_LOST = 32;
+
+	private static final int NONE = 0xFF;
+
+	/** the configuration files of every kind of unit, avatars first */
+	public static final List<String> UNIT_KINDS = unitKinds();
+	private static final int KINDS_CHECKSUM = checksum(UNIT_KINDS);
+
+	/** the names of each player's cards in the order they are loaded, so encoding needn't load them */
+	private static final String[][] DECK_NAMES = { cardNames(OrderedCardLoader.getPlayer1Cards()), cardNames(OrderedCardLoader.getPlayer2Cards()) };
+
+
+	private static List<String> unitKinds() {
+		List<String> kinds = new ArrayList<String>();
+		kinds.add(StaticConfFiles.humanAvatar);
+		kinds.add(StaticConfFiles.aiAvatar);
+		kinds.addAll(new TreeSet<String>(CardNameToUnit.map.values()));
+		return kinds;
+	}
+
+
+	private static String[] cardNames(List<Card> cards) {
+		String[] names = new String[cards.size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = cards.get(i).getCardname();
+		}
+		return names;
+	}
+
+
+	private static int checksum(List<String> kinds) {
+		CRC32 crc = new CRC32();
+		for (String kind : kinds) {
+			crc.update(kind.getBytes());
+			crc.update(0);
+		}
+		return (int) crc.getValue();
+	}
+
+
+	/**
+	 * @param gameState - an initalized game
+	 * @return byte[] - the game's snapshot
+	 */
+	public static byte[] encode(GameState gameState) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			Board board = gameState.getBoard();
+			Player human = gameState.getHumanPlayer();
+			Player ai = gameState.getAIPlayer();
+
+			out.writeByte('G');
+			out.writeByte('S');
+			out.writeByte(VERSION);
+			out.writeInt(KINDS_CHECKSUM);
+			out.writeByte(board.getWidth());
+			out.writeByte(board.getHeight());
+
+			int flags = 0;
+			if (gameState.getCurrentPlayer() == ai) flags |= FLAG_AI_TO_PLAY;
+			if (gameState.isUiClickable()) flags |= FLAG_UI_ACTIVE;
+			if (gameState.isCardSelected()) flags |= FLAG_CARD_SELECTED;
+			if (gameState.isUnitSelected()) flags |= FLAG_UNIT_SELECTED;
+			if (gameState.isGameOver()) flags |= FLAG_GAME_OVER;
+			if (gameState.getLosingPlayer() == ai) flags |= FLAG_AI_LOST;
+			out.writeByte(flags);
+
+			writePlayer(out, human, DECK_NAMES[0]);
+			writePlayer(out, ai, DECK_NAMES[1]);
+
+			ArrayList<Unit> units = board.getUnits();
+			out.writeByte(units.size());
+			for (Unit unit : units) {
+				int kind = UNIT_KINDS.indexOf(unit.getConfigFile());
+				if (kind < 0) {
+					throw new IllegalArgumentException("Unit " + unit.getId() + " is of no known kind: " + unit.getConfigFile());
+				}
+				out.writeByte(board.getTileIndex(unit.getPosition().getTilex(), unit.getPosition().getTiley()));
+				out.writeByte(kind << 1 | (unit.getPlayer() == ai ? 1 : 0));
+				out.writeByte(unit.getUnitHealth());
+				out.writeByte(unit.getUnitAttack());
+				out.writeByte(unit.getStartingHealth());
+				out.writeByte((unit.getAttacksRemaining() & 0xF) << 4 | (unit.getMovesRemaining() & 0xF));
+				out.writeByte(unit.getAttacksPerTurn());
+			}
+
+			writeVarint(out, board.getHighlightMask(1));
+			writeVarint(out, board.getHighlightMask(2));
+			out.writeByte(handSlot(gameState.getClickedCard(), human, ai));
+			out.writeByte(gameState.getCardPosition());
+			Unit clicked = gameState.getClickedUnit();
+			out.writeByte((clicked == null) ? NONE : board.getTileIndex(clicked.getPosition().getTilex(), clicked.getPosition().getTiley()));
+		} catch (IOException e) {
+			// a ByteArrayOutputStream doesn't throw
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+
+	/**
+	 * @param snapshot - a snapshot made by encode()
+	 * @return GameState - a headless game (see GameState.headless()) in the state the snapshot was made in
+	 * @throws IOException - if the snapshot is not one this version can decode
+	 */
+	public static GameState decode(byte[] snapshot) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot));
+		if (in.readUnsignedByte() != 'G' || in.readUnsignedByte() != 'S') {
+			throw new IOException("Not a game state snapshot");
+		}
+		int version = in.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported game state snapshot version " + version);
+		}
+		if (in.readInt() != KINDS_CHECKSUM) {
+			throw new IOException("Snapshot was made with other units than this game has");
+		}
+		int width = in.readUnsignedByte();
+		int height = in.readUnsignedByte();
+		int flags = in.readUnsignedByte();
+		int[][] players = { readPlayer(in), readPlayer(in) };
+
+		int[][] units = new int[in.readUnsignedByte()][];
+		for (int i = 0; i < units.length; i++) {
+			units[i] = new int[7];
+			for (int j = 0; j < 7; j++) {
+				units[i][j] = (j == 2 || j == 3) ? in.readByte() : in.readUnsignedByte();
+			}
+		}
+		long highlighted1 = readVarint(in);
+		long highlighted2 = readVarint(in);
+		int clickedCard = in.readUnsignedByte();
+		int cardPosition = in.readUnsignedByte();
+		int clickedUnit = in.readUnsignedByte();
+
+		GameState gameState = GameState.headless();
+		gameState.withUiSink(() -> {
+			Board board = new Board(null, width, height);
+			gameState.setBoard(board);
+
+			// cards are numbered as Initalize numbers them, in the order they are loaded
+			List<Card> cards1 = OrderedCardLoader.getPlayer1Cards();
+			List<Card> cards2 = OrderedCardLoader.getPlayer2Cards();
+			for (Card card : cards1) {
+				card.setId(gameState.nextId());
+			}
+			for (Card card : cards2) {
+				card.setId(gameState.nextId());
+			}
+
+			Player human = new Player(null, StaticConfFiles.humanAvatar, avatarTile(board, units, 0, 1, 2), true);
+			Player ai = new Player(null, StaticConfFiles.aiAvatar, avatarTile(board, units, 1, 7, 2), false);
+			human.getAvatar().setPlayer(human);
+			ai.getAvatar().setPlayer(ai);
+			gameState.setHumanPlayer(human);
+			gameState.setAIPlayer(ai);
+			gameState.setCurrentPlayer(((flags & FLAG_AI_TO_PLAY) != 0) ? ai : human);
+			restorePlayer(human, players[0], cards1);
+			restorePlayer(ai, players[1], cards2);
+
+			for (int[] u : units) {
+				Player owner = ((u[1] & 1) != 0) ? ai : human;
+				int kind = u[1] >> 1;
+				Unit unit;
+				if (kind < 2) {
+					unit = owner.getAvatar();
+				} else {
+					unit = BasicObjectBuilders.loadUnit(UNIT_KINDS.get(kind), gameState.nextId(), Unit.class);
+					unit.setPlayer(owner);
+				}
+				Tile tile = board.getTile(u[0] / height, u[0] % height);
+				unit.setPositionByTile(tile);
+				unit.restoreStats(u[2], u[3], u[4], (byte) u[5] >> 4, (byte) (u[5] << 4) >> 4, u[6]);
+				board.addUnit(unit, tile.getTilex(), tile.getTiley());
+			}
+
+			for (Tile tile : board.getTiles(highlighted1)) {
+				tile.setHighlighted(1);
+			}
+			for (Tile tile : board.getTiles(highlighted2)) {
+				tile.setHighlighted(2);
+			}
+			if ((flags & FLAG_UI_ACTIVE) != 0) {
+				gameState.activateUI();
+			} else {
+				gameState.deactivateUI();
+			}
+			gameState.setCardSelected((flags & FLAG_CARD_SELECTED) != 0);
+			if (clickedCard != NONE) {
+				gameState.setClickedCard((((clickedCard >> 4) != 0) ? ai : human).getCard(clickedCard & 0xF));
+			}
+			gameState.setCardPosition(cardPosition);
+			gameState.setUnitSelected((flags & FLAG_UNIT_SELECTED) != 0);
+			if (clickedUnit != NONE) {
+				gameState.setClickedUnit(board.getTile(clickedUnit / height, clickedUnit % height).getUnit());
+			}
+			if ((flags & FLAG_GAME_OVER) != 0) {
+				gameState.endGame(null, ((flags & FLAG_AI_LOST) != 0) ? ai : human);
+			}
+		});
+		return gameState;
+	}
+
+
+	private static void writePlayer(DataOutputStream out, Player player, String[] loaded) throws IOException {
+		out.writeByte(player.getHealth());
+		out.writeByte(player.getMana());
+		out.writeByte(player.getTurnNumber());
+		boolean[] used = new boolean[loaded.length];
+		ArrayList<Card> hand = player.getCards();
+		out.writeByte(hand.size());
+		for (Card card : hand) {
+			out.writeByte(cardIndex(card, loaded, used));
+		}
+		ArrayList<Card> deck = player.getDeck().getCards();
+		out.writeByte(deck.size());
+		for (Card card : deck) {
+			out.writeByte(cardIndex(card, loaded, used));
+		}
+	}
+
+
+	/**
+	 * @return int[] - health, mana, turn number, hand size, then the card indexes of the hand followed by the deck
+	 */
+	private static int[] readPlayer(DataInputStream in) throws IOException {
+		int health = in.readUnsignedByte();
+		int mana = in.readUnsignedByte();
+		int turnNumber = in.readUnsignedByte();
+		int[] hand = new int[in.readUnsignedByte()];
+		for (int i = 0; i < hand.length; i++) {
+			hand[i] = in.readUnsignedByte();
+		}
+		int[] deck = new int[in.readUnsignedByte()];
+		for (int i = 0; i < deck.length; i++) {
+			deck[i] = in.readUnsignedByte();
+		}
+		int[] player = new int[4 + hand.length + deck.length];
+		player[0] = health;
+		player[1] = mana;
+		player[2] = turnNumber;
+		player[3] = hand.length;
+		System.arraycopy(hand, 0, player, 4, hand.length);
+		System.arraycopy(deck, 0, player, 4 + hand.length, deck.length);
+		return player;
+	}
+
+
+	/**
+	 * Deal the player's hand and deck from the loaded cards, then set their stats
+	 */
+	private static void restorePlayer(Player player, int[] saved, List<Card> loaded) {
+		ArrayList<Card> cards = new ArrayList<Card>(saved.length - 4);
+		for (int i = 4; i < saved.length; i++) {
+			cards.add(loaded.get(saved[i]));
+		}
+		new Deck(player, cards);
+		for (int i = 0; i < saved[3]; i++) {
+			player.drawCard();
+		}
+		player.restoreStats(saved[0], saved[1], saved[2]);
+	}
+
+
+	/**
+	 * @return Tile - the tile of the given player's avatar among the saved units, or the given tile if it isn't on the board
+	 */
+	private static Tile avatarTile(Board board, int[][] units, int owner, int x, int y) {
+		for (int[] u : units) {
+			if (u[1] == (owner << 1 | owner)) {
+				return board.getTile(u[0] / board.getHeight(), u[0] % board.getHeight());
+			}
+		}
+		return board.getTile(x, y);
+	}
+
+
+	/**
+	 * @return int - the index in loaded of the first card not yet used with the same name as card
+	 */
+	private static int cardIndex(Card card, String[] loaded, boolean[] used) {
+		for (int i = 0; i < loaded.length; i++) {
+			if (!used[i] && loaded[i].equals(card.getCardname())) {
+				used[i] = true;
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Card " + card.getCardname() + " is not in the player's deck");
+	}
+
+
+	/**
+	 * @return int - owner << 4 | hand slot of card, or NONE if it is in neither hand
+	 */
+	private static int handSlot(Card card, Player human, Player ai) {
+		if (card != null) {
+			for (int slot = 0; slot < Player.HAND_SIZE; slot++) {
+				if (human.getCard(slot) == card) return slot;
+				if (ai.getCard(slot) == card) return 1 << 4 | slot;
+			}
+		}
+		return NONE;
+	}
+
+
+	private static void writeVarint(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+
+	private static long readVarint(DataInputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package structures;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out the IDs used for units and cards. Each allocator (one per game) reserves its own
+ * range of RANGE_SIZE IDs from a process wide pool, and takes IDs from that range with a lock-free
+ * counter, so games running at the same time in one JVM neither race on a shared counter nor
+ * hand out the same ID. A fresh range is reserved if a game ever uses up its current one.
+ *
+ * IDs are always at least RANGE_SIZE, so the fixed IDs cards are loaded with never clash with
+ * them. The pool only wraps around after roughly two billion IDs have been
+ * reserved, by which time the games holding the earliest ranges are long finished.
+ *
+ */
+public class IdAllocator {
+
+	public static final int RANGE_SIZE = 1024;
+
+	// number of ranges reserved so far across all allocators
+	private static final AtomicLong rangesReserved = new AtomicLong(0);
+	private static final long RANGES_IN_POOL = (Integer.MAX_VALUE / RANGE_SIZE) - 1;
+
+	/**
+	 * A reserved range of IDs [start, end) and the counter handing them out
+	 */
+	private static final class Range {
+		final int end;
+		final AtomicInteger next;
+
+		Range(int start) {
+			this.end = start + RANGE_SIZE;
+			this.next = new AtomicInteger(start);
+		}
+	}
+
+	private volatile Range range;
+
+
+	public IdAllocator() {
+		range = reserveRange();
+	}
+
+
+	/**
+	 * @return int - an ID no other allocator has handed out
+	 */
+	public int nextId() {
+		while (true) {
+			Range current = range;
+			int id = current.next.getAndIncrement();
+			if (id < current.end) {
+				return id;
+			}
+			// range used up, only one thread swaps in a new one
+			synchronized (this) {
+				if (range == current) {
+					range = reserveRange();
+				}
+			}
+		}
+	}
+
+
+	private static Range reserveRange() {
+		long index = rangesReserved.getAndIncrement() % RANGES_IN_POOL;
+		return new Range((int) ((index + 1) * RANGE_SIZE));
+	}
+}
@@ -4,7 +4,10 @@ import java.util.ArrayList;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import ai.Evaluation;
+import ai.GameSnapshot;
 import akka.actor.ActorRef;
+import commands.BasicCommands;
 import commands.CheckMessageIsNotNullOnTell;
 import events.CardClicked;
 import events.TileClicked;
@@ -34,8 +37,9 @@ public class AILogic {
 		
 		// declare convenience variables (add as necessary)
 		ActorRef out = gameState.getOut();		
-		Player AIPlayer = gameState.getAIPlayer();
-		Player HumanPlayer = gameState.getHumanPlayer();
+		// the AI plays for whichever player's turn it is (the AI player in a normal game, either player in self-play)
+		Player AIPlayer = gameState.getCurrentPlayer();
+		Player HumanPlayer = gameState.getOtherPlayer();
 		Board board = gameState.getBoard();
 		ArrayList<Unit> units = board.getUnits();		
 		
@@ -58,7 +62,7 @@ public class AILogic {
 	
 		// play cards
 		AILogicPlayCards.playCards(gameState);
-		try {Thread.sleep(800);} catch (InterruptedException e) {e.printStackTrace();}
+		BasicCommands.pause(800);
 		
 
 		// Perform moves and/or attack for each unit
@@ -85,7 +89,8 @@ public class AILogic {
 	
 	
 	/**
-	 * Helper method that will determine the most optimal move and attack actions for each AI unit, as called from playTurn()
+	 * Helper method that will determine the most optimal move and attack actions for each AI unit, as called from playTurn().
+	 * Options are taken from LegalMoves, only the chosen actions are played out as clicks.
 	 * @param unit - The Unit performing the move/attack
 	 * @param board - Current Game Board
 	 * @param HumanPlayer - The Human (Adversary) player
@@ -100,16 +105,14 @@ public class AILogic {
 		Tile enemyAvatarLocation = board.getTile(enemyAvatar.getPosition().getTilex(), enemyAvatar.getPosition().getTiley());
 		int xPos = unit.getPosition().getTilex();
 		int yPos = unit.getPosition().getTiley();
+		Player player = unit.getPlayer();
 		
-		// simulate a click on the unit.
-		clickOnTile(out, gameState, board.getTile(xPos, yPos));
+		// the unit may have died earlier this turn
+		if(board.getTile(xPos, yPos).getUnit() != unit) return;
 
-		// populate potential attacks and moves
-		ArrayList<Tile> moveLocations = board.getHighlightedTiles(1);
-		ArrayList<Tile> enemyLocations = board.getHighlightedTiles(2);
-		
-		// delay to improve feel of UI
-		try {Thread.sleep(500);} catch (InterruptedException e) {e.printStackTrace();}
+		// potential moves and attacks, the same tiles clicking on the unit would highlight
+		ArrayList<Tile> moveLocations = board.getTiles(LegalMoves.moveTargets(board, player, unit));
+		ArrayList<Tile> enemyLocations = board.getTiles(LegalMoves.attackTargets(board, player, unit));
 		
 		// variable to store the action we decide to take
 		Tile firstActionTile = null;
@@ -190,19 +193,9 @@ public class AILogic {
 				firstActionTile = adjacentUnitTile;
 			}else if(unit.isAvatar()) {
 				
-				// Avatars should prioritise moving away from units. However, if it can easily kill this unit, then it should.
-				if((adjacentUnit.getUnitHealth() <= unit.getUnitAttack()) || adjacentUnit.getUnitAttack()*2 < unit.getUnitHealth()) {
-					// Make the Avatar avoid provoking units, and all other units when it's health is below half. 
-					if(adjacentUnit.getAbilities().contains("provoke")) {
-						firstActionTile = adjacentUnitTile;
-					}else if(unit.getUnitHealth() < 10){
-						firstActionTile = getFurthestTile(unit, enemyLocations, board, moveLocations);
-					}else {
-						firstActionTile = adjacentUnitTile;
-					}
-				}else{
-					firstActionTile = getFurthestTile(unit, enemyLocations, board, moveLocations);
-				}
+				// Avatars should prioritise moving away from units. However, if the evaluation favours trading blows with this unit, then it should attack.
+				Tile retreatTile = getFurthestTile(unit, enemyLocations, board, moveLocations);
+				firstActionTile = attackScoresBetter(gameState, unit, adjacentUnitTile, retreatTile) ? adjacentUnitTile : retreatTile;
 			}else {
 				// Logic for normal units
 				
@@ -210,16 +203,10 @@ public class AILogic {
 				if(adjacentUnit.getAbilities().contains("provoke") || adjacentUnit.getAbilities().contains("ranged")) {
 					firstActionTile = adjacentUnitTile;
 					
-				// else, attack if the situation calls for it.
-				}else if(adjacentUnit.getUnitHealth() <= unit.getUnitAttack()) {
-					firstActionTile = adjacentUnitTile;
-				}else if(adjacentUnit.getUnitAttack()*2 <= unit.getUnitHealth() && (unit.getUnitHealth()*2 >= unit.getStartingHealth())) {
-					firstActionTile = adjacentUnitTile;
-				}else if(adjacentUnit.getUnitAttack() >= unit.getUnitHealth() && unit.getUnitAttack() < adjacentUnit.getUnitHealth()) {
-					firstActionTile = getFurthestTile(unit, enemyLocations, board, moveLocations);
+				// else, attack unless the evaluation favours moving away. But if we move away all the time, this is frustrating to play against, so ties attack.
 				}else {
-					// Attack by default. Above, we move away if the situation calls. But if we move away all the time, this is frustrating to play against.
-					firstActionTile = adjacentUnitTile; 
+					Tile retreatTile = getFurthestTile(unit, enemyLocations, board, moveLocations);
+					firstActionTile = attackScoresBetter(gameState, unit, adjacentUnitTile, retreatTile) ? adjacentUnitTile : retreatTile;
 				}
 			}
 			
@@ -285,8 +272,12 @@ public class AILogic {
 			}
 		}
 		
-		// perform the first action (move or attack) if there is one
+		// perform the first action (move or attack) if there is one, selecting the unit first as a user would
 		if(firstActionTile != null) {
+			clickOnTile(out, gameState, board.getTile(xPos, yPos));
+			
+			// delay to improve feel of UI
+			BasicCommands.pause(500);
 			clickOnTile(out, gameState, firstActionTile);
 		}
 		
@@ -305,6 +296,39 @@ public class AILogic {
 	}
 	
 	
+	/**
+	 * Helper Method - Compares attacking an enemy unit with moving away to retreatTile, by the score Evaluation gives the state each would leave.
+	 * Used instead of fixed health and attack thresholds, so these choices follow the same evaluation as the card plays and the search-based AIs.
+	 * @param gameState - Current GameState
+	 * @param unit - The AI unit choosing
+	 * @param attackTile - Tile of the enemy unit
+	 * @param retreatTile - Tile the unit would move to instead, staying put if this isn't a tile it can move to
+	 * @return true if attacking scores at least as well as retreating
+	 */
+	private static boolean attackScoresBetter(GameState gameState, Unit unit, Tile attackTile, Tile retreatTile) {
+		GameSnapshot state = GameSnapshot.of(gameState);
+		int height = state.getHeight();
+		int slot = state.getUnitAt(unit.getPosition().getTilex() * height + unit.getPosition().getTiley());
+		int target = attackTile.getTilex() * height + attackTile.getTiley();
+		if(slot == GameSnapshot.NO_UNIT || (state.attackTargets(slot) & (1L << target)) == 0) {
+			return false;
+		}
+		
+		GameSnapshot attacked = state.play(GameSnapshot.encode(GameSnapshot.ATTACK, slot, target));
+		GameSnapshot retreated = state;
+		if(retreatTile != null) {
+			int retreat = retreatTile.getTilex() * height + retreatTile.getTiley();
+			if((state.moveTargets(slot) & (1L << retreat)) != 0) {
+				retreated = state.play(GameSnapshot.encode(GameSnapshot.MOVE, slot, retreat));
+			}
+		}
+		
+		// scores are from player 1's point of view, the human player in a normal game
+		int sign = (state.getCurrentPlayer() == 0) ? 1 : -1;
+		return sign * Evaluation.score(attacked) >= sign * Evaluation.score(retreated);
+	}
+	
+	
 	/**
 	 * Helper Method - Used to retrieve the AI player's card that currently has the highest mana cost
 	 * @param cards - All the cards currently in the AI Player's hand
@@ -1,6 +1,9 @@
 package structures.basic;
 
 import java.util.ArrayList;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import akka.actor.ActorRef;
 import commands.BasicCommands;
 import utils.BasicObjectBuilders;
@@ -9,6 +12,18 @@ import utils.BasicObjectBuilders;
  * Representation of the gameboard as a two dimensional array of Tile objects. Contains a list of units currently present on the board,
  * as well as methods to add units to or remove units from the gameboard. Contains the logic for establishing the valid tiles a unit
  * can move to or attack, as well as a functions tiles to indicate these actions to the user.
+ * 
+ * Alongside the Tile array the board keeps a set of bitboards (one long per concern, bit x * height + y for tile (x, y))
+ * recording occupancy, ownership, provoke/ranged units and highlighting. These are kept in sync by the tiles themselves
+ * whenever a unit is placed/removed or a tile is highlighted, so most board queries are a few bitwise operations.
+ * 
+ * The board also keeps the Zobrist hash of its units (see utils.Zobrist), updated as units are placed, removed or
+ * change their stats, for GameState.getPositionKey().
+ * 
+ * Threat maps: for the unit on each tile the board keeps the tiles it can move to and the tiles it could attack, and for
+ * each player the union of what their units could attack. A unit's reach only depends on the tiles within two steps of
+ * it (flying units' on every empty tile), so placing or removing a unit only marks the units near it as stale, and they
+ * are recomputed the next time they are asked for. Unchanged units are never rescanned.
  */
 
 public class Board {
@@ -19,20 +34,94 @@ public class Board {
 	private int height;
 	ActorRef out;
 
+	// incremented whenever a unit is placed on or removed from a tile, so cached results can be invalidated
+	private int version = 0;
+
+	// bitboards mirroring the state of the tiles
+	private final long allTiles;
+	private final long[] adjacentTiles;
+	private long occupied = 0L;
+	private long humanUnits = 0L;
+	private long aiUnits = 0L;
+	private long provokeUnits = 0L;
+	private long rangedUnits = 0L;
+	private long flyingUnits = 0L;
+	private long highlightedMode1 = 0L;
+	private long highlightedMode2 = 0L;
+
+	// Zobrist key of the unit on each tile as last hashed (0 if empty), and the XOR of them all
+	private final long[] tileKeys;
+	private long unitHash = 0L;
+
+	// threat maps: per tile, where the unit on it can move to and what it could attack, recomputed for the tiles in
+	// staleReach when next asked for; per player (0 human, 1 AI), the tiles their units could attack
+	private final long[] withinTwoSteps;
+	private final long[] moveReach;
+	private final long[] attackReach;
+	private long staleReach = 0L;
+	private final long[] threat = new long[2];
+	private boolean threatStale = true;
+
+	// highlighting currently shown on the front-end, and how many highlight frames are open
+	private long displayedMode1 = 0L;
+	private long displayedMode2 = 0L;
+	private int openFrames = 0;
+
+	// most recently computed reachable tiles, reused while the board is unchanged
+	private ReachableTiles cachedReach;
+	private Unit cachedReachUnit;
+	private Tile cachedReachOrigin;
+	private int cachedReachMoves;
+	private int cachedReachVersion = -1;
+
 	public Board(ActorRef out, int width, int height) {
 		this.tiles = new Tile[width][height];
 		this.out = out;
 		this.width = width;
 		this.height = height;
 
-		// create gameboard of specified width and height
+		// bitboards hold one bit per tile
+		if (width * height > Long.SIZE) {
+			throw new IllegalArgumentException("Board of " + width + "x" + height + " tiles is too large to be represented by bitboards");
+		}
+		this.allTiles = (width * height == Long.SIZE) ? -1L : (1L << (width * height)) - 1;
+		this.adjacentTiles = new long[width * height];
+		this.tileKeys = new long[width * height];
+		this.withinTwoSteps = new long[width * height];
+		this.moveReach = new long[width * height];
+		this.attackReach = new long[width * height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				long adjacent = 0L;
+				for (int i = x - 1; i <= x + 1; i++) {
+					for (int j = y - 1; j <= y + 1; j++) {
+						if (!(i == x && j == y) && i >= 0 && j >= 0 && i < width && j < height) {
+							adjacent |= tileBit(i, j);
+						}
+					}
+				}
+				adjacentTiles[getTileIndex(x, y)] = adjacent;
+
+				long nearby = 0L;
+				for (int i = Math.max(0, x - 2); i <= Math.min(width - 1, x + 2); i++) {
+					for (int j = Math.max(0, y - 2); j <= Math.min(height - 1, y + 2); j++) {
+						if (Math.abs(i - x) + Math.abs(j - y) <= 2) {
+							nearby |= tileBit(i, j);
+						}
+					}
+				}
+				withinTwoSteps[getTileIndex(x, y)] = nearby;
+			}
+		}
+
+		// create gameboard of specified width and height, and draw it on the front-end in one go
 		for (int i = 0; i < width; i++) {
 			for (int j = 0; j < height; j++) {
 				this.tiles[i][j] = BasicObjectBuilders.loadTile(i, j);
 				this.tiles[i][j].setBoard(this);
-				BasicCommands.drawTile(out, this.tiles[i][j], 0);
 			}
 		}
+		BasicCommands.drawTiles(out, getTiles(allTiles), new int[width * height]);
 		this.units = new ArrayList<Unit>();
 	}
 
@@ -84,18 +173,394 @@ public class Board {
 
 
 	/**
-	 * Highlight a given tile in a given mode
+	 * Called by tiles belonging to this board whenever a unit is placed on them
+	 */
+	void unitPlaced(Tile tile, Unit unit) {
+		long bit = tileBit(tile.getTilex(), tile.getTiley());
+		clearUnitBits(bit);
+		occupied |= bit;
+
+		Player player = unit.getPlayer();
+		if (player != null) {
+			if (player.isHuman()) {
+				humanUnits |= bit;
+			} else {
+				aiUnits |= bit;
+			}
+		}
+		if (unit.getAbilities() != null) {
+			if (unit.getAbilities().contains("provoke")) {
+				provokeUnits |= bit;
+			}
+			if (unit.getAbilities().contains("ranged")) {
+				rangedUnits |= bit;
+			}
+			if (unit.getAbilities().contains("flying")) {
+				flyingUnits |= bit;
+			}
+		}
+		rehashTile(tile, unit);
+		reachChanged(tile);
+		version++;
+	}
+
+
+	/**
+	 * Called by tiles belonging to this board whenever a unit is removed from them
+	 */
+	void unitRemoved(Tile tile) {
+		clearUnitBits(tileBit(tile.getTilex(), tile.getTiley()));
+		int index = getTileIndex(tile.getTilex(), tile.getTiley());
+		unitHash ^= tileKeys[index];
+		tileKeys[index] = 0L;
+		reachChanged(tile);
+		version++;
+	}
+
+
+	/**
+	 * Called by units on this board whenever a stat in their Zobrist key changes
+	 */
+	void unitChanged(Tile tile, Unit unit) {
+		rehashTile(tile, unit);
+		// their owner or abilities may have changed
+		staleReach |= tileBit(tile.getTilex(), tile.getTiley());
+		threatStale = true;
+	}
+
+
+	/**
+	 * Mark the reach of the units a unit being placed on or removed from tile could block, provoke or make room for
+	 */
+	private void reachChanged(Tile tile) {
+		staleReach |= withinTwoSteps[getTileIndex(tile.getTilex(), tile.getTiley())] | flyingUnits;
+		threatStale = true;
+	}
+
+
+	private void rehashTile(Tile tile, Unit unit) {
+		int index = getTileIndex(tile.getTilex(), tile.getTiley());
+		long key = unit.zobristKey(index);
+		unitHash ^= tileKeys[index] ^ key;
+		tileKeys[index] = key;
+	}
+
+
+	/**
+	 * @return long - the XOR of the Zobrist keys of the units on the board, kept up to date as they change
+	 */
+	@JsonIgnore
+	public long getUnitHash() {
+		return unitHash;
+	}
+
+
+	private void clearUnitBits(long bit) {
+		occupied &= ~bit;
+		humanUnits &= ~bit;
+		aiUnits &= ~bit;
+		provokeUnits &= ~bit;
+		rangedUnits &= ~bit;
+		flyingUnits &= ~bit;
+	}
+
+
+	/**
+	 * Called by tiles belonging to this board whenever their highlight mode changes
+	 */
+	void tileHighlighted(Tile tile, int mode) {
+		long bit = tileBit(tile.getTilex(), tile.getTiley());
+		highlightedMode1 = (mode == 1) ? highlightedMode1 | bit : highlightedMode1 & ~bit;
+		highlightedMode2 = (mode == 2) ? highlightedMode2 | bit : highlightedMode2 & ~bit;
+	}
+
+
+	///////////////////////////////////////////////// Bitboard queries /////////////////////////////////////////////////
+
+	/**
+	 * @return the bit index used for tile (x, y) in all of the board's bitboards
+	 */
+	public int getTileIndex(int x, int y) {
+		return x * height + y;
+	}
+
+
+	/**
+	 * @return a bitboard with only tile (x, y) set
+	 */
+	public long tileBit(int x, int y) {
+		return 1L << getTileIndex(x, y);
+	}
+
+
+	/**
+	 * @return a bitboard of the (up to 8) tiles surrounding tile (x, y)
+	 */
+	public long getAdjacentMask(int x, int y) {
+		return adjacentTiles[getTileIndex(x, y)];
+	}
+
+
+	/**
+	 * @return a bitboard of the tiles surrounding any of the tiles in mask, excluding the tiles in mask
+	 */
+	public long getAdjacentMask(long mask) {
+		long result = 0L;
+		long remaining = mask;
+		while (remaining != 0) {
+			result |= adjacentTiles[Long.numberOfTrailingZeros(remaining)];
+			remaining &= remaining - 1;
+		}
+		return result & ~mask;
+	}
+
+
+	@JsonIgnore
+	public long getAllTilesMask() {
+		return allTiles;
+	}
+
+
+	@JsonIgnore
+	public long getOccupiedMask() {
+		return occupied;
+	}
+
+
+	@JsonIgnore
+	public long getEmptyMask() {
+		return allTiles & ~occupied;
+	}
+
+
+	@JsonIgnore
+	public long getHumanUnitMask() {
+		return humanUnits;
+	}
+
+
+	@JsonIgnore
+	public long getAIUnitMask() {
+		return aiUnits;
+	}
+
+
+	@JsonIgnore
+	public long getProvokeMask() {
+		return provokeUnits;
+	}
+
+
+	@JsonIgnore
+	public long getRangedMask() {
+		return rangedUnits;
+	}
+
+
+	/**
+	 * @return a bitboard of the tiles occupied by units belonging to player
+	 */
+	public long getPlayerUnitMask(Player player) {
+		return player.isHuman() ? humanUnits : aiUnits;
+	}
+
+
+	/**
+	 * @return a bitboard of the tiles occupied by units not belonging to player
+	 */
+	public long getEnemyUnitMask(Player player) {
+		return occupied & ~getPlayerUnitMask(player);
+	}
+
+
+	/**
+	 * @return a bitboard of the tiles the unit on tile (x, y) can end a move of up to two steps on, whether or not it has
+	 * moved this turn or is provoked, 0 if there is no unit
+	 */
+	public long getMoveReachMask(int x, int y) {
+		refreshReach();
+		return moveReach[getTileIndex(x, y)];
+	}
+
+
+	/**
+	 * @return a bitboard of the tiles the unit on tile (x, y) could attack were it to move and attack this turn: anywhere
+	 * for ranged units, next to any tile it can move to (any empty tile for flying units) otherwise, and only the
+	 * provoking units if it is provoked. 0 if there is no unit
+	 */
+	public long getAttackReachMask(int x, int y) {
+		refreshReach();
+		return attackReach[getTileIndex(x, y)];
+	}
+
+
+	/**
+	 * @return a bitboard of the tiles player's units could attack, as getAttackReachMask()
+	 */
+	public long getThreatMask(Player player) {
+		if (threatStale) {
+			refreshReach();
+			threat[0] = 0L;
+			threat[1] = 0L;
+			for (long mask = occupied; mask != 0; mask &= mask - 1) {
+				int index = Long.numberOfTrailingZeros(mask);
+				threat[((humanUnits >>> index) & 1L) != 0 ? 0 : 1] |= attackReach[index];
+			}
+			threatStale = false;
+		}
+		return threat[player.isHuman() ? 0 : 1];
+	}
+
+
+	/**
+	 * @return true if any of player's units could attack tile (x, y)
+	 */
+	public boolean isThreatened(int x, int y, Player player) {
+		return (getThreatMask(player) & tileBit(x, y)) != 0;
+	}
+
+
+	/**
+	 * Recompute the reach of the units marked stale
+	 */
+	private void refreshReach() {
+		long stale = staleReach;
+		staleReach = 0L;
+		for (long mask = stale; mask != 0; mask &= mask - 1) {
+			int index = Long.numberOfTrailingZeros(mask);
+			Tile tile = tiles[index / height][index % height];
+			Unit unit = tile.getUnit();
+			if (unit == null || unit.getPlayer() == null) {
+				moveReach[index] = 0L;
+				attackReach[index] = 0L;
+				continue;
+			}
+			long bit = 1L << index;
+			moveReach[index] = ReachableTiles.compute(this, unit.getPlayer(), unit, tile, 2).getMask() & ~bit;
+
+			long provoking = adjacentTiles[index] & getEnemyUnitMask(unit.getPlayer()) & provokeUnits;
+			if (provoking != 0L) {
+				attackReach[index] = provoking;
+			} else if ((rangedUnits & bit) != 0) {
+				attackReach[index] = allTiles & ~bit;
+			} else {
+				// every tile next to one it can attack from, including those it could move to
+				long reach = 0L;
+				for (long from = moveReach[index] | bit | (((flyingUnits & bit) != 0) ? getEmptyMask() : 0L); from != 0; from &= from - 1) {
+					reach |= adjacentTiles[Long.numberOfTrailingZeros(from)];
+				}
+				attackReach[index] = reach & ~bit;
+			}
+		}
+	}
+
+
+	/**
+	 * @param mode - highlight mode (0 - normal; 1 - white; 2 - red)
+	 * @return a bitboard of the tiles currently highlighted in mode
+	 */
+	public long getHighlightMask(int mode) {
+		if (mode == 1) {
+			return highlightedMode1;
+		} else if (mode == 2) {
+			return highlightedMode2;
+		} else if (mode == 0) {
+			return allTiles & ~(highlightedMode1 | highlightedMode2);
+		}
+		return 0L;
+	}
+
+
+	/**
+	 * @return the tiles set in mask, in board order (x ascending, then y ascending)
+	 */
+	public ArrayList<Tile> getTiles(long mask) {
+		ArrayList<Tile> result = new ArrayList<>(Long.bitCount(mask));
+		long remaining = mask & allTiles;
+		while (remaining != 0) {
+			int i = Long.numberOfTrailingZeros(remaining);
+			result.add(tiles[i / height][i % height]);
+			remaining &= remaining - 1;
+		}
+		return result;
+	}
+
+
+	/**
+	 * Highlight every tile set in mask in a given mode
+	 * 
+	 * @param mask - bitboard of tiles to highlight
+	 * @param mode - mode to highlight (0 - normal; 1 - white; 2 - red)
+	 */
+	public void highlightMask(long mask, int mode) {
+		long remaining = mask & allTiles;
+		while (remaining != 0) {
+			int i = Long.numberOfTrailingZeros(remaining);
+			highlightTile(i / height, i % height, mode);
+			remaining &= remaining - 1;
+		}
+	}
+
+
+	/**
+	 * Highlight a given tile in a given mode. If a highlight frame is open the front-end is only updated when
+	 * the frame is flushed, otherwise the tile is redrawn immediately.
 	 * 
 	 * @param x - horizontal position of tile (zero-indexed)
 	 * @param y - vertical position of tile (zero-indexed)
 	 * @param mode - mode to highlight (0 - normal; 1 - white; 2 - red)
 	 */
 	public void highlightTile(int x, int y, int mode) {
-		BasicCommands.drawTile(out, this.tiles[x][y], mode);
 		tiles[x][y].setHighlighted(mode);
+		if (openFrames > 0) {
+			return;
+		}
+
+		BasicCommands.drawTile(out, this.tiles[x][y], mode);
+		long bit = tileBit(x, y);
+		displayedMode1 = (mode == 1) ? displayedMode1 | bit : displayedMode1 & ~bit;
+		displayedMode2 = (mode == 2) ? displayedMode2 | bit : displayedMode2 & ~bit;
 
 		// delay to avoid causing buffer overflow by sending too many requests to the front end at once
-		try {Thread.sleep(10);} catch (InterruptedException e) {}
+		BasicCommands.pause(10);
+	}
+
+
+	/**
+	 * Start collecting highlight changes into a single frame rather than redrawing each tile as it is highlighted.
+	 * Frames can be nested, only the outermost flushHighlightFrame() sends anything to the front-end.
+	 */
+	public void beginHighlightFrame() {
+		openFrames++;
+	}
+
+
+	/**
+	 * Close a highlight frame. When the outermost frame is closed, the tiles whose highlight mode differs from what
+	 * the front-end is currently showing are sent in one drawTiles message (nothing is sent if no tile changed).
+	 */
+	public void flushHighlightFrame() {
+		if (openFrames == 0) {
+			return;
+		}
+		openFrames--;
+		if (openFrames > 0) {
+			return;
+		}
+
+		long changed = ((highlightedMode1 ^ displayedMode1) | (highlightedMode2 ^ displayedMode2)) & allTiles;
+		if (changed == 0) {
+			return;
+		}
+
+		ArrayList<Tile> changedTiles = getTiles(changed);
+		int[] modes = new int[changedTiles.size()];
+		for (int i = 0; i < modes.length; i++) {
+			modes[i] = changedTiles.get(i).getHighlighted();
+		}
+		BasicCommands.drawTiles(out, changedTiles, modes);
+		displayedMode1 = highlightedMode1;
+		displayedMode2 = highlightedMode2;
 	}
 
 
@@ -146,13 +611,7 @@ public class Board {
 	 * @param mode - mode to highlight (0 - normal; 1 - white; 2 - red)
 	 */
 	public void highlightFlyingTiles(Player player, int mode) {
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				if (!tiles[i][j].hasUnit()) {
-					highlightTile(i, j, mode);
-				}
-			}
-		}
+		highlightMask(getEmptyMask(), mode);
 	}
 
 	
@@ -164,16 +623,7 @@ public class Board {
 	 * @param mode - mode to highlight (0 - normal; 1 - white; 2 - red)
 	 */
 	public void highlightRangedUnits(Player player, int mode) {
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				if (tiles[i][j].hasUnit()) {
-					Unit unit = tiles[i][j].getUnit();
-					if (unit.getPlayer() != player) {
-						highlightTile(i, j, mode);
-					}
-				}
-			}
-		}
+		highlightMask(getEnemyUnitMask(player), mode);
 	}
 
 	
@@ -202,13 +652,7 @@ public class Board {
 	 * @param mode - mode to highlight (0 - normal; 1 - white; 2 - red)
 	 */
 	public void highlightEmpty(int mode) {
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				if (!tiles[i][j].hasUnit()) {
-					highlightTile(i, j, mode);
-				}
-			}
-		}
+		highlightMask(getEmptyMask(), mode);
 	}
 
 	
@@ -219,27 +663,8 @@ public class Board {
 	 * @param mode - mode to highlight (0 - normal; 1 - white; 2 - red)
 	 */
 	public void highlightSummonLocations(Player player, int mode) {
-		for (Unit unit : units) {
-			if (unit.getPlayer().equals(player)) {
-
-				// get position of unit
-				Position position = unit.getPosition();
-				int horizontalPos = position.getTilex();
-				int verticalPos = position.getTiley();
-
-				// highlight adjacent tiles if empty
-				for (int x = horizontalPos - 1; x <= horizontalPos + 1; x++) {
-					for (int y = verticalPos - 1; y <= verticalPos + 1; y++) {
-						if (!(x == horizontalPos && y == verticalPos)
-								&& (x >= 0 && y >= 0 && x < width && y < height)) {
-							if (!tiles[x][y].hasUnit()) {
-								highlightTile(x, y, mode);
-							}
-						}
-					}
-				}
-			}
-		}
+		// empty tiles adjacent to any of the player's units
+		highlightMask(getAdjacentMask(getPlayerUnitMask(player)) & getEmptyMask(), mode);
 	}
 
 	
@@ -251,21 +676,8 @@ public class Board {
 	 */
 	public void highlightAttacks(Player player, Tile tile) {
 
-		Unit unit = tile.getUnit();
-
-		int horizontalPos = tile.getTilex();
-		int verticalPos = tile.getTiley();
-
 		// highlight adjacent tiles if they contain an enemy unit
-		for (int x = horizontalPos - 1; x <= horizontalPos + 1; x++) {
-			for (int y = verticalPos - 1; y <= verticalPos + 1; y++) {
-				if (!(x == horizontalPos && y == verticalPos) && (x >= 0 && y >= 0 && x < width && y < height)) {
-					if (tiles[x][y].hasUnit() && !tiles[x][y].getUnit().getPlayer().equals(player)) {
-						highlightTile(x, y, 2);
-					}
-				}
-			}
-		}
+		highlightMask(getAdjacentMask(tile.getTilex(), tile.getTiley()) & getEnemyUnitMask(player), 2);
 	}
 
 	
@@ -277,36 +689,11 @@ public class Board {
 	 */
 	public void highlightMoveAndAttacks(Player player, Tile tile) {
 
-		Unit unit = tile.getUnit();
-
-		int horizontalPos = tile.getTilex();
-		int verticalPos = tile.getTiley();
-
-		// highlight tiles which can be attacked by performing a 'move & attack'
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
+		// tiles that can be reached in two steps or fewer from the current position
+		long reachable = getMoveReachMask(tile.getTilex(), tile.getTiley());
 
-				if (!(x == horizontalPos && y == verticalPos)) {
-					Tile t = getTile(x, y);
-					// if we can reach a tile in two steps or fewer from the current position
-					if (canBeReached(player, unit, tile, t, 2)) {
-						
-						// then highlight any adjacent tile with an enemy unit
-						for (int i = x - 1; i <= x + 1; i++) {
-							for (int j = y - 1; j <= y + 1; j++) {
-								if (i >= 0 && j >= 0 && i < width && j < height) {
-
-									// only highlight tiles with enemy units
-									if (tiles[i][j].hasUnit() && !tiles[i][j].getUnit().getPlayer().equals(player)) {
-										highlightTile(i, j, 2);
-									}
-								}
-							}
-						}
-					}
-				}
-			}
-		}
+		// highlight any enemy unit adjacent to a tile we can move to
+		highlightMask(getAdjacentMask(reachable) & getEnemyUnitMask(player), 2);
 	}
 
 	
@@ -324,59 +711,32 @@ public class Board {
 	 * @return boolean - true is the unit on origin can reach destination in 'moves' or fewer steps
 	 */
 	public boolean canBeReached(Player player, Unit unit, Tile origin, Tile destination, int moves) {
+		return getReachableTiles(player, unit, origin, moves).contains(destination);
+	}
 
-		// maximum steps exceeded
-		if (moves < 0) {
-			return false;
-		}
-
-		// get origin and dest positions
-		int originX = origin.getTilex();
-		int originY = origin.getTiley();
-
-		int destX = destination.getTilex();
-		int destY = destination.getTiley();
-
-		// if origin == dest and we have made at least one step then it means we can move to dest from origin
-		if (moves != 2) {
-			if (originX == destX && originY == destY) {
-				if (!origin.hasUnit()) {
-					return true;
-				}
-			}
-		}
 
-		// step up / down / left / right, decrement moves, and make recursive call
-		for (int i = -1; i <= 1; i++) {
-			for (int j = -1; j <= 1; j++) {
-				// don't include diagonal steps
-				if (Math.abs(j) != Math.abs(i)) {
-					// make sure step would not go off edge of board
-					if (originX + i >= 0 && originY + j >= 0 && originX + i < width && originY + j < height) {
-
-						// tile we have stepped to
-						Tile newOrigin = getTile(originX + i, originY + j);
-
-						// if the tile we have stepped to has a unit then we can only step through it if it belongs to player
-						if (newOrigin.hasUnit()) {
-							if (newOrigin.getUnit().getPlayer().equals(player) && !newOrigin.getUnit().equals(unit)) {
-								if (canBeReached(player, unit, newOrigin, destination, moves - 1)) {
-									return true;
-								}
-							}
-						}
-						// tile doesn't have a unit so we can step through it
-						else {
-							if (canBeReached(player, unit, newOrigin, destination, moves - 1)) {
-								return true;
-							}
-						}
-					}
-				}
-			}
+	/**
+	 * Computes every tile the unit on origin can move to in 'moves' or fewer horizontal/vertical steps, in a single
+	 * breadth first search. The result is cached and returned again for repeated calls while no unit has been placed
+	 * on or removed from the board.
+	 * 
+	 * @param player - the player of the unit on the origin tile
+	 * @param unit - the unit on the origin tile
+	 * @param origin - tile unit we are starting from
+	 * @param moves - parameter controlling number of steps a unit can make
+	 * 
+	 * @return ReachableTiles - the set of tiles the unit can legally end its move on
+	 */
+	public ReachableTiles getReachableTiles(Player player, Unit unit, Tile origin, int moves) {
+		if (cachedReach == null || cachedReachVersion != version || cachedReachUnit != unit
+				|| cachedReachOrigin != origin || cachedReachMoves != moves) {
+			cachedReach = ReachableTiles.compute(this, player, unit, origin, moves);
+			cachedReachUnit = unit;
+			cachedReachOrigin = origin;
+			cachedReachMoves = moves;
+			cachedReachVersion = version;
 		}
-		// exhausted possible routes to reach destination without finding a valid route
-		return false;
+		return cachedReach;
 	}
 
 	
@@ -387,18 +747,16 @@ public class Board {
 	 * @param tile - the tile the unit is on
 	 */
 	public void highlightMoves(Player player, Tile tile) {
-		Unit unit = tile.getUnit();
-
 		int horizontalPos = tile.getTilex();
 		int verticalPos = tile.getTiley();
+		long reachable = getMoveReachMask(horizontalPos, verticalPos);
 		// for tiles within maximum moving range (two steps)
 		for (int x = horizontalPos - 2; x <= horizontalPos + 2; x++) {
 			for (int y = verticalPos - 2; y <= verticalPos + 2; y++) {
 				// if unit is not already on tile, and tile within board limits
 				if (!(x == horizontalPos && y == verticalPos) && (x >= 0 && y >= 0 && x < width && y < height)) {
-					Tile t = getTile(x, y);
 					// highlight the tile if tile it can be reached legally
-					if (canBeReached(player, unit, tile, t, 2)) {
+					if ((reachable & tileBit(x, y)) != 0) {
 						highlightTile(x, y, 1);
 					}
 				}
@@ -417,36 +775,9 @@ public class Board {
 	 */
 	 
 	public ArrayList<Tile> getProvokingUnitTiles(Tile tile, Player player){
-		ArrayList<Tile> result = new ArrayList<>();
-		
-		int Xpos = tile.getTilex();
-		int Ypos = tile.getTiley();
-				
-		int[] offset = {-1,0,1};
-		
-		for(int i : offset) {
-			for(int j : offset) {
-				// ignore tile unit occupies
-				if(!(i==0 && j==0)) {
-					
-					int targetX = Xpos+i; int targetY = Ypos+j;
-					
-					// check if target X and Y are within board
-					if(targetX>=0 && targetY>=0 && targetX < this.width && targetY < this.height) { 
-						Tile targetTile = tiles[targetX][targetY];
-						// check if target tile has a unit (to avoid null pointer exceptions in next stage)
-						if(targetTile.hasUnit()) {
-							Unit adjacentUnit = targetTile.getUnit();
-							// check if adjacent unit has provoke ability and belongs to enemy
-							if(adjacentUnit.getAbilities().contains("provoke") && adjacentUnit.getPlayer()!=player) {
-								result.add(targetTile);
-							}
-						}
-					}
-				}
-			}
-		}
-		return result;
+		// adjacent tiles containing an enemy unit with the provoke ability
+		long provoking = getAdjacentMask(tile.getTilex(), tile.getTiley()) & getEnemyUnitMask(player) & provokeUnits;
+		return getTiles(provoking);
 	}
 	
 	
@@ -462,15 +793,6 @@ public class Board {
 	}
 
 	public ArrayList<Tile> getHighlightedTiles(int requiredMode) {
-		ArrayList<Tile> result = new ArrayList<>();
-		
-		for(Tile[] row: tiles) {
-			for(Tile t: row) {
-				if(t.getHighlighted()==requiredMode) {
-					result.add(t);
-				}
-			}
-		}
-		return result;
+		return getTiles(getHighlightMask(requiredMode));
 	}
 }
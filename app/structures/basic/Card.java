@@ -1,6 +1,10 @@
 package structures.basic;
 
 import java.util.ArrayList;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 import akka.actor.ActorRef;
 import commands.BasicCommands;
 import structures.GameState;
@@ -27,6 +31,10 @@ public class Card {
 	
 	private MiniCard miniCard;
 	private BigCard bigCard;
+
+	// cached front-end representation of the card, cleared whenever one of the fields it is built from is set
+	@JsonIgnore
+	private ObjectNode renderJson;
 	
 	public Card() {};
 	
@@ -48,6 +56,7 @@ public class Card {
 	
 	public void setId(int id) {
 		this.id = id;
+		renderJson = null;
 	}
 	
 	
@@ -58,6 +67,7 @@ public class Card {
 	
 	public void setCardname(String cardname) {
 		this.cardname = cardname;
+		renderJson = null;
 	}
 	
 	
@@ -68,6 +78,7 @@ public class Card {
 	
 	public void setManacost(int manacost) {
 		this.manacost = manacost;
+		renderJson = null;
 	}
 	
 	
@@ -78,6 +89,7 @@ public class Card {
 	
 	public void setMiniCard(MiniCard miniCard) {
 		this.miniCard = miniCard;
+		renderJson = null;
 	}
 	
 	
@@ -88,6 +100,22 @@ public class Card {
 	
 	public void setBigCard(BigCard bigCard) {
 		this.bigCard = bigCard;
+		renderJson = null;
+	}
+	
+	
+	/**
+	 * @return the JSON fragment last written for this card by JsonWriters, or null if one of the fields sent to
+	 * the front-end has been set since
+	 */
+	@JsonIgnore
+	public ObjectNode getRenderJson() {
+		return renderJson;
+	}
+	
+	
+	public void setRenderJson(ObjectNode renderJson) {
+		this.renderJson = renderJson;
 	}
 	
 	
@@ -179,11 +207,11 @@ public class Card {
 		Board board = gameState.getBoard();
 		
 		// summon the unit
-		Unit unit = BasicObjectBuilders.loadUnit(CardNameToUnit.map.get(card.getCardname()), card.getId(), Unit.class);
+		Unit unit = BasicObjectBuilders.loadUnit(CardNameToUnit.map.get(card.getCardname()), gameState.nextId(), Unit.class);
 		unit.setPositionByTile(tile); 
 		unit.setPlayer(currentPlayer);
 		BasicCommands.drawUnit(out, unit, tile);
-		try {Thread.sleep(100);} catch (InterruptedException e) {e.printStackTrace();}
+		BasicCommands.pause(100);
 		unit.setUnitAttack(out, card.getBigCard().getAttack());
 		unit.setUnitHealth(out, card.getBigCard().getHealth());
 		// 2 attacks per turn for serpenti/azurite lion, otherwise 1
@@ -203,7 +231,7 @@ public class Card {
 			int newHealth = currentPlayer.getAvatar().getUnitHealth() + 3;
 			if(newHealth > 20) {newHealth = 20;}
 			currentPlayer.getAvatar().setUnitHealth(out, newHealth);
-			try {Thread.sleep(100);} catch (InterruptedException e) {e.printStackTrace();}					
+			BasicCommands.pause(100);					
 		}
 		
 		if(unit.getAbilities().contains("drawCardOnSummon")) {
@@ -26,4 +26,12 @@ public class Deck {
 		return cards.size();
 	}
 	
+	
+	/**
+	 * @return the cards left in the deck, in the order they will be drawn
+	 */
+	public ArrayList<Card> getCards() {
+		return cards;
+	}
+	
 }
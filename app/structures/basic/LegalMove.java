@@ -0,0 +1,69 @@
+package structures.basic;
+
+/**
+ * One action a player can legally take on their turn: moving a unit, attacking with a unit
+ * (possibly moving first), summoning a unit from a card or casting a spell card. Generated by
+ * LegalMoves.
+ */
+public class LegalMove {
+
+	public enum Type { MOVE, ATTACK, SUMMON, SPELL }
+
+	private final Type type;
+	private final Unit unit;
+	private final Card card;
+	private final Tile target;
+
+
+	private LegalMove(Type type, Unit unit, Card card, Tile target) {
+		this.type = type;
+		this.unit = unit;
+		this.card = card;
+		this.target = target;
+	}
+
+
+	public static LegalMove unitAction(Type type, Unit unit, Tile target) {
+		return new LegalMove(type, unit, null, target);
+	}
+
+
+	public static LegalMove cardAction(Type type, Card card, Tile target) {
+		return new LegalMove(type, null, card, target);
+	}
+
+
+	public Type getType() {
+		return type;
+	}
+
+
+	/**
+	 * @return the unit moving or attacking, null for card actions
+	 */
+	public Unit getUnit() {
+		return unit;
+	}
+
+
+	/**
+	 * @return the card summoned or cast, null for unit actions
+	 */
+	public Card getCard() {
+		return card;
+	}
+
+
+	/**
+	 * @return the tile moved to, attacked, summoned to or targeted by the spell
+	 */
+	public Tile getTarget() {
+		return target;
+	}
+
+
+	public String toString() {
+		String actor = (unit != null) ? "unit " + unit.getId() : card.getCardname();
+		return type + " " + actor + " -> (" + target.getTilex() + "," + target.getTiley() + ")";
+	}
+}
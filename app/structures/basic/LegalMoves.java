@@ -0,0 +1,155 @@
+package structures.basic;
+
+import java.util.ArrayList;
+
+import structures.GameState;
+
+/**
+ * Generates the actions a player can legally take, straight from the board's bitboards and
+ * without selecting anything or changing any highlighting. TileClicked and CardClicked highlight
+ * exactly these tiles when a unit or card is selected, so the AI can plan with these methods and
+ * only replay the actions it chooses as clicks.
+ *
+ * Each method returns a bitboard of target tiles, indexed as in Board (bit x * height + y). Units' reach comes from
+ * the board's threat maps, which are only recomputed for units near a change, so these are cheap to call repeatedly.
+ */
+public class LegalMoves {
+
+	/**
+	 * Tiles the unit can move to this turn (highlighted white when the unit is selected)
+	 *
+	 * @param board - the board
+	 * @param player - the player the unit belongs to
+	 * @param unit - the unit to move
+	 * @return long - bitboard of tiles the unit can end a move on
+	 */
+	public static long moveTargets(Board board, Player player, Unit unit) {
+		Tile tile = tileOf(board, unit);
+		if (unit.getMovesRemaining() <= 0 || provokingMask(board, player, tile) != 0L) {
+			return 0L;
+		}
+		long mask = board.getMoveReachMask(tile.getTilex(), tile.getTiley());
+		if (unit.getAbilities().contains("flying")) {
+			mask |= board.getEmptyMask();
+		}
+		return mask & ~board.tileBit(tile.getTilex(), tile.getTiley());
+	}
+
+
+	/**
+	 * Tiles holding units the unit can attack this turn, moving first if it has to (highlighted red when the unit is selected)
+	 *
+	 * @param board - the board
+	 * @param player - the player the unit belongs to
+	 * @param unit - the attacking unit
+	 * @return long - bitboard of tiles holding units that can be attacked
+	 */
+	public static long attackTargets(Board board, Player player, Unit unit) {
+		if (unit.getAttacksRemaining() <= 0) {
+			return 0L;
+		}
+		Tile tile = tileOf(board, unit);
+
+		// provoking units must be attacked first
+		long provoking = provokingMask(board, player, tile);
+		if (provoking != 0L) {
+			return provoking;
+		}
+		long enemies = board.getEnemyUnitMask(player);
+		if (unit.getAbilities().contains("ranged")) {
+			return enemies;
+		}
+		long mask = board.getAdjacentMask(tile.getTilex(), tile.getTiley()) & enemies;
+		if (unit.getAttacksPerTurn() == 2 || unit.getMovesRemaining() > 0) {
+			// enemies next to a tile the unit can move to
+			mask |= board.getAdjacentMask(board.getMoveReachMask(tile.getTilex(), tile.getTiley())) & enemies;
+		}
+		return mask;
+	}
+
+
+	/**
+	 * Tiles a card can be played on (highlighted red when the card is selected), regardless of mana
+	 *
+	 * @param board - the board
+	 * @param player - the player playing the card
+	 * @param enemy - the player's opponent
+	 * @param card - the card to play
+	 * @return long - bitboard of tiles the card can be played on
+	 */
+	public static long cardTargets(Board board, Player player, Player enemy, Card card) {
+		String cardName = card.getCardname();
+		if (cardName.equals("Truestrike")) {
+			// any enemy unit
+			return board.getPlayerUnitMask(enemy);
+		} else if (cardName.equals("Sundrop Elixir")) {
+			// any friendly unit
+			return board.getPlayerUnitMask(player);
+		} else if (cardName.equals("Staff of Y'Kir'")) {
+			// own avatar
+			return avatarMask(board, player);
+		} else if (cardName.equals("Entropic Decay")) {
+			// any enemy unit except the avatar
+			return board.getPlayerUnitMask(enemy) & ~avatarMask(board, enemy);
+		} else if (cardName.equals("Ironcliff Guardian") || cardName.equals("Planar Scout")) {
+			// can be summoned anywhere
+			return board.getEmptyMask();
+		}
+		// other units can only be summoned next to a friendly unit
+		return board.getAdjacentMask(board.getPlayerUnitMask(player)) & board.getEmptyMask();
+	}
+
+
+	/**
+	 * Every action the player whose turn it is can take now: card plays they have the mana for, then the moves and
+	 * attacks of each of their units
+	 *
+	 * @param gameState - the game
+	 * @return ArrayList<LegalMove>
+	 */
+	public static ArrayList<LegalMove> generate(GameState gameState) {
+		Board board = gameState.getBoard();
+		Player player = gameState.getCurrentPlayer();
+		Player enemy = gameState.getOtherPlayer();
+		ArrayList<LegalMove> moves = new ArrayList<LegalMove>();
+
+		for (Card card : player.getCards()) {
+			if (card.getManacost() > player.getMana()) {
+				continue;
+			}
+			LegalMove.Type type = card.isUnitCard() ? LegalMove.Type.SUMMON : LegalMove.Type.SPELL;
+			for (Tile target : board.getTiles(cardTargets(board, player, enemy, card))) {
+				moves.add(LegalMove.cardAction(type, card, target));
+			}
+		}
+
+		for (Unit unit : board.getUnits()) {
+			if (!unit.getPlayer().equals(player)) {
+				continue;
+			}
+			for (Tile target : board.getTiles(moveTargets(board, player, unit))) {
+				moves.add(LegalMove.unitAction(LegalMove.Type.MOVE, unit, target));
+			}
+			for (Tile target : board.getTiles(attackTargets(board, player, unit))) {
+				moves.add(LegalMove.unitAction(LegalMove.Type.ATTACK, unit, target));
+			}
+		}
+		return moves;
+	}
+
+
+	private static Tile tileOf(Board board, Unit unit) {
+		return board.getTile(unit.getPosition().getTilex(), unit.getPosition().getTiley());
+	}
+
+
+	private static long provokingMask(Board board, Player player, Tile tile) {
+		return board.getAdjacentMask(tile.getTilex(), tile.getTiley()) & board.getEnemyUnitMask(player) & board.getProvokeMask();
+	}
+
+
+	private static long avatarMask(Board board, Player player) {
+		Position position = player.getAvatar().getPosition();
+		return board.tileBit(position.getTilex(), position.getTiley()) & board.getOccupiedMask();
+	}
+}
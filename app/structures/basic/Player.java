@@ -1,10 +1,12 @@
 package structures.basic;
 
 import java.util.ArrayList;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import akka.actor.ActorRef;
 import commands.BasicCommands;
 import structures.GameState;
+import utils.Zobrist;
 
 /**
  * A basic representation of of the Player. A player has health and mana.
@@ -16,6 +18,8 @@ import structures.GameState;
  */
 public class Player {
 
+	public static final int HAND_SIZE = 6; // cards a player can hold
+
 	private int health;
 	private int mana;
 	
@@ -24,12 +28,13 @@ public class Player {
 	private Unit avatar;
 	
 	private Deck deck;
-	private Card[] cards = new Card[6];
+	private Card[] cards = new Card[HAND_SIZE];
 	private int nextPosition = 0;
 	private ActorRef out;
 	private GameState gameState;
 	private boolean human;
 	private int turnNumber = 1;
+	private long handHash = 0L; // XOR of the Zobrist keys of the cards in the hand, kept up to date as it changes
 	
 	
 	public Player() {
@@ -63,7 +68,7 @@ public class Player {
 	 */			
 	public void createAvatar(String configFile, Tile startTile) {
 		
-		// ID for other units is based on Card ID. Setting id to -1 to human and -2 for AI avatars
+		// IDs for other units come from the game's IdAllocator, which never hands out negative IDs. Setting id to -1 to human and -2 for AI avatars
 		int id = human ? -1 : -2;
 		Unit avatar = Unit.createAvatar(configFile, startTile,id);
 		avatar.setPlayer(this);
@@ -71,12 +76,18 @@ public class Player {
 		
 		BasicCommands.drawUnit(out, getAvatar(), startTile);
 		
-		try {Thread.sleep(100);} catch (InterruptedException e) {e.printStackTrace();}
+		BasicCommands.pause(100);
 		avatar.setUnitHealth(out, health);
 		avatar.setUnitAttack(out, 2);
 	}
 
 	
+	@JsonIgnore
+	public boolean isHuman() {
+		return human;
+	}
+
+	
 	public int getTurnNumber() {
 		return turnNumber;
 	}
@@ -106,7 +117,7 @@ public class Player {
 			gameState.endGame(out, this);
 		}
 		
-		try {Thread.sleep(100);} catch (InterruptedException e) {e.printStackTrace();}
+		BasicCommands.pause(100);
 
 		// Update humanplayer or AI health on front end
 		if(human) {
@@ -136,6 +147,17 @@ public class Player {
 		return mana;
 	}
 
+
+	/**
+	 * Set the player's health, mana and turn number without updating the UI or triggering any effects, e.g. when
+	 * decoding a saved game (see structures.GameStateCodec)
+	 */
+	public void restoreStats(int health, int mana, int turnNumber) {
+		this.health = health;
+		this.mana = mana;
+		this.turnNumber = turnNumber;
+	}
+
 	
 	public void setMana(int mana) {
 		this.mana = mana;
@@ -173,7 +195,7 @@ public class Player {
 				
 				if(cards[i]!=null) {
 					BasicCommands.drawCard(out, cards[i], i+1, 0);
-					try {Thread.sleep(100);} catch (InterruptedException e) {e.printStackTrace();}
+					BasicCommands.pause(100);
 				}
 			}
 		}
@@ -195,6 +217,7 @@ public class Player {
 			// draw next card from deck and put in player's hand
 			Card nextCard = deck.drawCard();
 			cards[nextPosition] = nextCard;
+			handHash ^= handKey(nextPosition);
 			nextPosition++;
 			// display updated cards on UI
 			refreshOnUI();
@@ -227,11 +250,18 @@ public class Player {
 	 */
 	public void cardUsed(int p) {
 
+		// the used card and those after it, which move down one place, change their keys
+		for(int i = p-1; i< nextPosition; i++) {
+			handHash ^= handKey(i);
+		}
 		for(int i = p-1; i< nextPosition-1; i++) {
 			cards[i] = cards[i+1];
 		}
 		cards[nextPosition-1] = null;
 		nextPosition--;
+		for(int i = p-1; i< nextPosition; i++) {
+			handHash ^= handKey(i);
+		}
 
 		refreshOnUI();	
 	}
@@ -278,7 +308,9 @@ public class Player {
 		refreshOnUI();
 		if (!human) {
 			BasicCommands.addPlayer1Notification(out, "Computer's Turn", 2);
-			AILogic.playTurn(gameState);
+			if (gameState.isAiAutoPlay()) {
+				gameState.getAiPlayer().playTurn(gameState);
+			}
 		} else {
 			BasicCommands.addPlayer1Notification(out, "Player's Turn", 2);
 			// UI should only be activated to accept user clicks if it is the user's turn
@@ -313,7 +345,35 @@ public class Player {
 	
 	// for testing only, use drawCard() instead in game logic
 	public void setCard(int handPosition, Card card) {
+		handHash ^= handKey(handPosition);
 		cards[handPosition] = card;
+		handHash ^= handKey(handPosition);
+	}
+	
+	
+	/**
+	 * Zobrist key of the card at a position in the hand, 0 if there is none
+	 */
+	private long handKey(int handPosition) {
+		Card card = cards[handPosition];
+		return (card == null) ? 0L : Zobrist.handKey(human ? 0 : 1, handPosition, Zobrist.cardKey(card.getCardname()));
+	}
+	
+	
+	/**
+	 * The Zobrist key of this player's part of the position (see utils.Zobrist): their hand, whose key is kept up to date
+	 * as cards are drawn and used, mixed with their health, mana, turn number and the number of cards left in their deck.
+	 * 
+	 * @return long
+	 */
+	@JsonIgnore
+	public long getPositionKey() {
+		int handSize = 0;
+		for (Card card : cards) {
+			if (card != null) handSize++;
+		}
+		int cardsLeft = (deck == null) ? 0 : deck.getDeckSize();
+		return Zobrist.playerKey(human ? 0 : 1, health, mana, turnNumber, handSize, cardsLeft) ^ handHash;
 	}
 
 }
\ No newline at end of file
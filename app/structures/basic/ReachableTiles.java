@@ -0,0 +1,148 @@
+package structures.basic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The set of tiles a unit can legally move to from a given origin tile, computed in a single
+ * breadth first search over the board's bitboards (each step of the search expands the whole
+ * frontier at once with shifts). Tiles are stored as bits in a long (the board is 9x5 so
+ * it always fits), indexed column by column in the same order as Board's nested tile loops,
+ * i.e. bit (x * height + y) is set if tile (x, y) can be reached.
+ *
+ * A unit can step up/down/left/right onto empty tiles, and can pass through (but not stop on)
+ * tiles occupied by other friendly units. Enemy units block movement.
+ */
+public class ReachableTiles {
+
+	private final long mask;
+	private final int width;
+	private final int height;
+	private final int[] steps;
+
+
+	private ReachableTiles(long mask, int width, int height, int[] steps) {
+		this.mask = mask;
+		this.width = width;
+		this.height = height;
+		this.steps = steps;
+	}
+
+
+	/**
+	 * Run the breadth first search for the unit on origin
+	 *
+	 * @param board - the board to search
+	 * @param player - the player the unit belongs to
+	 * @param unit - the unit which is moving
+	 * @param origin - the tile the unit is starting from
+	 * @param moves - maximum number of steps the unit can make
+	 *
+	 * @return ReachableTiles - the tiles the unit can end its move on
+	 */
+	public static ReachableTiles compute(Board board, Player player, Unit unit, Tile origin, int moves) {
+		int width = board.getWidth();
+		int height = board.getHeight();
+
+		// number of steps taken to reach each tile, -1 if not yet visited
+		int[] steps = new int[width * height];
+		Arrays.fill(steps, -1);
+
+		// tiles in the top and bottom rows, used to stop vertical steps wrapping into the neighbouring column
+		long topRow = 0L;
+		long bottomRow = 0L;
+		for (int x = 0; x < width; x++) {
+			topRow |= board.tileBit(x, 0);
+			bottomRow |= board.tileBit(x, height - 1);
+		}
+
+		// a unit can step onto empty tiles, or pass through tiles holding other friendly units
+		long originBit = board.tileBit(origin.getTilex(), origin.getTiley());
+		long empty = board.getEmptyMask();
+		long passable = (empty | board.getPlayerUnitMask(player)) & ~originBit;
+
+		long visited = originBit;
+		long frontier = originBit;
+		long mask = 0L;
+		steps[index(origin.getTilex(), origin.getTiley(), height)] = 0;
+
+		// expand the whole frontier by one up / down / left / right step at a time
+		for (int step = 1; step <= moves && frontier != 0; step++) {
+			long next = ((frontier << 1) & ~topRow) | ((frontier >>> 1) & ~bottomRow)
+					| (frontier << height) | (frontier >>> height);
+			next &= passable & ~visited;
+
+			long remaining = next;
+			while (remaining != 0) {
+				steps[Long.numberOfTrailingZeros(remaining)] = step;
+				remaining &= remaining - 1;
+			}
+
+			// unit can only end its move on an empty tile
+			mask |= next & empty;
+			visited |= next;
+			frontier = next;
+		}
+		return new ReachableTiles(mask, width, height, steps);
+	}
+
+
+	private static int index(int x, int y, int height) {
+		return x * height + y;
+	}
+
+
+	/**
+	 * @return true if the unit can end its move on tile (x, y)
+	 */
+	public boolean contains(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return false;
+		}
+		return (mask & (1L << index(x, y, height))) != 0;
+	}
+
+
+	/**
+	 * @return true if the unit can end its move on tile
+	 */
+	public boolean contains(Tile tile) {
+		return contains(tile.getTilex(), tile.getTiley());
+	}
+
+
+	/**
+	 * @return the number of steps along the shortest legal path to tile (x, y), or -1 if it can't be reached
+	 */
+	public int getSteps(int x, int y) {
+		if (!contains(x, y)) {
+			return -1;
+		}
+		return steps[index(x, y, height)];
+	}
+
+
+	public long getMask() {
+		return mask;
+	}
+
+
+	public boolean isEmpty() {
+		return mask == 0L;
+	}
+
+
+	/**
+	 * @return the reachable tiles in board order (x ascending, then y ascending)
+	 */
+	public ArrayList<Tile> getTiles(Board board) {
+		ArrayList<Tile> result = new ArrayList<>(Long.bitCount(mask));
+		long remaining = mask;
+		while (remaining != 0) {
+			int i = Long.numberOfTrailingZeros(remaining);
+			result.add(board.getTile(i / height, i % height));
+			remaining &= remaining - 1;
+		}
+		return result;
+	}
+}
@@ -6,6 +6,7 @@ import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
  * A basic representation of a tile on the game board. Tiles have both a pixel position
@@ -31,6 +32,10 @@ public class Tile {
 	private Unit unit;
 	private int highlighted = 0;
 	private Board board;
+
+	// cached front-end representation of the tile, cleared whenever one of the fields it is built from is set
+	@JsonIgnore
+	private ObjectNode renderJson;
 	
 	public Tile() {}
 	
@@ -65,6 +70,7 @@ public class Tile {
 	
 	public void setTileTextures(List<String> tileTextures) {
 		this.tileTextures = tileTextures;
+		renderJson = null;
 	}
 	
 	
@@ -75,6 +81,7 @@ public class Tile {
 	
 	public void setXpos(int xpos) {
 		this.xpos = xpos;
+		renderJson = null;
 	}
 	
 	
@@ -85,6 +92,7 @@ public class Tile {
 	
 	public void setYpos(int ypos) {
 		this.ypos = ypos;
+		renderJson = null;
 	}
 	
 	
@@ -95,6 +103,7 @@ public class Tile {
 	
 	public void setWidth(int width) {
 		this.width = width;
+		renderJson = null;
 	}
 	
 	
@@ -105,6 +114,7 @@ public class Tile {
 	
 	public void setHeight(int height) {
 		this.height = height;
+		renderJson = null;
 	}
 	
 	
@@ -115,6 +125,7 @@ public class Tile {
 	
 	public void setTilex(int tilex) {
 		this.tilex = tilex;
+		renderJson = null;
 	}
 	
 	
@@ -125,6 +136,22 @@ public class Tile {
 	
 	public void setTiley(int tiley) {
 		this.tiley = tiley;
+		renderJson = null;
+	}
+	
+	
+	/**
+	 * @return the JSON fragment last written for this tile by JsonWriters, or null if one of the fields sent to
+	 * the front-end has been set since
+	 */
+	@JsonIgnore
+	public ObjectNode getRenderJson() {
+		return renderJson;
+	}
+	
+	
+	public void setRenderJson(ObjectNode renderJson) {
+		this.renderJson = renderJson;
 	}
 	
 	
@@ -133,6 +160,9 @@ public class Tile {
 		hasUnit = true;
 		unit.setTile(this);
 		unit.setPositionByTile(this);
+		if (board != null) {
+			board.unitPlaced(this, unit);
+		}
 	}
 	
 	
@@ -144,6 +174,9 @@ public class Tile {
 	public void removeUnit() {
 		this.unit = null;
 		hasUnit=false;
+		if (board != null) {
+			board.unitRemoved(this);
+		}
 	}
 	
 	
@@ -154,6 +187,9 @@ public class Tile {
 	
 	public void setHighlighted(int mode) {
 		this.highlighted = mode;
+		if (board != null) {
+			board.tileHighlighted(this, mode);
+		}
 	}
 
 	
@@ -6,12 +6,14 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import ai.Abilities;
 import akka.actor.ActorRef;
 import commands.BasicCommands;
 import structures.GameState;
 import utils.BasicObjectBuilders;
 import utils.StaticConfFiles;
 import utils.UnitAttributes;
+import utils.Zobrist;
 
 /**
  * This is a representation of a Unit on the game board. A unit has a unique id
@@ -57,6 +59,7 @@ public class Unit {
 	private Tile tile;
 	private boolean isAvatar;
 	private ArrayList<String> abilities;
+	private String configFile; // the configuration file the unit was loaded from, which decides its kind
 
 	public Unit() {}
 
@@ -163,6 +166,7 @@ public class Unit {
 	
 	public void setPlayer(Player player) {
 		this.player = player;
+		statsChanged();
 	}
 
 	
@@ -179,6 +183,7 @@ public class Unit {
 		if (this.startingHealth == 0) {
 			this.startingHealth = unitHealth;
 		}
+		statsChanged();
 
 		// if unit is an avatar then set player's health to the same value
 		if (this.isAvatar) {
@@ -188,11 +193,7 @@ public class Unit {
 		// if unit has died
 		if (this.unitHealth <= 0) {
 			BasicCommands.playUnitAnimation(out, this, UnitAnimationType.death);
-			try {
-				Thread.sleep(1000);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
+			BasicCommands.pause(1000);
 			BasicCommands.deleteUnit(out, this);
 			tile.getBoard().removeUnit(this, tile.getTilex(), tile.getTiley());
 			
@@ -214,6 +215,7 @@ public class Unit {
 	
 	public void setUnitAttack(ActorRef out, int unitAttack) {
 		this.unitAttack = unitAttack;
+		statsChanged();
 
 		// update attack on UI
 		BasicCommands.setUnitAttack(out, this, unitAttack);
@@ -227,6 +229,7 @@ public class Unit {
 	
 	public void setAttacksRemaining(int attacksRemaining) {
 		this.attacksRemaining = attacksRemaining;
+		statsChanged();
 	}
 
 	
@@ -235,6 +238,7 @@ public class Unit {
 		this.attacksRemaining = attacksPerTurn;
 		// a unit can only ever move once per turn, even if it is able to attack twice
 		this.movesRemaining = 1;
+		statsChanged();
 	}
 
 	
@@ -245,6 +249,7 @@ public class Unit {
 	
 	public void setMovesRemaining(int movesRemaining) {
 		this.movesRemaining = movesRemaining;
+		statsChanged();
 	}
 
 	
@@ -288,6 +293,7 @@ public class Unit {
 						attack(out, targetTile, targetUnit, gameState);
 						attacksRemaining--;
 						movesRemaining--;
+						statsChanged();
 					}
 				} 
 				// tile is non-adjacent so perform a move and attack
@@ -296,6 +302,7 @@ public class Unit {
 						moveAndAttack(out, targetTile, targetUnit, gameState);
 						movesRemaining--;
 						attacksRemaining--;
+						statsChanged();
 					}
 				}
 			}
@@ -307,6 +314,7 @@ public class Unit {
 			if (targetTile.getHighlighted() == 1 && movesRemaining > 0) {
 				move(out, targetTile, gameState);
 				movesRemaining--;
+				statsChanged();
 			}
 		}
 	}
@@ -345,10 +353,10 @@ public class Unit {
 		
 
 		// ... and wait the amount of time that allows unit to reach target
-		try {Thread.sleep(750 * distance);} catch (InterruptedException e) {e.printStackTrace();}
+		BasicCommands.pause(750 * distance);
 		
 		// additional delay
-		try {Thread.sleep(1000);} catch (InterruptedException e) {e.printStackTrace();}
+		BasicCommands.pause(1000);
 	}
 
 	
@@ -364,7 +372,7 @@ public class Unit {
 
 		// display standard attack animation
 		BasicCommands.playUnitAnimation(out, this, UnitAnimationType.attack);
-		try {Thread.sleep(1000);} catch (InterruptedException e) {e.printStackTrace();}
+		BasicCommands.pause(1000);
 		
 		
 		if (this.abilities.contains("ranged")) {
@@ -378,7 +386,7 @@ public class Unit {
 					+ Math.abs(this.tile.getTiley() - target.tile.getTiley());
 
 			// ... and wait the amount of time that allows projectile to reach target
-			try {Thread.sleep(100 * distance);} catch (InterruptedException e) {e.printStackTrace();}
+			BasicCommands.pause(100 * distance);
 		}
 	
 		// reduce unit health
@@ -415,7 +423,7 @@ public class Unit {
 		Tile moveToTile = moveAndAttackHelper(board, tile);
 		move(out, moveToTile, gameState);
 		
-		try {Thread.sleep(1000);} catch (InterruptedException e) {e.printStackTrace();}
+		BasicCommands.pause(1000);
 
 		// attack target
 		attack(out, tile, target, gameState);
@@ -433,7 +441,7 @@ public class Unit {
 	private void counterAttack(ActorRef out, Tile tile, Unit unit, GameState gameState) {
 		// display attack animation
 		BasicCommands.playUnitAnimation(out, this, UnitAnimationType.attack);
-		try {Thread.sleep(1000);} catch (InterruptedException e) {e.printStackTrace();}
+		BasicCommands.pause(1000);
 		
 		// set counterattack target's health to new value
 		int newUnitHealth = unit.getUnitHealth() - this.getUnitAttack();
@@ -450,11 +458,12 @@ public class Unit {
 	 */
 	public Tile moveAndAttackHelper(Board board, Tile attackTile) {
 		Tile t = null;
+		ReachableTiles reachable = board.getReachableTiles(player, this, this.tile, 2);
 		for (int steps = 1; steps <= 2; steps++) {
 			for (int i = 0; i < board.getWidth(); i++) {
 				for (int j = 0; j < board.getHeight(); j++) {
 					t = board.getTile(i, j);
-					if (t.isAdjacent(attackTile) && board.canBeReached(player, this, this.tile, t, 2)) {
+					if (t.isAdjacent(attackTile) && reachable.contains(t)) {
 						if (this.tile.stepsTo(t) == steps) {
 							return t;
 						}
@@ -561,6 +570,57 @@ public class Unit {
 	
 	public void setAbilities(String confFile) {
 		this.abilities = UnitAttributes.getAbilities(confFile);
+		statsChanged();
+	}
+
+
+	@JsonIgnore
+	public String getConfigFile() {
+		return configFile;
+	}
+
+
+	@JsonIgnore
+	public void setConfigFile(String configFile) {
+		this.configFile = configFile;
+	}
+
+
+	/**
+	 * Set the unit's stats without updating the UI or triggering any effects, e.g. when decoding a saved game
+	 * (see structures.GameStateCodec)
+	 */
+	public void restoreStats(int unitHealth, int unitAttack, int startingHealth, int attacksRemaining, int movesRemaining, int attacksPerTurn) {
+		this.unitHealth = unitHealth;
+		this.unitAttack = unitAttack;
+		this.startingHealth = startingHealth;
+		this.attacksRemaining = attacksRemaining;
+		this.movesRemaining = movesRemaining;
+		this.attacksPerTurn = attacksPerTurn;
+		statsChanged();
+	}
+
+
+	/**
+	 * The Zobrist key of this unit (see utils.Zobrist), for its tile, owner and stats
+	 * 
+	 * @param tileIndex - index of the unit's tile, x * board height + y
+	 * @return long
+	 */
+	long zobristKey(int tileIndex) {
+		int owner = (player == null || player.isHuman()) ? 0 : 1;
+		return Zobrist.unitKey(tileIndex, owner, unitHealth, unitAttack, startingHealth, attacksRemaining, movesRemaining,
+				attacksPerTurn, Abilities.fromNames(abilities));
+	}
+
+
+	/**
+	 * Let the board this unit is on update its hash after one of the stats in zobristKey() has changed
+	 */
+	private void statsChanged() {
+		if (tile != null && tile.getUnit() == this && tile.getBoard() != null) {
+			tile.getBoard().unitChanged(tile, this);
+		}
 	}
 
 	
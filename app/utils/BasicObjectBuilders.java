@@ -1,9 +1,16 @@
 package utils;
 
 import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import structures.basic.Card;
 import structures.basic.EffectAnimation;
@@ -13,6 +20,12 @@ import structures.basic.Unit;
 /**
  * This class contains methods for producing basic objects from configuration files
  * 
+ * Each configuration file is only read and parsed once, into a template that is kept for the lifetime of
+ * the JVM (warmTemplates() loads every file in StaticConfFiles up front). Objects are then built from the
+ * template without touching the disk. The parts of a unit or card which never change once loaded (animation
+ * set and image correction of a unit, mini and big card of a card) are built once and shared by every copy,
+ * and effect animations are shared outright, so none of these may be modified.
+ * 
  * @author Dr. Richard McCreadie
  *
  */
@@ -21,6 +34,63 @@ public class BasicObjectBuilders {
 	@JsonIgnore
 	protected static ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to read java objects from a file
 	
+	// parsed configuration files, keyed by path
+	private static final Map<String, JsonNode> templates = new ConcurrentHashMap<String, JsonNode>();
+	
+	// templates with the shared parts removed, so only the per-object fields are bound for each copy
+	private static final Map<String, JsonNode> unitTemplates = new ConcurrentHashMap<String, JsonNode>();
+	private static final Map<String, JsonNode> cardTemplates = new ConcurrentHashMap<String, JsonNode>();
+	
+	// parts shared between every object built from the same configuration file
+	private static final Map<String, Unit> unitPrototypes = new ConcurrentHashMap<String, Unit>();
+	private static final Map<String, Card> cardPrototypes = new ConcurrentHashMap<String, Card>();
+	private static final Map<String, EffectAnimation> effects = new ConcurrentHashMap<String, EffectAnimation>();
+	private static volatile Tile tilePrototype = null;
+	
+	/**
+	 * Reads and parses every configuration file listed in StaticConfFiles, so that no file is read during a game.
+	 * Files which cannot be read are reported and skipped, loading them later will report the error again.
+	 */
+	public static void warmTemplates() {
+		for (Field field : StaticConfFiles.class.getFields()) {
+			if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+				try {
+					template((String) field.get(null));
+				} catch (Exception e) {
+					System.err.println("BasicObjectBuilders: could not load template for "+field.getName()+": "+e.getMessage());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * The parsed contents of a configuration file, read from disk on first use only. The returned
+	 * tree is shared and must not be modified.
+	 * @param configurationFile
+	 * @return
+	 * @throws Exception
+	 */
+	public static JsonNode template(String configurationFile) throws Exception {
+		JsonNode template = templates.get(configurationFile);
+		if (template == null) {
+			template = mapper.readTree(new File(configurationFile));
+			templates.put(configurationFile, template);
+		}
+		return template;
+	}
+	
+	/**
+	 * Copy of a template without the given fields
+	 * @param template
+	 * @param sharedFields
+	 * @return
+	 */
+	private static JsonNode withoutFields(JsonNode template, String... sharedFields) {
+		ObjectNode copy = ((ObjectNode) template).deepCopy();
+		copy.remove(Arrays.asList(sharedFields));
+		return copy;
+	}
+	
 	/**
 	 * This class produces a Card object (or anything that extends Card) given a configuration
 	 * file. Configuration files can be found in the conf/gameconfs directory. The card should
@@ -36,7 +106,16 @@ public class BasicObjectBuilders {
 	 */
 	public static Card loadCard(String configurationFile, int id, Class<? extends Card> classtype) {
 		try {
-			Card card = mapper.readValue(new File(configurationFile), classtype);
+			Card prototype = cardPrototypes.get(configurationFile);
+			if (prototype == null) {
+				JsonNode template = template(configurationFile);
+				prototype = mapper.treeToValue(template, Card.class);
+				cardTemplates.put(configurationFile, withoutFields(template, "miniCard", "bigCard"));
+				cardPrototypes.put(configurationFile, prototype);
+			}
+			Card card = mapper.treeToValue(cardTemplates.get(configurationFile), classtype);
+			card.setMiniCard(prototype.getMiniCard());
+			card.setBigCard(prototype.getBigCard());
 			card.setId(id);
 			return card;
 		} catch (Exception e) {
@@ -49,12 +128,17 @@ public class BasicObjectBuilders {
 	/**
 	 * This class produces a EffectAnimation object given a configuration
 	 * file. Configuration files can be found in the conf/gameconfs directory.
+	 * The same EffectAnimation is returned each time for a given file.
 	 * @param configurationFile
 	 * @return
 	 */
 	public static EffectAnimation loadEffect(String configurationFile) {
 		try {
-			EffectAnimation effect = mapper.readValue(new File(configurationFile), EffectAnimation.class);
+			EffectAnimation effect = effects.get(configurationFile);
+			if (effect == null) {
+				effect = mapper.treeToValue(template(configurationFile), EffectAnimation.class);
+				effects.put(configurationFile, effect);
+			}
 			return effect;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -74,9 +158,19 @@ public class BasicObjectBuilders {
 	public static Unit loadUnit(String configFile, int id,  Class<? extends Unit> classType) {
 		
 		try {
-			Unit unit = mapper.readValue(new File(configFile), classType);
+			Unit prototype = unitPrototypes.get(configFile);
+			if (prototype == null) {
+				JsonNode template = template(configFile);
+				prototype = mapper.treeToValue(template, Unit.class);
+				unitTemplates.put(configFile, withoutFields(template, "animations", "correction"));
+				unitPrototypes.put(configFile, prototype);
+			}
+			Unit unit = mapper.treeToValue(unitTemplates.get(configFile), classType);
+			unit.setAnimations(prototype.getAnimations());
+			unit.setCorrection(prototype.getCorrection());
 			unit.setId(id);
 			unit.setAbilities(configFile);
+			unit.setConfigFile(configFile);
 			return unit;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -87,7 +181,8 @@ public class BasicObjectBuilders {
 	}
 	
 	/**
-	 * Generates a tile object with x and y indices
+	 * Generates a tile object with x and y indices. Every tile is stamped out from a single tile
+	 * parsed from the tile configuration file (once per JVM), sharing its list of textures.
 	 * @param x
 	 * @param y
 	 * @return
@@ -97,14 +192,31 @@ public class BasicObjectBuilders {
 		int gridTopLeftx = 410;
 		int gridTopLefty = 280;
 		
-		Tile tile = Tile.constructTile(StaticConfFiles.tileConf);
-		tile.setXpos((tile.getWidth()*x)+(gridmargin*x)+gridTopLeftx);
-		tile.setYpos((tile.getHeight()*y)+(gridmargin*y)+gridTopLefty);
-		tile.setTilex(x);
-		tile.setTiley(y);
-		
-		return tile;
+		Tile template = tileTemplate();
+		if (template == null) {
+			return null;
+		}
+		int width = template.getWidth();
+		int height = template.getHeight();
+		return new Tile(template.getTileTextures(), (width*x)+(gridmargin*x)+gridTopLeftx, (height*y)+(gridmargin*y)+gridTopLefty, width, height, x, y);
 		
 	}
 	
+	/**
+	 * The tile read from the tile configuration file, which all board tiles are copied from
+	 * @return
+	 */
+	private static Tile tileTemplate() {
+		Tile template = tilePrototype;
+		if (template == null) {
+			try {
+				template = mapper.treeToValue(template(StaticConfFiles.tileConf), Tile.class);
+				tilePrototype = template;
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		return template;
+	}
+	
 }
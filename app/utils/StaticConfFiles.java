@@ -70,4 +70,7 @@ public class StaticConfFiles {
 	public final static String f1_projectiles = "conf/gameconfs/effects/f1_projectiles.json";
 	public final static String f1_summon = "conf/gameconfs/effects/f1_summon.json";
 	
+	// AI
+	public final static String evaluationWeights = "conf/ai/evaluation.json";
+	
 }
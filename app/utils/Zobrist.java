@@ -0,0 +1,97 @@
+package utils;
+
+/**
+ * Zobrist keys for game positions. A position's key is the XOR of the keys of its parts (each
+ * unit on its tile, each player's health, mana, turn and deck, each card at its place in a hand,
+ * and whose turn it is), so a change to one part updates the key with two XORs.
+ *
+ * Rather than a table of random keys for every combination, each part's features are packed
+ * into a long and mixed with the splitmix64 finaliser, which gives equally independent, well
+ * spread keys. Keys depend only on the game (cards are keyed by name), never on ids or the
+ * order things were loaded in, so the same position has the same key in every process.
+ *
+ * The live game (GameState.getPositionKey()) and ai.GameSnapshot.zobrist() are built from
+ * these same keys and so agree.
+ *
+ */
+public final class Zobrist {
+
+	private Zobrist() {}
+
+
+	/**
+	 * @param z - any value
+	 * @return long - z mixed so every bit of the result depends on every bit of z
+	 */
+	public static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+
+	/**
+	 * Key of a unit on a tile
+	 *
+	 * @param tile - tile index, x * board height + y
+	 * @param owner - 0 for player 1 (human), 1 for player 2 (AI)
+	 * @param abilities - ability bits, see ai.Abilities
+	 */
+	public static long unitKey(int tile, int owner, int health, int attack, int startingHealth, int attacksRemaining,
+			int movesRemaining, int attacksPerTurn, int abilities) {
+		long features = tile
+				| ((long) owner << 6)
+				| ((long) (health & 0xFF) << 7)
+				| ((long) (attack & 0xFF) << 15)
+				| ((long) (startingHealth & 0xFF) << 23)
+				| ((long) (attacksRemaining & 0xF) << 31)
+				| ((long) (movesRemaining & 0xF) << 35)
+				| ((long) (attacksPerTurn & 0xF) << 39)
+				| ((long) abilities << 43);
+		return mix(features);
+	}
+
+
+	/**
+	 * Key of a player's health, mana, turn number and the sizes of their hand and deck
+	 *
+	 * @param player - 0 for player 1 (human), 1 for player 2 (AI)
+	 */
+	public static long playerKey(int player, int health, int mana, int turnNumber, int handSize, int cardsLeftInDeck) {
+		long salt = (player + 1L) << 56;
+		return mix(salt | (health & 0xFF) | (mana & 0xFF) << 8 | (long) (turnNumber & 0xFFF) << 16
+				| (long) handSize << 28 | (long) cardsLeftInDeck << 32);
+	}
+
+
+	/**
+	 * Key of a card at a position in a player's hand
+	 *
+	 * @param player - 0 for player 1 (human), 1 for player 2 (AI)
+	 * @param handIndex - 0 based position in the hand
+	 * @param cardKey - cardKey() of the card's name
+	 */
+	public static long handKey(int player, int handIndex, long cardKey) {
+		return mix(cardKey ^ ((player + 1L) << 56 | 1L << 52 | (long) handIndex << 32));
+	}
+
+
+	/**
+	 * @param cardName
+	 * @return long - the key of every card with this name
+	 */
+	public static long cardKey(String cardName) {
+		return mix(0xCA4D000000000000L ^ cardName.hashCode());
+	}
+
+
+	/**
+	 * Key of whose turn it is and who, if anyone, has lost
+	 *
+	 * @param current - player to move, 0 or 1
+	 * @param loser - player who has lost, -1 while the game is going
+	 */
+	public static long turnKey(int current, int loser) {
+		return mix(0x5EED0000L | current << 4 | (loser + 1));
+	}
+}
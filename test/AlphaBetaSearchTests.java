@@ -0,0 +1,124 @@
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.*;
+
+import ai.AlphaBetaSearch;
+import ai.Evaluation;
+import ai.GameSnapshot;
+import ai.SearchPool;
+import ai.TranspositionTable;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+
+/*
+ * Alpha-beta must find the same values as plain minimax, and the same moves whatever the number of threads and the
+ * contents of the transposition table.
+ */
+public class AlphaBetaSearchTests {
+
+	static final int POSITIONS = 12;
+
+	static GameSnapshot[] positions = new GameSnapshot[POSITIONS];
+
+	/*
+	 * Positions along a game of random moves
+	 */
+	@BeforeClass
+	public static void setup() {
+		GameState gameState = GameState.headless();
+		gameState.withUiSink(() -> new Initalize().processEvent(null, gameState, Json.newObject()));
+		GameSnapshot state = GameSnapshot.of(gameState);
+		Random random = new Random(3);
+		for (int i = 0; i < POSITIONS; i++) {
+			positions[i] = state;
+			for (int j = 0; j < 4 && !state.isOver(); j++) {
+				int[] moves = state.legalMoves();
+				state = state.play(moves[random.nextInt(moves.length)]);
+			}
+		}
+	}
+
+
+	/*
+	 * The value of the best move at depth 2 is the minimax value
+	 */
+	@Test
+	public void valuesMatchMinimax() {
+		AlphaBetaSearch search = new AlphaBetaSearch();
+		for (GameSnapshot position : positions) {
+			int value = search.search(position, 2).getValue();
+			int expected = minimax(position, 2);
+			assertTrue("Alpha-beta found " + value + ", minimax " + expected, value == expected);
+		}
+	}
+
+
+	/*
+	 * Four threads with a fresh table choose the same moves as one thread with a table shared by all the searches
+	 */
+	@Test
+	public void movesDoNotDependOnThreadsOrTable() {
+		AlphaBetaSearch sequential = new AlphaBetaSearch();
+		SearchPool pool = new SearchPool(4, 1);
+		try {
+			for (GameSnapshot position : positions) {
+				AlphaBetaSearch.Result expected = sequential.search(position, 3);
+				AlphaBetaSearch.Result parallel = new AlphaBetaSearch(new TranspositionTable(12)).search(position, 3, pool.getPool());
+				assertTrue("Parallel search chose " + parallel.getMove() + " rather than " + expected.getMove(),
+						parallel.getMove() == expected.getMove() && parallel.getValue() == expected.getValue());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	/*
+	 * Depths the search or the table can't handle are refused rather than searched
+	 */
+	@Test
+	public void refusesDepthsOutOfRange() {
+		AlphaBetaSearch search = new AlphaBetaSearch(new TranspositionTable(4));
+		for (int depth : new int[] { 0, -1, TranspositionTable.MAX_DEPTH + 1 }) {
+			boolean refused = false;
+			try {
+				search.search(positions[0], depth);
+			} catch (IllegalArgumentException e) {
+				refused = true;
+			}
+			assertTrue("Searched to depth " + depth, refused);
+		}
+	}
+
+
+	/*
+	 * Entries read back as stored, including negative values and no move
+	 */
+	@Test
+	public void tableStoresEntries() {
+		TranspositionTable table = new TranspositionTable(4);
+		table.store(12345L, 7, TranspositionTable.LOWER, -Evaluation.WIN, -1);
+		long data = table.probe(12345L);
+		assertTrue("Stored entry was not found", data != TranspositionTable.MISS);
+		assertTrue("Entry read back wrongly", TranspositionTable.value(data) == -Evaluation.WIN && TranspositionTable.depth(data) == 7
+				&& TranspositionTable.flag(data) == TranspositionTable.LOWER && TranspositionTable.move(data) == -1);
+		assertTrue("Entry found for another key in its slot", table.probe(12345L + 16) == TranspositionTable.MISS);
+	}
+
+
+	private static int minimax(GameSnapshot state, int depth) {
+		if (depth == 0 || state.isOver()) {
+			return Evaluation.score(state);
+		}
+		boolean maximising = state.getCurrentPlayer() == 0;
+		int best = maximising ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+		for (int move : state.legalMoves()) {
+			int value = minimax(state.play(move), depth - 1);
+			best = maximising ? Math.max(best, value) : Math.min(best, value);
+		}
+		return best;
+	}
+}
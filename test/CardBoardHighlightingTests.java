@@ -40,8 +40,16 @@ public class CardBoardHighlightingTests {
 		ObjectNode eventMessage = Json.newObject(); 
 		initalizeProcessor.processEvent(null, gameState, eventMessage);
 	}
-	
-	
+
+	/*
+	 * Clear any highlighting left by the previous test, as card clicks only send the tiles whose highlighting changed
+	 */
+	@Before
+	public void resetHighlighting() {
+		gameState.getBoard().highlightAll(0);
+	}
+
+
 	
 	/*
 	 * Example test for checking if a given tile has been highlighted
@@ -0,0 +1,143 @@
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.*;
+
+import ai.CardPlaySolver;
+import ai.Evaluation;
+import ai.GameSnapshot;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+
+/*
+ * The card-play solver must find the best plays within the player's mana, leave no card it could still play to advantage,
+ * and plan a turn in well under a millisecond.
+ */
+public class CardPlaySolverTests {
+
+	static final int TURNS = 16;
+
+	static List<GameSnapshot> positions = new ArrayList<GameSnapshot>();
+
+	/*
+	 * The start of each turn along a game of random moves
+	 */
+	@BeforeClass
+	public static void setup() {
+		GameState gameState = GameState.headless();
+		gameState.withUiSink(() -> new Initalize().processEvent(null, gameState, Json.newObject()));
+		GameSnapshot state = GameSnapshot.of(gameState);
+		Random random = new Random(5);
+		while (positions.size() < TURNS && !state.isOver()) {
+			positions.add(state);
+			int player = state.getCurrentPlayer();
+			for (int i = 0; i < 8 && !state.isOver() && state.getCurrentPlayer() == player; i++) {
+				int[] moves = state.legalMoves();
+				state = state.play(moves[random.nextInt(moves.length)]);
+			}
+			if (!state.isOver() && state.getCurrentPlayer() == player) {
+				state = state.play(GameSnapshot.encode(GameSnapshot.END_TURN, 0, 0));
+			}
+		}
+	}
+
+
+	/*
+	 * Trying every tile for summons, the plan scores as well as the best of every sequence of card plays
+	 */
+	@Test
+	public void planIsOptimal() {
+		CardPlaySolver solver = new CardPlaySolver(Evaluation::score, Integer.MAX_VALUE);
+		for (GameSnapshot position : positions) {
+			int player = position.getCurrentPlayer();
+			int expected = bruteForce(position, player);
+			int value = solver.value(position);
+			assertTrue("Solver found " + value + ", brute force " + expected, value == expected);
+			assertTrue("Plan doesn't reach its value", score(play(position, solver.solve(position)), player) == value);
+		}
+	}
+
+
+	/*
+	 * Plans are made of legal card plays, and leave no card which could still be played without lowering the score,
+	 * as mana is lost at the end of the turn
+	 */
+	@Test
+	public void planSpendsMana() {
+		CardPlaySolver solver = new CardPlaySolver();
+		for (GameSnapshot position : positions) {
+			int player = position.getCurrentPlayer();
+			GameSnapshot state = play(position, solver.solve(position));
+			for (int i = 0; i < state.getHandSize(player) && !state.isOver(); i++) {
+				for (long mask = state.cardTargets(i); mask != 0; mask &= mask - 1) {
+					GameSnapshot next = state.play(GameSnapshot.encode(GameSnapshot.CARD, i, Long.numberOfTrailingZeros(mask)));
+					assertTrue("Plan left " + state.getHandCard(player, i).getName() + " playable",
+							score(next, player) < score(state, player));
+				}
+			}
+		}
+	}
+
+
+	/*
+	 * After warming up, a plan takes well under a millisecond
+	 */
+	@Test
+	public void planTime() {
+		CardPlaySolver solver = new CardPlaySolver();
+		for (int i = 0; i < 200; i++) {
+			for (GameSnapshot position : positions) {
+				solver.solve(position);
+			}
+		}
+		int rounds = 200;
+		long timeBefore = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			for (GameSnapshot position : positions) {
+				solver.solve(position);
+			}
+		}
+		long nanos = (System.nanoTime() - timeBefore) / (rounds * positions.size());
+		assertTrue("Plan took " + nanos + " ns", nanos < 1000000L);
+	}
+
+
+	/*
+	 * Play each move of plan, checking it is a legal card play
+	 */
+	static GameSnapshot play(GameSnapshot state, int[] plan) {
+		for (int move : plan) {
+			assertTrue("Planned move isn't a card", GameSnapshot.moveType(move) == GameSnapshot.CARD);
+			assertTrue("Planned card can't be played there", (state.cardTargets(GameSnapshot.moveActor(move)) & (1L << GameSnapshot.moveTile(move))) != 0);
+			state = state.play(move);
+		}
+		return state;
+	}
+
+
+	static int score(GameSnapshot state, int player) {
+		return (player == 0) ? Evaluation.score(state) : -Evaluation.score(state);
+	}
+
+
+	/*
+	 * Best score over every sequence of card plays on every target
+	 */
+	static int bruteForce(GameSnapshot state, int player) {
+		int best = score(state, player);
+		if (state.isOver()) {
+			return best;
+		}
+		for (int i = 0; i < state.getHandSize(player); i++) {
+			for (long mask = state.cardTargets(i); mask != 0; mask &= mask - 1) {
+				GameSnapshot next = state.play(GameSnapshot.encode(GameSnapshot.CARD, i, Long.numberOfTrailingZeros(mask)));
+				best = Math.max(best, bruteForce(next, player));
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,53 @@
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.HeadlessSink;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+
+/*
+ * A game must be drawn on the front-end in one fullState message when it starts, rather than piece by piece, and the
+ * message must hold everything the separate commands did.
+ */
+public class FullStateTests {
+
+
+	/*
+	 * Initalizing a game sends its board, avatars, players and hand in a single fullState message, and no other drawing
+	 * commands for them
+	 */
+	@Test
+	public void initalizeSendsFullState() {
+		List<ObjectNode> messages = new ArrayList<ObjectNode>();
+		GameState gameState = new GameState();
+		gameState.setUiSink(new HeadlessSink(message -> messages.add(message)));
+		gameState.withUiSink(() -> new Initalize().processEvent(null, gameState, Json.newObject()));
+
+		List<ObjectNode> fullStates = new ArrayList<ObjectNode>();
+		for (ObjectNode message : messages) {
+			String type = message.get("messagetype").asText();
+			assertTrue("Game drawn piece by piece with " + type, !type.equals("drawTile") && !type.equals("drawUnit") && !type.equals("drawCard"));
+			if (type.equals("fullState")) {
+				fullStates.add(message);
+			}
+		}
+		assertTrue("Sent " + fullStates.size() + " fullState messages", fullStates.size() == 1);
+
+		JsonNode fullState = fullStates.get(0);
+		assertTrue("Tiles missing", fullState.get("tiles").size() == 45);
+		assertTrue("Avatars missing", fullState.get("units").size() == 2);
+		JsonNode avatar = fullState.get("units").get(0);
+		assertTrue("Avatar misplaced", avatar.get("tile").get("tilex").asInt() == 1 && avatar.get("tile").get("tiley").asInt() == 2);
+		assertTrue("Avatar's stats missing", avatar.get("unit").get("unitHealth").asInt() == 20 && avatar.get("unit").get("unitAttack").asInt() == 2);
+		assertTrue("Players' health missing", fullState.get("player1").get("health").asInt() == 20 && fullState.get("player2").get("health").asInt() == 20);
+		assertTrue("Hand missing", fullState.get("hand").size() == 3 && fullState.get("hand").get(2).get("position").asInt() == 3);
+		assertTrue("Wrong player to play", fullState.get("currentPlayer").asInt() == 1);
+	}
+}
@@ -0,0 +1,66 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.*;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import actors.GameHost;
+import actors.GameMetrics;
+import akka.actor.ActorSystem;
+
+/*
+ * Tests for admission control of games on a GameHost
+ */
+public class GameHostTests {
+
+	static ActorSystem actorSystem;
+
+	@BeforeClass
+	public static void setup() {
+		actorSystem = ActorSystem.create("GameHostTests");
+	}
+
+	@AfterClass
+	public static void teardown() {
+		actorSystem.terminate();
+	}
+
+
+	/*
+	 * No more than max-games games are admitted, and the place of a game which has stopped can be reused
+	 */
+	@Test
+	public void admitsUpToMaxGames() {
+		Config config = ConfigFactory.parseString("game.hosting.max-games = 2");
+		GameHost host = new GameHost(config, actorSystem);
+
+		assertTrue("First game not admitted", host.tryAdmit());
+		GameMetrics first = host.gameStarted();
+		assertTrue("Second game not admitted", host.tryAdmit());
+		host.gameStarted();
+		assertFalse("Game admitted over the limit", host.tryAdmit());
+		assertFalse("Connection accepted over the limit", host.hasRoom());
+		assertEquals(2, host.getRunningGames());
+
+		host.gameStopped(first);
+		assertTrue("Freed place not reused", host.tryAdmit());
+		assertEquals(1, host.metricsToJson().get("rejectedGames").asInt());
+		assertEquals(1, host.metricsToJson().get("refusedConnections").asInt());
+	}
+
+
+	/*
+	 * Settings missing from the config fall back to their defaults
+	 */
+	@Test
+	public void defaultsWhenNotConfigured() {
+		GameHost host = new GameHost(ConfigFactory.parseString(""), actorSystem);
+		assertEquals(GameHost.DEFAULT_MAX_GAMES, host.getMaxGames());
+
+		// no game dispatcher is configured in this actor system, so the actor props must still be usable
+		assertTrue(host.gameActorProps(null) != null);
+	}
+}
@@ -0,0 +1,108 @@
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.junit.*;
+
+import events.EventLog;
+import events.GameJournal;
+import simulation.GameReplayer;
+import structures.GameState;
+
+/*
+ * A game's journal must give back its whole event log after every flush, however often its ring has wrapped, so the game
+ * can be rebuilt from it.
+ */
+public class GameJournalTests {
+
+	static final int MAX_MOVES = 400;
+	static final int CAPACITY = 8 * 1024;
+
+
+	/*
+	 * Random legal moves are clicked in a headless game whose log goes to a small journal, flushing after each move.
+	 * The journal recovers the log as written so far every time, and the recovered log replays to the live game.
+	 */
+	@Test
+	public void journalRecoversGame() throws Exception {
+		for (long seed = 1; seed <= 3; seed++) {
+			File file = File.createTempFile("game", ".journal");
+			file.deleteOnExit();
+			GameJournal journal = new GameJournal(file, CAPACITY);
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			EventLog log = new EventLog(tee(journal, expected));
+
+			GameState gameState = RandomGames.newGame(seed);
+			gameState.setEventLog(log);
+
+			RandomGames.play(gameState, seed, MAX_MOVES, (before, move, i) -> {
+				log.flush();
+				assertRecovers(file, expected.toByteArray(), i);
+			});
+
+			GameState resumed = new GameReplayer(EventLog.read(new ByteArrayInputStream(GameJournal.recover(file)))).replay();
+			assertTrue("Resumed game differs", resumed.getPositionKey() == gameState.getPositionKey());
+			journal.delete();
+			assertTrue("Journal wasn't deleted", !file.exists());
+		}
+	}
+
+
+	/*
+	 * A log too big to keep a checkpoint in the journal stops being journalled, while the last checkpoint and the entries
+	 * after it can still be recovered
+	 */
+	@Test
+	public void journalOutgrown() throws Exception {
+		File file = File.createTempFile("game", ".journal");
+		file.deleteOnExit();
+		GameJournal journal = new GameJournal(file, 1024);
+		byte[] chunk = new byte[100];
+		byte[] flushed = null;
+		for (int i = 0; i < 20; i++) {
+			Arrays.fill(chunk, (byte) i);
+			journal.write(chunk, 0, chunk.length);
+			journal.flush();
+			byte[] recovered = GameJournal.recover(file);
+			assertTrue("Nothing recovered after " + (i + 1) + " flushes", recovered != null);
+			if (flushed != null) {
+				assertTrue("Recovered log shrank", recovered.length >= flushed.length);
+			}
+			flushed = recovered;
+		}
+		assertTrue("Journal kept more than it has room for", flushed.length < 20 * chunk.length);
+		for (int i = 0; i < flushed.length; i++) {
+			assertTrue("Recovered byte " + i + " changed", flushed[i] == (byte) (i / chunk.length));
+		}
+		journal.delete();
+	}
+
+
+	private static void assertRecovers(File file, byte[] expected, int move) {
+		try {
+			byte[] recovered = GameJournal.recover(file);
+			assertTrue("Journal lost the log after move " + move, Arrays.equals(recovered, expected));
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+
+	private static OutputStream tee(OutputStream first, OutputStream second) {
+		return new OutputStream() {
+			public void write(int b) throws IOException {
+				first.write(b);
+				second.write(b);
+			}
+			public void flush() throws IOException {
+				first.flush();
+				second.flush();
+			}
+		};
+	}
+}
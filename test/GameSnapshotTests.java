@@ -0,0 +1,80 @@
+import static org.junit.Assert.assertTrue;
+
+import org.junit.*;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import ai.GameSnapshot;
+import events.EndTurnClicked;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+
+/*
+ * Playing a move on a snapshot must give the same state, and the same hash, as playing it in the live game and taking
+ * a new snapshot, and must leave the snapshot it was played on unchanged. The live game's own position key must always
+ * equal the hash of its snapshot.
+ */
+public class GameSnapshotTests {
+
+	static final int MAX_MOVES = 400;
+
+
+	/*
+	 * Random legal moves are played on the snapshot and, as clicks, in a headless game, comparing the two after each one
+	 */
+	@Test
+	public void snapshotMovesMatchLiveGame() throws Exception {
+		for (long seed = 1; seed <= 5; seed++) {
+			GameState gameState = RandomGames.newGame(seed);
+			RandomGames.play(gameState, seed, MAX_MOVES, (before, move, i) -> {
+				GameSnapshot unplayed = before.copy();
+				GameSnapshot expected = before.play(move);
+				assertTrue("play() changed the snapshot it was played on", before.equals(unplayed));
+
+				GameSnapshot snapshot = GameSnapshot.of(gameState);
+				assertTrue("Snapshot differs from the live game after move " + i + "\nexpected " + expected + "\nlive " + snapshot,
+						expected.equals(snapshot));
+				assertTrue("Hash kept up to date while playing differs from the hash of the live game after move " + i,
+						expected.zobrist() == snapshot.zobrist());
+				assertTrue("Position key kept up to date by the live game differs from its snapshot's hash after move " + i,
+						gameState.getPositionKey() == snapshot.zobrist());
+			});
+		}
+	}
+
+
+	/*
+	 * A copy is equal to its original until a move is played on one of them
+	 */
+	@Test
+	public void copiesAreIndependent() {
+		GameState gameState = GameState.headless();
+		gameState.withUiSink(() -> new Initalize().processEvent(null, gameState, Json.newObject()));
+		GameSnapshot snapshot = GameSnapshot.of(gameState);
+		GameSnapshot copy = snapshot.copy();
+		assertTrue("Copy differs from its original", snapshot.equals(copy) && snapshot.hashCode() == copy.hashCode());
+
+		copy.playInPlace(GameSnapshot.encode(GameSnapshot.END_TURN, 0, 0));
+		assertTrue("Ending the turn on a copy changed the original", !snapshot.equals(copy) && snapshot.getCurrentPlayer() == 0);
+	}
+
+
+	/*
+	 * Two games in the same position have the same key, although their units and cards have different ids
+	 */
+	@Test
+	public void positionKeyDoesNotDependOnIds() {
+		GameState first = GameState.headless();
+		first.withUiSink(() -> new Initalize().processEvent(null, first, Json.newObject()));
+		GameState second = GameState.headless();
+		second.withUiSink(() -> new Initalize().processEvent(null, second, Json.newObject()));
+		assertTrue("Games have the same ids", first.getHumanPlayer().getCard(0).getId() != second.getHumanPlayer().getCard(0).getId());
+		assertTrue("Games in the same position have different keys", first.getPositionKey() == second.getPositionKey());
+
+		ObjectNode endTurn = Json.newObject();
+		endTurn.put("messagetype", "endturnclicked");
+		second.setAiAutoPlay(false);
+		second.withUiSink(() -> new EndTurnClicked().processEvent(null, second, endTurn));
+		assertTrue("Ending the turn did not change the key", first.getPositionKey() != second.getPositionKey());
+	}
+}
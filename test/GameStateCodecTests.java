@@ -0,0 +1,83 @@
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.*;
+
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+import structures.GameStateCodec;
+
+/*
+ * A game encoded with GameStateCodec must decode to the same position, which plays on exactly as the original does, and
+ * its snapshot must stay small.
+ */
+public class GameStateCodecTests {
+
+	static final int MAX_MOVES = 400;
+
+
+	/*
+	 * Random legal moves are clicked in a headless game, encoding it after each. Every snapshot decodes to the same
+	 * position and encodes back to the same bytes, and a decoded copy given the next moves stays level with the game.
+	 */
+	@Test
+	public void snapshotRoundTrips() throws Exception {
+		for (long seed = 1; seed <= 3; seed++) {
+			GameState gameState = RandomGames.newGame(seed);
+			GameState[] copy = {null};
+
+			RandomGames.play(gameState, seed, MAX_MOVES, (before, move, i) -> {
+				if (copy[0] != null) {
+					RandomGames.playMove(copy[0], move);
+					assertTrue("Decoded game differs after move " + i, copy[0].getPositionKey() == gameState.getPositionKey());
+				}
+
+				byte[] bytes = GameStateCodec.encode(gameState);
+				copy[0] = decode(bytes);
+				assertTrue("Snapshot of " + bytes.length + " bytes", bytes.length < 1024);
+				assertTrue("Decoded position differs after move " + i, copy[0].getPositionKey() == gameState.getPositionKey());
+				assertTrue("Decoded game encodes differently after move " + i, Arrays.equals(GameStateCodec.encode(copy[0]), bytes));
+				assertTrue("Decoded game's end differs", copy[0].isGameOver() == gameState.isGameOver());
+			});
+		}
+	}
+
+
+	/*
+	 * A snapshot of another version, or which isn't one, is refused
+	 */
+	@Test
+	public void foreignSnapshotRefused() throws Exception {
+		GameState gameState = GameState.headless();
+		gameState.withUiSink(() -> new Initalize().processEvent(null, gameState, Json.newObject()));
+		byte[] bytes = GameStateCodec.encode(gameState);
+		bytes[2] = (byte) (GameStateCodec.VERSION + 1);
+		assertTrue("Other version decoded", refused(bytes));
+		bytes[0] = 'X';
+		assertTrue("Other data decoded", refused(bytes));
+	}
+
+
+	private static boolean refused(byte[] bytes) {
+		try {
+			GameStateCodec.decode(bytes);
+			return false;
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+
+	private static GameState decode(byte[] bytes) {
+		try {
+			GameState copy = GameStateCodec.decode(bytes);
+			copy.setAiAutoPlay(false);
+			return copy;
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+}
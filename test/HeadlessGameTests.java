@@ -0,0 +1,63 @@
+import static org.junit.Assert.assertTrue;
+
+import org.junit.*;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import commands.DummyTell;
+import commands.HeadlessSink;
+import events.EndTurnClicked;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+
+/*
+ * A game with a HeadlessSink runs without a front-end: every command goes to its sink rather than altTell, and the AI's
+ * turns run without waiting for animations. The wall time of the game is printed.
+ */
+public class HeadlessGameTests {
+
+	static final int MAX_TURNS = 30;
+
+	static DummyTell previousAltTell;
+	static int altTellMessages = 0;
+
+	@BeforeClass
+	public static void setup() {
+		previousAltTell = BasicCommands.altTell;
+		BasicCommands.altTell = message -> altTellMessages++;
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		BasicCommands.altTell = previousAltTell;
+	}
+
+
+	/*
+	 * The human player ends each turn straight away and the AI plays its turns, until the game ends or MAX_TURNS turns
+	 */
+	@Test
+	public void headlessGameRunsWithoutPauses() {
+		GameState gameState = GameState.headless();
+		HeadlessSink sink = (HeadlessSink) gameState.getUiSink();
+
+		long start = System.nanoTime();
+		gameState.withUiSink(() -> new Initalize().processEvent(null, gameState, Json.newObject()));
+
+		EndTurnClicked endTurnProcessor = new EndTurnClicked();
+		ObjectNode endTurnMessage = Json.newObject();
+		endTurnMessage.put("messagetype", "endturnclicked");
+		int turns = 0;
+		while (!gameState.isGameOver() && turns < MAX_TURNS) {
+			gameState.withUiSink(() -> endTurnProcessor.processEvent(null, gameState, endTurnMessage));
+			turns++;
+		}
+		long millis = (System.nanoTime() - start) / 1000000L;
+
+		assertTrue("No commands reached the headless sink", sink.getCommandsSent() > 0);
+		assertTrue("Commands of the headless game were sent to altTell", altTellMessages == 0);
+		// with the animation pauses this many turns would take minutes
+		assertTrue("Headless game waited for animations (" + millis + " ms)", millis < 20000);
+	}
+}
@@ -0,0 +1,85 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.*;
+
+import structures.GameState;
+import structures.IdAllocator;
+
+/*
+ * Concurrent stress test for the ID allocator, checking that games running at the same time never hand out the same ID
+ */
+public class IdAllocatorTests {
+
+	static final int GAMES = 64;
+	static final int THREADS_PER_GAME = 4;
+	static final int IDS_PER_THREAD = 5000;
+
+	/*
+	 * Many games allocating from several threads each, enough to use up many ranges per game
+	 */
+	@Test
+	public void concurrentGamesNeverCollide() throws Exception {
+		Set<Integer> seen = ConcurrentHashMap.newKeySet();
+		List<Thread> threads = new ArrayList<Thread>();
+		CountDownLatch start = new CountDownLatch(1);
+		ConcurrentHashMap<String, Integer> duplicates = new ConcurrentHashMap<String, Integer>();
+
+		for (int g = 0; g < GAMES; g++) {
+			GameState gameState = new GameState();
+			for (int t = 0; t < THREADS_PER_GAME; t++) {
+				Thread thread = new Thread(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < IDS_PER_THREAD; i++) {
+						int id = gameState.nextId();
+						if (id < IdAllocator.RANGE_SIZE || !seen.add(id)) {
+							duplicates.put("id " + id, id);
+						}
+					}
+				});
+				threads.add(thread);
+				thread.start();
+			}
+		}
+
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertTrue("Duplicate or reserved IDs handed out: " + duplicates.keySet(), duplicates.isEmpty());
+		assertEquals(GAMES * THREADS_PER_GAME * IDS_PER_THREAD, seen.size());
+	}
+
+	/*
+	 * The static allocator used outside of games is also safe to call from several threads
+	 */
+	@Test
+	public void sharedIdsThreadSafe() throws Exception {
+		Set<Integer> seen = ConcurrentHashMap.newKeySet();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < IDS_PER_THREAD; i++) {
+					seen.add(GameState.getNextID());
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(8 * IDS_PER_THREAD, seen.size());
+	}
+}
@@ -0,0 +1,112 @@
+import static org.junit.Assert.assertTrue;
+
+import org.junit.*;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import commands.DummyTell;
+import events.CardClicked;
+import events.Initalize;
+import events.TileClicked;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Board;
+import structures.basic.Card;
+import structures.basic.LegalMove;
+import structures.basic.LegalMoves;
+import structures.basic.Player;
+import structures.basic.Unit;
+
+/*
+ * The legal move generator must offer exactly the tiles the click handlers highlight, and must not send anything to
+ * the front-end or change the board's highlighting.
+ */
+public class LegalMovesTests {
+
+	static GameState gameState;
+	static Board board;
+	static DummyTell previousAltTell;
+	static int messages = 0;
+
+	@BeforeClass
+	public static void setup() {
+		previousAltTell = BasicCommands.altTell;
+		BasicCommands.altTell = message -> messages++;
+		gameState = new GameState();
+		new Initalize().processEvent(null, gameState, Json.newObject());
+		board = gameState.getBoard();
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		BasicCommands.altTell = previousAltTell;
+	}
+
+
+	/*
+	 * Move and attack targets of each of the current player's units match the highlighting after clicking on the unit
+	 */
+	@Test
+	public void unitTargetsMatchHighlighting() {
+		Player player = gameState.getCurrentPlayer();
+		for (Unit unit : board.getUnits()) {
+			if (!unit.getPlayer().equals(player)) continue;
+			long moves = LegalMoves.moveTargets(board, player, unit);
+			long attacks = LegalMoves.attackTargets(board, player, unit);
+
+			clickTile(unit.getPosition().getTilex(), unit.getPosition().getTiley());
+			assertTrue("Move targets differ from highlighting", moves == board.getHighlightMask(1));
+			assertTrue("Attack targets differ from highlighting", attacks == board.getHighlightMask(2));
+			clickTile(unit.getPosition().getTilex(), unit.getPosition().getTiley()); // deselect
+			board.highlightAll(0);
+		}
+	}
+
+
+	/*
+	 * Targets of each card in the current player's hand match the highlighting after clicking on the card
+	 */
+	@Test
+	public void cardTargetsMatchHighlighting() {
+		Player player = gameState.getCurrentPlayer();
+		Player enemy = gameState.getOtherPlayer();
+		int position = 1;
+		for (Card card : player.getCards()) {
+			long targets = LegalMoves.cardTargets(board, player, enemy, card);
+
+			ObjectNode cardClick = Json.newObject();
+			cardClick.put("messagetype", "cardclicked");
+			cardClick.put("position", position++);
+			new CardClicked().processEvent(null, gameState, cardClick);
+			assertTrue("Targets of " + card.getCardname() + " differ from highlighting", targets == board.getHighlightMask(2));
+
+			board.highlightAll(0);
+			gameState.setCardSelected(false);
+			gameState.setClickedCard(null);
+		}
+	}
+
+
+	/*
+	 * Generating every legal action changes nothing the front-end can see
+	 */
+	@Test
+	public void generationSendsNothing() {
+		board.highlightAll(0);
+		int before = messages;
+		java.util.ArrayList<LegalMove> moves = LegalMoves.generate(gameState);
+
+		assertTrue("No legal actions on the first turn", moves.size() > 0);
+		assertTrue("Generating moves sent commands", messages == before);
+		assertTrue("Generating moves changed highlighting", board.getHighlightMask(1) == 0L && board.getHighlightMask(2) == 0L);
+	}
+
+
+	private static void clickTile(int x, int y) {
+		ObjectNode tileClick = Json.newObject();
+		tileClick.put("messagetype", "tileclicked");
+		tileClick.put("tilex", x);
+		tileClick.put("tiley", y);
+		new TileClicked().processEvent(null, gameState, tileClick);
+	}
+}
@@ -0,0 +1,105 @@
+import static org.junit.Assert.assertTrue;
+
+import org.junit.*;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import ai.AIPlayer;
+import ai.GameSnapshot;
+import ai.MctsAI;
+import ai.MctsSearch;
+import ai.SearchPool;
+import events.EndTurnClicked;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.AILogic;
+
+/*
+ * The MCTS AI must only plan legal moves, and must search on the pool it is given without holding more than its share
+ * of the pool's search permits.
+ */
+public class MctsAITests {
+
+	static final long ITERATIONS = 300;
+	static final long HOUR_MILLIS = 60 * 60 * 1000L;
+	static final int MAX_TURNS = 20;
+
+
+	/*
+	 * Each move of a plan found by several threads is legal in the state the moves before it lead to
+	 */
+	@Test
+	public void planIsLegal() {
+		GameState gameState = GameState.headless();
+		gameState.withUiSink(() -> new Initalize().processEvent(null, gameState, Json.newObject()));
+		GameSnapshot state = GameSnapshot.of(gameState);
+
+		SearchPool pool = new SearchPool(4, 1);
+		MctsSearch.Plan plan;
+		try {
+			plan = new MctsSearch(4).search(state, Long.MAX_VALUE, 2000, 1L, pool.getPool());
+		} finally {
+			pool.shutdown();
+		}
+		assertTrue("Search ran " + plan.getIterations() + " iterations rather than 4 x 2000", plan.getIterations() == 8000);
+		for (int move : plan.getMoves()) {
+			boolean legal = false;
+			for (int legalMove : state.legalMoves()) {
+				legal |= (legalMove == move);
+			}
+			assertTrue("Planned move " + move + " is not legal", legal);
+			state.playInPlace(move);
+		}
+	}
+
+
+	/*
+	 * The human player ends each turn straight away and the MCTS AI plays its turns, searching on a shared pool with each
+	 * search bounded by iterations rather than time, and gets the better of the human player
+	 */
+	@Test
+	public void playsTurnsOnSharedPool() {
+		SearchPool pool = new SearchPool(2, 1);
+		try {
+			GameState gameState = playGame(pool, new MctsAI(HOUR_MILLIS, ITERATIONS, 1L));
+			assertTrue("AI did not win or even damage the human player", gameState.isGameOver() || gameState.getHumanPlayer().getHealth() < 20);
+			assertTrue("Search permit not given back", pool.tryAcquire());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	/*
+	 * When every search permit of the pool is taken, the AI plays its turns as AILogic would rather than waiting to search
+	 */
+	@Test
+	public void playsWithoutSearchingWhenPoolBusy() {
+		SearchPool pool = new SearchPool(2, 1);
+		try {
+			assertTrue(pool.tryAcquire());
+			GameState busy = playGame(pool, new MctsAI(HOUR_MILLIS, ITERATIONS, 1L));
+			GameState ruleBased = playGame(null, AILogic::playTurn);
+			assertTrue("AI searched on a busy pool", busy.getPositionKey() == ruleBased.getPositionKey());
+			assertTrue("Busy pool gained a permit", !pool.tryAcquire());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	private static GameState playGame(SearchPool pool, AIPlayer ai) {
+		GameState gameState = GameState.headless();
+		gameState.setSearchPool(pool);
+		gameState.setAiPlayer(ai);
+		gameState.withUiSink(() -> new Initalize().processEvent(null, gameState, Json.newObject()));
+
+		ObjectNode endTurnMessage = Json.newObject();
+		endTurnMessage.put("messagetype", "endturnclicked");
+		for (int turns = 0; turns < MAX_TURNS && !gameState.isGameOver(); turns++) {
+			// the AI's whole turn is played before the human player's end turn returns
+			gameState.withUiSink(() -> new EndTurnClicked().processEvent(null, gameState, endTurnMessage));
+		}
+		return gameState;
+	}
+}
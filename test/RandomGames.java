@@ -0,0 +1,70 @@
+import java.util.Random;
+
+import ai.GameSnapshot;
+import ai.MoveClicks;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+
+/*
+ * Plays seeded random games for tests: a headless game whose decks are shuffled with the seed, in which random legal
+ * moves for both players are clicked as MoveClicks plays an AI's moves, checking the game after each one.
+ */
+public class RandomGames {
+
+	/*
+	 * Checks a game after a move has been clicked
+	 */
+	interface MoveCheck {
+		/*
+		 * before - snapshot of the game the move was chosen in, move - the move, index - number of moves played before it
+		 */
+		void check(GameSnapshot before, int move, int index) throws Exception;
+	}
+
+
+	/*
+	 * A headless game whose moves are all clicked by the caller, with both decks shuffled with the seed
+	 */
+	static GameState newGame(long seed) {
+		GameState gameState = GameState.headless();
+		gameState.setAiAutoPlay(false); // both players' moves are clicked
+		gameState.setDeckShuffle(new Random(seed));
+		return gameState;
+	}
+
+
+	/*
+	 * Initalize the game and click up to maxMoves random legal moves in it, chosen with the seed, until it is over
+	 */
+	static void play(GameState gameState, long seed, int maxMoves, MoveCheck check) throws Exception {
+		Random random = new Random(seed);
+		Exception[] failure = {null};
+		gameState.withUiSink(() -> {
+			new Initalize().processEvent(null, gameState, Json.newObject());
+			GameSnapshot snapshot = GameSnapshot.of(gameState);
+			try {
+				for (int i = 0; i < maxMoves && !snapshot.isOver(); i++) {
+					int[] moves = snapshot.legalMoves();
+					int move = moves[random.nextInt(moves.length)];
+					MoveClicks.play(gameState, snapshot, move);
+					check.check(snapshot, move, i);
+					snapshot = GameSnapshot.of(gameState);
+				}
+			} catch (Exception e) {
+				failure[0] = e;
+			}
+		});
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+	}
+
+
+	/*
+	 * Click a move in a game, which must be legal in it
+	 */
+	static void playMove(GameState gameState, int move) {
+		gameState.withUiSink(() -> MoveClicks.play(gameState, GameSnapshot.of(gameState), move));
+	}
+}
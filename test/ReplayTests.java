@@ -0,0 +1,99 @@
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.*;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import events.EventLog;
+import events.Initalize;
+import play.libs.Json;
+import simulation.GameReplayer;
+import structures.GameState;
+import structures.basic.AILogic;
+
+/*
+ * A game played with an event log must replay to the same state at the end of every turn, and the log must stay small.
+ */
+public class ReplayTests {
+
+	static final int MAX_TURNS = 60;
+
+
+	/*
+	 * Games between rule-based AIs on shuffled decks are logged, then replayed to each of their turns and to their end
+	 */
+	@Test
+	public void replayMatchesGame() throws Exception {
+		for (long seed = 1; seed <= 3; seed++) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			EventLog log = new EventLog(bytes);
+			GameState gameState = GameState.headless();
+			gameState.setAiAutoPlay(false); // both players' turns are played below
+			gameState.setDeckShuffle(new Random(seed));
+			gameState.setEventLog(log);
+
+			List<Long> keys = new ArrayList<Long>();
+			gameState.withUiSink(() -> {
+				new Initalize().processEvent(null, gameState, Json.newObject());
+				keys.add(gameState.getPositionKey());
+				for (int turn = 0; turn < MAX_TURNS && !gameState.isGameOver(); turn++) {
+					AILogic.playTurn(gameState);
+					keys.add(gameState.getPositionKey());
+				}
+			});
+			log.close();
+			assertTrue("Log of " + bytes.size() + " bytes for " + keys.size() + " turns", bytes.size() < 64 * keys.size());
+
+			List<EventLog.Event> events = EventLog.read(new ByteArrayInputStream(bytes.toByteArray()));
+			GameReplayer replayer = new GameReplayer(events);
+			List<Long> replayed = new ArrayList<Long>();
+			GameState end = replayer.replay(Integer.MAX_VALUE, state -> replayed.add(state.getPositionKey()));
+			assertTrue("Replayed " + replayed.size() + " turns of " + keys.size(), replayed.equals(keys));
+			assertTrue("Replay ended differently", end.getPositionKey() == gameState.getPositionKey() && end.isGameOver() == gameState.isGameOver());
+
+			int middle = keys.size() / 2;
+			assertTrue("Replay to turn " + middle + " differs", replayer.replay(middle).getPositionKey() == keys.get(middle));
+		}
+	}
+
+
+	/*
+	 * A log cut short, as by the server stopping, reads back up to its last whole record
+	 */
+	@Test
+	public void truncatedLog() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		EventLog log = new EventLog(bytes);
+		ObjectNode initalize = Json.newObject();
+		initalize.put("ai", "alphabeta");
+		initalize.put("aiDepth", 3);
+		log.initalized(new int[][] { { 0, 1, 2 }, { 2, 1, 0 } }, initalize);
+		ObjectNode tileClick = Json.newObject();
+		tileClick.put("tilex", 3);
+		tileClick.put("tiley", 4);
+		log.record("tileclicked", tileClick);
+		ObjectNode cardClick = Json.newObject();
+		cardClick.put("position", 2);
+		cardClick.put("AI", "AI");
+		log.record("cardclicked", cardClick);
+		log.close();
+
+		byte[] whole = bytes.toByteArray();
+		List<EventLog.Event> events = EventLog.read(new ByteArrayInputStream(whole));
+		assertTrue("Read " + events.size() + " events", events.size() == 3);
+		assertTrue("Tile click changed", events.get(1).toMessage().get("tilex").asInt() == 3 && events.get(1).toMessage().get("tiley").asInt() == 4);
+		assertTrue("AI flag lost", events.get(2).isFromAI() && !events.get(1).isFromAI());
+		assertTrue("Deck order changed", events.get(0).getDeckOrders()[1][0] == 2);
+		assertTrue("AI opponent changed", events.get(0).toMessage().get("ai").asText().equals("alphabeta")
+				&& events.get(0).toMessage().get("aiDepth").asInt() == 3);
+
+		byte[] cut = Arrays.copyOf(whole, whole.length - 1);
+		assertTrue("Cut record wasn't dropped", EventLog.read(new ByteArrayInputStream(cut)).size() == 2);
+	}
+}
@@ -0,0 +1,55 @@
+import static org.junit.Assert.assertTrue;
+
+import org.junit.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import simulation.GameResult;
+import simulation.SelfPlayReport;
+import simulation.SelfPlayRunner;
+
+/*
+ * Self-play between two AI players: batches finish without errors, and games are isolated from each other, so a batch
+ * played on several threads ends exactly as the same batch played on one.
+ */
+public class SelfPlayRunnerTests {
+
+	static final int GAMES = 24;
+	static final long SEED = 42L;
+
+	@Test
+	public void batchCompletesWithoutErrors() {
+		SelfPlayReport report = new SelfPlayRunner(4, SelfPlayRunner.DEFAULT_MAX_TURNS).run(GAMES, SEED);
+
+		assertTrue("Not every game was played", report.getGames() == GAMES);
+		assertTrue("Games failed with an exception", report.count(GameResult.Outcome.ERROR) == 0);
+		assertTrue("No turn latencies recorded", report.getTurnLatency().getCount() > 0);
+
+		// the report accounts for every game once, and its turn counts are consistent
+		int outcomes = 0;
+		for (GameResult.Outcome outcome : GameResult.Outcome.values()) {
+			outcomes += report.count(outcome);
+			assertTrue("Report's " + outcome + " games differ", report.toJson().get("outcomes").get(outcome.name()).get("games").asInt() == report.count(outcome));
+		}
+		assertTrue("Outcomes add up to " + outcomes + " games", outcomes == GAMES);
+		JsonNode turns = report.toJson().get("turns");
+		assertTrue("Turn counts inconsistent: " + turns, turns.get("min").asInt() > 0
+				&& turns.get("min").asInt() <= turns.get("mean").asDouble() && turns.get("mean").asDouble() <= turns.get("max").asInt());
+	}
+
+
+	@Test
+	public void parallelGamesMatchSequentialGames() {
+		SelfPlayRunner sequential = new SelfPlayRunner(1, SelfPlayRunner.DEFAULT_MAX_TURNS);
+		SelfPlayReport parallel = new SelfPlayRunner(4, SelfPlayRunner.DEFAULT_MAX_TURNS).run(GAMES, SEED);
+
+		SelfPlayReport expected = new SelfPlayReport();
+		for (int i = 0; i < GAMES; i++) {
+			expected.add(sequential.playGame(SEED + i));
+		}
+		for (GameResult.Outcome outcome : GameResult.Outcome.values()) {
+			assertTrue("Parallel games ended differently: " + outcome, parallel.count(outcome) == expected.count(outcome));
+		}
+		assertTrue("Parallel games took a different number of turns",
+				parallel.toJson().get("turns").equals(expected.toJson().get("turns")));
+	}
+}
@@ -0,0 +1,185 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import commands.HighlightTell;
+import commands.JsonWriters;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Board;
+import structures.basic.Card;
+import structures.basic.Player;
+import structures.basic.Tile;
+import structures.basic.Unit;
+
+/*
+ * Checks the hand-written JsonWriters produce the same fields as the old writeValueAsString/readTree round trip, less
+ * only the server-side fields they leave out on purpose, and that they allocate less than it on the highlighting path
+ * (drawTile over the whole board). The writers reuse cached tile fragments, so this is the steady state seen in a game
+ */
+public class SerializationBenchmarkTests {
+
+	static GameState gameState;
+	static ObjectMapper mapper = new ObjectMapper();
+
+	static final int WARMUP_ROUNDS = 200;
+	static final int ROUNDS = 1000;
+
+	/*
+	 * Pre-test initialisation of game
+	 */
+	@BeforeClass
+	public static void setup() {
+
+		// specify where to trap messages for front-end
+		HighlightTell altTell = new HighlightTell();
+		BasicCommands.altTell = altTell;
+
+		// initialise
+		gameState = new GameState();
+		Initalize initalizeProcessor = new Initalize();
+		ObjectNode eventMessage = Json.newObject();
+		initalizeProcessor.processEvent(null, gameState, eventMessage);
+	}
+
+
+	/*
+	 * JsonWriters should write every field Jackson would have written for the object, with the same value, and no
+	 * others, except the server-side state the front-end never draws from (a tile's board, unit and highlighting, which
+	 * drawTile sends as its mode, and a player's avatar, hand and deck)
+	 */
+	@Test
+	public void writersMatchJackson() throws Exception {
+		Board b = gameState.getBoard();
+		Player human = gameState.getHumanPlayer();
+		Unit avatar = human.getAvatar();
+		Tile tile = b.getTile(avatar.getPosition().getTilex(), avatar.getPosition().getTiley());
+
+		assertSameFields(mapper.readTree(mapper.writeValueAsString(tile)), JsonWriters.writeTile(tile), "board", "unit", "highlighted");
+		assertSameFields(mapper.readTree(mapper.writeValueAsString(avatar)), JsonWriters.writeUnit(avatar));
+		assertSameFields(mapper.readTree(mapper.writeValueAsString(human)), JsonWriters.writePlayer(human), "avatar", "cards", "deck");
+		for (Card card : human.getCards()) {
+			if (card != null) {
+				assertSameFields(mapper.readTree(mapper.writeValueAsString(card)), JsonWriters.writeCard(card));
+			}
+		}
+	}
+
+
+	/*
+	 * Tile and card fragments are built once and reused, until a field sent to the front-end is set
+	 */
+	@Test
+	public void fragmentsCachedUntilChanged() {
+		Tile tile = gameState.getBoard().getTile(4, 4);
+		ObjectNode first = JsonWriters.writeTile(tile);
+		assertTrue("Tile fragment was rebuilt", first == JsonWriters.writeTile(tile));
+
+		// highlighting and units are not part of the fragment
+		tile.setHighlighted(1);
+		assertTrue("Tile fragment rebuilt after highlighting", first == JsonWriters.writeTile(tile));
+		tile.setHighlighted(0);
+
+		tile.setXpos(tile.getXpos());
+		assertTrue("Tile fragment not rebuilt after position set", first != JsonWriters.writeTile(tile));
+
+		Card card = gameState.getHumanPlayer().getCard(0);
+		ObjectNode cardJson = JsonWriters.writeCard(card);
+		assertTrue("Card fragment was rebuilt", cardJson == JsonWriters.writeCard(card));
+		card.setManacost(card.getManacost() + 1);
+		assertEquals(card.getManacost(), JsonWriters.writeCard(card).get("manacost").asInt());
+		card.setManacost(card.getManacost() - 1);
+	}
+
+
+	/*
+	 * Allocation per drawTile payload with the old round trip and the new writers
+	 */
+	@Test
+	public void drawTileAllocation() throws Exception {
+		Board b = gameState.getBoard();
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			roundTripBoard(b);
+			writeBoard(b);
+		}
+
+		long bytesBefore = allocatedBytes();
+		for (int i = 0; i < ROUNDS; i++) {
+			roundTripBoard(b);
+		}
+		long roundTripBytes = allocatedBytes() - bytesBefore;
+
+		bytesBefore = allocatedBytes();
+		for (int i = 0; i < ROUNDS; i++) {
+			writeBoard(b);
+		}
+		long writerBytes = allocatedBytes() - bytesBefore;
+
+		// allocation is deterministic enough to compare, timings are not
+		if (roundTripBytes > 0 && writerBytes > 0) {
+			assertTrue("JsonWriters allocated more than the round trip", writerBytes < roundTripBytes);
+		}
+	}
+
+
+	private static void roundTripBoard(Board b) throws Exception {
+		for (int x = 0; x < b.getWidth(); x++) {
+			for (int y = 0; y < b.getHeight(); y++) {
+				mapper.readTree(mapper.writeValueAsString(b.getTile(x, y)));
+			}
+		}
+	}
+
+
+	private static void writeBoard(Board b) {
+		for (int x = 0; x < b.getWidth(); x++) {
+			for (int y = 0; y < b.getHeight(); y++) {
+				JsonWriters.writeTile(b.getTile(x, y));
+			}
+		}
+	}
+
+
+	/*
+	 * Bytes allocated so far by this thread, or 0 if the JVM cannot report it
+	 */
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+
+	/*
+	 * The fields of actual and expected must be the same, and hold the same values, apart from the fields not sent
+	 */
+	private static void assertSameFields(JsonNode expected, ObjectNode actual, String... notSent) {
+		Set<String> omitted = new HashSet<String>(Arrays.asList(notSent));
+		Iterator<String> fields = actual.fieldNames();
+		while (fields.hasNext()) {
+			String field = fields.next();
+			assertTrue("Field " + field + " should not be sent", !omitted.contains(field));
+			assertEquals("Field " + field + " differs", expected.get(field), actual.get(field));
+		}
+		fields = expected.fieldNames();
+		while (fields.hasNext()) {
+			String field = fields.next();
+			assertTrue("Field " + field + " is missing", omitted.contains(field) || actual.has(field));
+		}
+	}
+}
@@ -0,0 +1,92 @@
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.*;
+
+import actors.SessionRegistry;
+import events.EventLog;
+import events.GameJournal;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+
+/*
+ * A game detached from its websocket must be handed whole to the one connection reattaching to it, and ended once it
+ * has been detached for longer than the registry's time to live.
+ */
+public class SessionRegistryTests {
+
+	static final long TTL = 60 * 1000L;
+
+
+	/*
+	 * A detached game is reattached to as it was, only once
+	 */
+	@Test
+	public void reattachesOnce() throws Exception {
+		SessionRegistry registry = new SessionRegistry(TTL, 10);
+		SessionRegistry.Session session = new SessionRegistry.Session("key", game(), null);
+		long key = session.getGameState().getPositionKey();
+		registry.detach(session);
+
+		assertTrue("Unknown key reattached", registry.reattach("other") == null);
+		SessionRegistry.Session reattached = registry.reattach("key");
+		assertTrue("Detached game lost", reattached == session && reattached.getGameState().getPositionKey() == key);
+		assertTrue("Game reattached twice", registry.reattach("key") == null && registry.size() == 0);
+	}
+
+
+	/*
+	 * Games detached for longer than the time to live are evicted, ending their logs and deleting their journals, while
+	 * those detached since are kept
+	 */
+	@Test
+	public void evictsIdleGames() throws Exception {
+		SessionRegistry registry = new SessionRegistry(TTL, 10);
+		File file = File.createTempFile("game", ".journal");
+		file.deleteOnExit();
+		GameJournal journal = new GameJournal(file, GameJournal.DEFAULT_CAPACITY);
+		GameState abandoned = game();
+		abandoned.setEventLog(new EventLog(journal));
+		registry.detach(new SessionRegistry.Session("abandoned", abandoned, journal), 1000);
+		registry.detach(new SessionRegistry.Session("recent", game(), null), 1000 + TTL / 2);
+
+		assertTrue("Game evicted before its time to live", registry.evictIdle(1000 + TTL) == 0 && registry.size() == 2);
+		assertTrue("Abandoned game kept", registry.evictIdle(1000 + TTL + 1) == 1);
+		assertTrue("Abandoned game's journal kept", !file.exists());
+		assertTrue("Evicted game reattached", registry.reattach("abandoned") == null);
+		assertTrue("Recent game evicted", registry.reattach("recent") != null);
+	}
+
+
+	/*
+	 * No more than the registry's most games are kept detached, the game detached longest is ended to make room
+	 */
+	@Test
+	public void capsDetachedGames() throws Exception {
+		SessionRegistry registry = new SessionRegistry(TTL, 2);
+		File file = File.createTempFile("game", ".journal");
+		file.deleteOnExit();
+		GameJournal journal = new GameJournal(file, GameJournal.DEFAULT_CAPACITY);
+		GameState oldest = game();
+		oldest.setEventLog(new EventLog(journal));
+		registry.detach(new SessionRegistry.Session("oldest", oldest, journal), 1000);
+		registry.detach(new SessionRegistry.Session("older", game(), null), 2000);
+		registry.detach(new SessionRegistry.Session("newest", game(), null), 3000);
+
+		assertTrue("More games kept than the cap", registry.size() == 2);
+		assertTrue("Game detached longest kept", registry.reattach("oldest") == null && !file.exists());
+		assertTrue("Newer games ended", registry.reattach("older") != null && registry.reattach("newest") != null);
+	}
+
+
+	private static GameState game() {
+		GameState gameState = GameState.headless();
+		gameState.setAiAutoPlay(false);
+		gameState.setDeckShuffle(new Random(1));
+		gameState.withUiSink(() -> new Initalize().processEvent(null, gameState, Json.newObject()));
+		return gameState;
+	}
+}
@@ -10,6 +10,7 @@ import commands.CheckMessageIsNotNullOnTell;
 import events.Initalize;
 import play.libs.Json;
 import structures.GameState;
+import structures.IdAllocator;
 import structures.basic.Board;
 import structures.basic.Card;
 import structures.basic.Player;
@@ -118,7 +119,9 @@ public class SummonTest {
 		
 		//Test that a unit was summoned, this was an azure herald and the avatar's health was subsequently increased.
 		assertTrue("Unit was not summoned to the board", gameState.getBoard().getTile(2, 2).hasUnit());
-		assertTrue("Azure Herald not summoned", gameState.getBoard().getTile(2,2).getUnit().getId() == 5 || gameState.getBoard().getTile(2,2).getUnit().getId() == 15);
+		// summoned units take their IDs from the game rather than the card, so the unit is told apart by its config
+		Unit summoned = gameState.getBoard().getTile(2,2).getUnit();
+		assertTrue("Azure Herald not summoned", StaticConfFiles.u_azure_herald.equals(summoned.getConfigFile()) && summoned.getId() >= IdAllocator.RANGE_SIZE);
 		assertTrue("Avatar's health was not incremented", avatar.getUnitHealth() == (initialAvatarHealth+3));
 		//currentPlayer.setPosition(position+1);
 		
@@ -0,0 +1,72 @@
+import static org.junit.Assert.assertTrue;
+
+import org.junit.*;
+
+import structures.GameState;
+import structures.basic.Board;
+import structures.basic.Player;
+import structures.basic.ReachableTiles;
+import structures.basic.Tile;
+import structures.basic.Unit;
+
+/*
+ * The board's threat maps are only recomputed near the units that moved, were summoned or died, so after every move of
+ * a game they must still equal the reach of each unit computed from scratch.
+ */
+public class ThreatMapTests {
+
+	static final int MAX_MOVES = 300;
+
+
+	/*
+	 * Random legal moves are clicked in a headless game, checking every unit's reach and both players' threat maps
+	 * after each one
+	 */
+	@Test
+	public void threatMapsMatchFullRecompute() throws Exception {
+		for (long seed = 1; seed <= 3; seed++) {
+			GameState gameState = RandomGames.newGame(seed);
+			RandomGames.play(gameState, seed, MAX_MOVES, (before, move, i) ->
+					assertThreatMaps(gameState.getBoard(), gameState.getHumanPlayer(), gameState.getAIPlayer(), i));
+		}
+	}
+
+
+	private static void assertThreatMaps(Board board, Player human, Player ai, int move) {
+		long[] threat = new long[2];
+		for (Unit unit : board.getUnits()) {
+			int x = unit.getPosition().getTilex();
+			int y = unit.getPosition().getTiley();
+			Tile tile = board.getTile(x, y);
+			Player player = unit.getPlayer();
+			long bit = board.tileBit(x, y);
+
+			long moves = ReachableTiles.compute(board, player, unit, tile, 2).getMask() & ~bit;
+			assertTrue("Move reach of " + x + "," + y + " is stale after move " + move, board.getMoveReachMask(x, y) == moves);
+
+			long expected;
+			long provoking = board.getAdjacentMask(x, y) & board.getEnemyUnitMask(player) & board.getProvokeMask();
+			if (provoking != 0L) {
+				expected = provoking;
+			} else if (unit.getAbilities().contains("ranged")) {
+				expected = board.getAllTilesMask() & ~bit;
+			} else {
+				long from = moves | bit;
+				if (unit.getAbilities().contains("flying")) {
+					from |= board.getEmptyMask();
+				}
+				// every tile next to one the unit could attack from
+				expected = 0L;
+				for (long mask = from; mask != 0; mask &= mask - 1) {
+					int index = Long.numberOfTrailingZeros(mask);
+					expected |= board.getAdjacentMask(index / board.getHeight(), index % board.getHeight());
+				}
+				expected &= ~bit;
+			}
+			assertTrue("Attack reach of " + x + "," + y + " is stale after move " + move, board.getAttackReachMask(x, y) == expected);
+			threat[player.isHuman() ? 0 : 1] |= expected;
+		}
+		assertTrue("Human threat map is stale after move " + move, board.getThreatMask(human) == threat[0]);
+		assertTrue("AI threat map is stale after move " + move, board.getThreatMask(ai) == threat[1]);
+	}
+}
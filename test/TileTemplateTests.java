@@ -0,0 +1,138 @@
+import static org.junit.Assert.assertTrue;
+
+import org.junit.*;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import commands.BasicCommands;
+import commands.CheckMessageIsNotNullOnTell;
+import events.Initalize;
+import play.libs.Json;
+import structures.GameState;
+import structures.basic.Board;
+import structures.basic.Tile;
+import utils.BasicObjectBuilders;
+import utils.StaticConfFiles;
+
+/*
+ * The board's tiles are stamped out of a single parsed tile template rather than parsing tile.json for every tile, as
+ * the board used to. Stamped tiles must be the same as parsed ones, each game must still get its own board, and
+ * stamping a board must be faster than parsing it.
+ */
+public class TileTemplateTests {
+
+	static final int ROUNDS = 50;
+
+	@BeforeClass
+	public static void setup() {
+		BasicCommands.altTell = new CheckMessageIsNotNullOnTell();
+	}
+
+
+	/*
+	 * Every tile stamped from the template matches one parsed from tile.json, at its own place on the board
+	 */
+	@Test
+	public void stampedTilesMatchParsed() {
+		Tile parsed = Tile.constructTile(StaticConfFiles.tileConf);
+		Tile previous = null;
+		for (int x = 0; x < 9; x++) {
+			for (int y = 0; y < 5; y++) {
+				Tile stamped = BasicObjectBuilders.loadTile(x, y);
+				assertTrue("Stamped tile has the wrong size", parsed.getWidth() == stamped.getWidth() && parsed.getHeight() == stamped.getHeight());
+				assertTrue("Stamped tile has the wrong textures", parsed.getTileTextures().equals(stamped.getTileTextures()));
+				assertTrue("Stamped tile misplaced", stamped.getTilex() == x && stamped.getTiley() == y);
+				if (previous != null && previous.getTilex() == x) {
+					assertTrue("Stamped tiles overlap", stamped.getYpos() >= previous.getYpos() + previous.getHeight());
+				}
+				previous = stamped;
+			}
+		}
+	}
+
+
+	/*
+	 * tile.json is parsed once, and later tiles are new tiles sharing the template's textures
+	 */
+	@Test
+	public void tileTemplateParsedOnce() throws Exception {
+		assertTrue("Template parsed again", BasicObjectBuilders.template(StaticConfFiles.tileConf) == BasicObjectBuilders.template(StaticConfFiles.tileConf));
+
+		Tile first = BasicObjectBuilders.loadTile(0, 0);
+		Tile second = BasicObjectBuilders.loadTile(0, 0);
+		assertTrue("Same tile stamped twice", first != second);
+		assertTrue("Textures not shared with the template", first.getTileTextures() == second.getTileTextures());
+	}
+
+
+	/*
+	 * Each game initalized gets a whole board of its own tiles
+	 */
+	@Test
+	public void initalizeBuildsOwnBoard() {
+		Board first = initalizeGame().getBoard();
+		Board second = initalizeGame().getBoard();
+		for (int x = 0; x < 9; x++) {
+			for (int y = 0; y < 5; y++) {
+				Tile tile = first.getTile(x, y);
+				assertTrue("Board tile missing", tile != null && tile.getTilex() == x && tile.getTiley() == y);
+				assertTrue("Board tile shared between games", tile != second.getTile(x, y));
+			}
+		}
+	}
+
+
+	/*
+	 * Startup benchmark: Initalize builds its board by stamping the 45 tiles from the template, which must be faster than
+	 * parsing tile.json once per tile as the board used to, averaged over many boards once both paths are warm
+	 */
+	@Test
+	public void boardTilesBenchmark() {
+		for (int i = 0; i < ROUNDS; i++) {
+			buildTilesByParsing();
+			buildTilesFromTemplate();
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			buildTilesByParsing();
+		}
+		long parsingNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			buildTilesFromTemplate();
+		}
+		long templateNanos = System.nanoTime() - start;
+
+		assertTrue("Stamping took " + templateNanos / ROUNDS + " ns a board, parsing " + parsingNanos / ROUNDS, templateNanos < parsingNanos);
+	}
+
+
+	private static void buildTilesByParsing() {
+		for (int x = 0; x < 9; x++) {
+			for (int y = 0; y < 5; y++) {
+				Tile tile = Tile.constructTile(StaticConfFiles.tileConf);
+				tile.setTilex(x);
+				tile.setTiley(y);
+			}
+		}
+	}
+
+
+	private static void buildTilesFromTemplate() {
+		for (int x = 0; x < 9; x++) {
+			for (int y = 0; y < 5; y++) {
+				BasicObjectBuilders.loadTile(x, y);
+			}
+		}
+	}
+
+
+	private static GameState initalizeGame() {
+		GameState gameState = new GameState();
+		Initalize initalizeProcessor = new Initalize();
+		ObjectNode eventMessage = Json.newObject();
+		initalizeProcessor.processEvent(null, gameState, eventMessage);
+		return gameState;
+	}
+}
@@ -0,0 +1,108 @@
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.*;
+
+import ai.GameSnapshot;
+import ai.WeightedEvaluator;
+import events.Initalize;
+import play.libs.Json;
+import simulation.EvaluationTuner;
+import structures.GameState;
+
+/*
+ * The weighted evaluation must score as the features and weights say, keep its weights through a file, and the
+ * tuner must fit weights which predict results better than the ones it started from.
+ */
+public class WeightedEvaluatorTests {
+
+	static List<GameSnapshot> positions = new ArrayList<GameSnapshot>();
+
+	/*
+	 * Positions along a game of random moves
+	 */
+	@BeforeClass
+	public static void setup() {
+		GameState gameState = GameState.headless();
+		gameState.withUiSink(() -> new Initalize().processEvent(null, gameState, Json.newObject()));
+		GameSnapshot state = GameSnapshot.of(gameState);
+		Random random = new Random(7);
+		for (int i = 0; i < 60 && !state.isOver(); i++) {
+			positions.add(state);
+			int[] moves = state.legalMoves();
+			state = state.play(moves[random.nextInt(moves.length)]);
+		}
+	}
+
+
+	/*
+	 * The default weights score avatar health and half the material of the other units, and each feature is counted
+	 * for player 0 less player 1
+	 */
+	@Test
+	public void defaultWeights() {
+		WeightedEvaluator evaluator = WeightedEvaluator.defaults();
+		for (GameSnapshot state : positions) {
+			int expected = 100 * (state.getHealth(0) - state.getHealth(1));
+			for (int slot = 0; slot < state.getUnitSlots(); slot++) {
+				int owner = state.getUnitOwner(slot);
+				if (state.getUnitTile(slot) != GameSnapshot.NO_UNIT && slot != state.getAvatarSlot(owner)) {
+					int material = 50 * (state.getUnitAttack(slot) + state.getUnitHealth(slot));
+					expected += (owner == 0) ? material : -material;
+				}
+			}
+			assertTrue("Scored " + evaluator.score(state) + ", expected " + expected, evaluator.score(state) == expected);
+
+			int[] features = WeightedEvaluator.features(state, new int[WeightedEvaluator.FEATURES.length]);
+			assertTrue("Tempo isn't the player to move", features[WeightedEvaluator.TEMPO] == ((state.getCurrentPlayer() == 0) ? 1 : -1));
+			assertTrue("Cards isn't the hand sizes", features[WeightedEvaluator.CARDS] == state.getHandSize(0) - state.getHandSize(1));
+		}
+	}
+
+
+	/*
+	 * Weights saved to a file are read back, and a missing file gives the default weights
+	 */
+	@Test
+	public void weightsFile() throws Exception {
+		File file = File.createTempFile("evaluation", ".json");
+		file.deleteOnExit();
+		int[] weights = { 120, 45, 10, 30, 5, -20 };
+		new WeightedEvaluator(weights).save(file.getPath());
+		assertTrue("Weights changed on reading", Arrays.equals(weights, WeightedEvaluator.load(file.getPath()).getWeights()));
+
+		file.delete();
+		assertTrue("Missing file didn't give the defaults", Arrays.equals(WeightedEvaluator.defaults().getWeights(),
+				WeightedEvaluator.load(file.getPath()).getWeights()));
+	}
+
+
+	/*
+	 * Results decided by a known weighting of the features are predicted better after fitting, and the weights fitted
+	 * lean the same way as the ones that decided them
+	 */
+	@Test
+	public void tunerFitsResults() {
+		int[] truth = { 100, 50, 300, 200, 20, 40 };
+		EvaluationTuner tuner = new EvaluationTuner();
+		Random random = new Random(11);
+		for (GameSnapshot state : positions) {
+			if (state.isOver()) continue;
+			int[] features = WeightedEvaluator.features(state, new int[WeightedEvaluator.FEATURES.length]);
+			double p = 1.0 / (1.0 + Math.exp(-new WeightedEvaluator(truth).score(state) / EvaluationTuner.SCALE));
+			for (int i = 0; i < 20; i++) {
+				tuner.add(features, random.nextDouble() < p ? 1.0 : 0.0);
+			}
+		}
+
+		double[] initial = new double[truth.length];
+		double[] fitted = tuner.fit(initial, 500);
+		assertTrue("Fitting didn't reduce the error", tuner.error(fitted) < tuner.error(initial));
+		assertTrue("Avatar health weight fitted as " + fitted[WeightedEvaluator.AVATAR_HEALTH], fitted[WeightedEvaluator.AVATAR_HEALTH] > 0);
+	}
+}